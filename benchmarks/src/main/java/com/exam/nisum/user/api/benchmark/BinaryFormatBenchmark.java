@@ -0,0 +1,127 @@
+package com.exam.nisum.user.api.benchmark;
+
+import com.exam.nisum.user.api.dto.response.PhoneResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara JSON con los formatos binarios Smile y CBOR al escribir y leer un UserResponseDTO y una página
+ * de 1000 usuarios distintos, como la que piden los clientes internos. El tamaño de cada cuerpo se
+ * imprime al preparar el benchmark.
+ * Se ejecuta con -prof gc para ver la memoria asignada por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryFormatBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectWriter responseWriter;
+
+    private ObjectWriter pageWriter;
+
+    private ObjectReader pageReader;
+
+    private UserResponseDTO response;
+
+    private List<UserResponseDTO> page;
+
+    private byte[] pageBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(factory(format))
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        responseWriter = objectMapper.writerFor(UserResponseDTO.class);
+        pageWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, UserResponseDTO.class));
+        pageReader = objectMapper.readerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, UserResponseDTO.class));
+
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(user(i));
+        }
+        response = page.get(0);
+        pageBody = pageWriter.writeValueAsBytes(page);
+        System.out.printf("%n%s: usuario %d bytes, página de %d usuarios %d bytes%n",
+                format, responseWriter.writeValueAsBytes(response).length, PAGE_SIZE, pageBody.length);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] writePageOf1000() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<UserResponseDTO> readPageOf1000() throws IOException {
+        return pageReader.readValue(pageBody);
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    private static UserResponseDTO user(int i) {
+        List<PhoneResponseDTO> phones = new ArrayList<>();
+        phones.add(PhoneResponseDTO.builder().number("32236" + (1000 + i)).citycode("1").countrycode("57").build());
+        return UserResponseDTO.builder()
+                .id(UUID.randomUUID())
+                .name("Usuario " + i)
+                .email("usuario" + i + "@dominio.cl")
+                .phones(phones)
+                .created(LocalDate.now().minusDays(i))
+                .modified(LocalDate.now())
+                .lastLogin(LocalDate.now())
+                .token(UUID.randomUUID().toString())
+                .isActive(true)
+                .version((long) i)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.exam.nisum.user.api.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Mide el throughput de la importación masiva (POST /nisum/api/users/bulk) contra una instancia ya levantada,
+ * en usuarios creados por segundo, con peticiones NDJSON de un teléfono por usuario enviadas por varios clientes.
+ * Para medir la validación, la consulta de emails y los inserts sin el costo de las contraseñas, el servidor se
+ * levanta con un algoritmo barato y sin límites: --nisum.password.algorithm=pbkdf2
+ * --nisum.password.pbkdf2-iterations=1 --nisum.rate-limit.enabled=false.
+ *
+ * <p>Parámetros (clave=valor): url (http://localhost:8080), users (200000), size (10000, usuarios por petición),
+ * clients (2), runs (3).</p>
+ */
+public class BulkImportTest {
+
+    private static final String BULK_PATH = "/nisum/api/users/bulk";
+
+    private static final String USER_JSON = "{\"name\":\"Importado\",\"email\":\"b%d-%s@bulk.cl\","
+            + "\"password\":\"Carga1234\","
+            + "\"phones\":[{\"number\":\"1234567\",\"citycode\":\"1\",\"countrycode\":\"57\"}]}\n";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            params.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        String url = params.getOrDefault("url", "http://localhost:8080");
+        int users = Integer.parseInt(params.getOrDefault("users", "200000"));
+        int size = Integer.parseInt(params.getOrDefault("size", "10000"));
+        int clients = Integer.parseInt(params.getOrDefault("clients", "2"));
+        int runs = Integer.parseInt(params.getOrDefault("runs", "3"));
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            // La primera ejecución calienta la JVM del servidor y no se muestra
+            for (int run = 0; run <= runs; run++) {
+                importUsers(httpClient, executor, url, users, size, run > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Importa la cantidad de usuarios indicada, con emails nuevos, y muestra los usuarios creados por segundo.
+     */
+    private static void importUsers(HttpClient httpClient, ExecutorService executor, String url, int users,
+                                    int size, boolean print) throws Exception {
+        // Los cuerpos se arman antes de medir, para no contar su construcción en el cliente
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<String> bodies = new ArrayList<>();
+        for (int from = 0; from < users; from += size) {
+            StringBuilder body = new StringBuilder();
+            for (int i = from; i < Math.min(from + size, users); i++) {
+                body.append(String.format(USER_JSON, i, run));
+            }
+            bodies.add(body.toString());
+        }
+
+        long start = System.nanoTime();
+        List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+        for (String body : bodies) {
+            responses.add(executor.submit(() -> httpClient.send(
+                    HttpRequest.newBuilder(URI.create(url + BULK_PATH))
+                            .header("Content-Type", "application/x-ndjson")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString())));
+        }
+        for (Future<HttpResponse<String>> response : responses) {
+            if (response.get().statusCode() != 200) {
+                throw new IllegalStateException("La importación respondió " + response.get().statusCode());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (print) {
+            System.out.printf("bulk    users=%d time=%.2f s throughput=%.0f users/s%n", users, seconds,
+                    users / seconds);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.exam.nisum.user.api.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la latencia de buscar un usuario por email en una tabla users de H2 con un millón de filas,
+ * con el índice único sobre email_normalized y sin índice (búsqueda por recorrido completo).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailLookupBenchmark {
+
+    private static final int BATCH_SIZE = 10000;
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"indexed", "unindexed"})
+    private String mode;
+
+    private Connection connection;
+
+    private PreparedStatement lookup;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:email-lookup-" + mode, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table users (id varchar(36) primary key, email varchar(255) not null,"
+                    + " email_normalized varchar(255) not null)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into users (id, email, email_normalized) values (?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                String email = "User" + i + "@Nisum.cl";
+                insert.setString(1, UUID.randomUUID().toString());
+                insert.setString(2, email);
+                insert.setString(3, email.toLowerCase());
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        if ("indexed".equals(mode)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create unique index ux_users_email_normalized on users(email_normalized)");
+            }
+        }
+        lookup = connection.prepareStatement("select id from users where email_normalized = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        lookup.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public String findByEmail() throws SQLException {
+        lookup.setString(1, "user" + ThreadLocalRandom.current().nextInt(rows) + "@nisum.cl");
+        try (ResultSet resultSet = lookup.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.exam.nisum.user.api.benchmark;
+
+import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.dto.response.PhoneResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.model.Phone;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la lectura del cuerpo de creación (UserRequestDTO) y la escritura de la respuesta (UserResponseDTO)
+ * con un ObjectMapper configurado como el de Spring Boot.
+ * Se ejecuta con -prof gc para ver la memoria asignada por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JacksonBenchmark {
+
+    @Param({"1", "5"})
+    private int phones;
+
+    private ObjectReader requestReader;
+
+    private ObjectWriter responseWriter;
+
+    private ObjectWriter pageWriter;
+
+    private byte[] requestBody;
+
+    private UserResponseDTO response;
+
+    private List<UserResponseDTO> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        requestReader = objectMapper.readerFor(UserRequestDTO.class);
+        responseWriter = objectMapper.writerFor(UserResponseDTO.class);
+        pageWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, UserResponseDTO.class));
+
+        List<Phone> requestPhones = new ArrayList<>();
+        List<PhoneResponseDTO> phoneList = new ArrayList<>();
+        for (int i = 0; i < phones; i++) {
+            requestPhones.add(new Phone("322360534" + i, "1", "57", null));
+            phoneList.add(PhoneResponseDTO.builder().number("322360534" + i).citycode("1").countrycode("57").build());
+        }
+        UserRequestDTO request = new UserRequestDTO();
+        request.setName("Test Nisum");
+        request.setEmail("camilo.arevalo@dominio.cl");
+        request.setPassword("123Acb1234*");
+        request.setPhones(requestPhones);
+        requestBody = objectMapper.writeValueAsBytes(request);
+
+        response = UserResponseDTO.builder()
+                .id(UUID.randomUUID())
+                .name("Test Nisum")
+                .email("camilo.arevalo@dominio.cl")
+                .password("{bcrypt}$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3D5Ls0qY8b2fX0JrZc2vQWe")
+                .phones(phoneList)
+                .created(LocalDate.now())
+                .lastLogin(LocalDate.now())
+                .token(UUID.randomUUID().toString())
+                .isActive(true)
+                .version(0L)
+                .build();
+        page = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            page.add(response);
+        }
+    }
+
+    @Benchmark
+    public UserRequestDTO readRequest() throws IOException {
+        return requestReader.readValue(requestBody);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] writePageOf100() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+}
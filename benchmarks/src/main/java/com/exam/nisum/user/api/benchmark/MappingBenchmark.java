@@ -0,0 +1,118 @@
+package com.exam.nisum.user.api.benchmark;
+
+import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.entity.PhoneEntity;
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.mapper.UserMapper;
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Mide cada etapa de mapeo por la que pasa la creación de un usuario: UserRequestDTO a User, User a UserEntity
+ * con sus PhoneEntity, UserEntity a User y User a UserResponseDTO, además del recorrido completo.
+ * Se ejecuta con -prof gc para ver la memoria asignada por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    @Param({"1", "5"})
+    private int phones;
+
+    private UserRequestDTO request;
+
+    private User user;
+
+    private UserEntity userEntity;
+
+    @Setup
+    public void setUp() {
+        List<Phone> phoneList = new ArrayList<>();
+        for (int i = 0; i < phones; i++) {
+            phoneList.add(new Phone("322360534" + i, "1", "57", null));
+        }
+        request = new UserRequestDTO();
+        request.setName("Test Nisum");
+        request.setEmail("camilo.arevalo@dominio.cl");
+        request.setPassword("123Acb1234*");
+        request.setPhones(phoneList);
+
+        user = created(request.toModel());
+        userEntity = toEntity(user);
+    }
+
+    @Benchmark
+    public User requestToModel() {
+        return request.toModel();
+    }
+
+    @Benchmark
+    public UserEntity modelToEntity() {
+        return toEntity(user);
+    }
+
+    @Benchmark
+    public User entityToModel() {
+        return UserMapper.toUserModel(userEntity);
+    }
+
+    @Benchmark
+    public UserResponseDTO modelToResponse() {
+        return UserMapper.toUserResponse(user);
+    }
+
+    @Benchmark
+    public UserResponseDTO createPipeline() {
+        User model = created(request.toModel());
+        UserEntity entity = toEntity(model);
+        return UserMapper.toUserResponse(UserMapper.toUserModel(entity));
+    }
+
+    /**
+     * Completa el usuario con los mismos campos que asigna UserService.saveUser.
+     */
+    private static User created(User user) {
+        user.setId(UUID.randomUUID().toString());
+        user.setPassword("{bcrypt}$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3D5Ls0qY8b2fX0JrZc2vQWe");
+        user.setCreated(LocalDate.now());
+        user.setLastLogin(user.getCreated());
+        user.setToken(UUID.randomUUID().toString());
+        return user;
+    }
+
+    /**
+     * Convierte el usuario y sus teléfonos a entidades, igual que UserService.saveUser.
+     */
+    private static UserEntity toEntity(User user) {
+        UserEntity entity = UserMapper.toUserEntity(user);
+        entity.setPhones(user.getPhones().stream().map(phone -> {
+            PhoneEntity phoneEntity = UserMapper.toPhoneEntity(phone);
+            phoneEntity.setUser(entity);
+            return phoneEntity;
+        }).collect(Collectors.toList()));
+        return entity;
+    }
+}
@@ -0,0 +1,190 @@
+package com.exam.nisum.user.api.benchmark;
+
+import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.entity.PhoneEntity;
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.mapper.UserMapper;
+import com.exam.nisum.user.api.metrics.JdbcMetricsListener;
+import com.exam.nisum.user.api.metrics.JdbcRequestStatistics;
+import com.exam.nisum.user.api.metrics.UserMetrics;
+import com.exam.nisum.user.api.metrics.UserMetrics.Stage;
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.validation.EmailFormatRule;
+import com.exam.nisum.user.api.validation.PasswordFormatRule;
+import com.exam.nisum.user.api.validation.PhoneFormatRule;
+import com.exam.nisum.user.api.validation.RequiredFieldsRule;
+import com.exam.nisum.user.api.validation.UserValidator;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.exam.nisum.user.api.metrics.UserMetrics.Operation.CREATE;
+
+/**
+ * Mide la sobrecarga de la instrumentación de métricas, comparando cada recorrido con y sin ella:
+ * las etapas de la creación de un usuario que no dependen de la base de datos ni del hash (validación y mapeos),
+ * con y sin los timers de UserMetrics, y una consulta JDBC a H2 en memoria, con y sin datasource-proxy y
+ * JdbcMetricsListener. Los timers usan un PrometheusMeterRegistry con histogramas, como la aplicación.
+ * La diferencia absoluta en ns debe compararse con el costo de una creación completa, dominado por el hash
+ * de la contraseña (ver PasswordEncodingBenchmark).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsOverheadBenchmark {
+
+    private static final String QUERY = "select id, name from users where id = ?";
+
+    private static final String ENCODED_PASSWORD = "{bcrypt}$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3D5Ls0qY8b2fX0JrZc2vQWe";
+
+    private UserRequestDTO request;
+
+    private UserValidator userValidator;
+
+    private UserMetrics userMetrics;
+
+    private Connection connection;
+
+    private PreparedStatement statement;
+
+    private PreparedStatement instrumentedStatement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        request = new UserRequestDTO();
+        request.setName("Test Nisum");
+        request.setEmail("camilo.arevalo@dominio.cl");
+        request.setPassword("123Acb1234*");
+        request.setPhones(List.of(new Phone("3223605348", "1", "57", null)));
+        userValidator = new UserValidator(Arrays.asList(
+                new RequiredFieldsRule(), new EmailFormatRule(), new PasswordFormatRule(), new PhoneFormatRule()));
+
+        PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        // Igual que management.metrics.distribution.percentiles-histogram en application.properties
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+            }
+        });
+        userMetrics = new UserMetrics(meterRegistry);
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1");
+        connection = dataSource.getConnection();
+        connection.createStatement().execute("create table users (id varchar(36) primary key, name varchar(255))");
+        connection.createStatement().execute("insert into users values ('" + UUID.randomUUID() + "', 'Test Nisum')");
+        statement = connection.prepareStatement(QUERY);
+        statement.setString(1, "missing");
+
+        JdbcMetricsListener listener = new JdbcMetricsListener();
+        listener.bindTo(meterRegistry);
+        Connection instrumentedConnection = ProxyDataSourceBuilder.create("metrics", dataSource)
+                .listener(listener)
+                .build()
+                .getConnection();
+        instrumentedStatement = instrumentedConnection.prepareStatement(QUERY);
+        instrumentedStatement.setString(1, "missing");
+        // Como dentro de una petición HTTP, las sentencias también se acumulan por petición
+        JdbcRequestStatistics.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        JdbcRequestStatistics.stop();
+        connection.createStatement().execute("drop table users");
+        connection.close();
+    }
+
+    @Benchmark
+    public UserResponseDTO createStages() {
+        User user = request.toModel();
+        userValidator.validateOrThrow(user);
+        created(user);
+        UserEntity userEntity = toEntity(user);
+        return UserMapper.toUserResponse(UserMapper.toUserModel(userEntity));
+    }
+
+    @Benchmark
+    public UserResponseDTO createStagesInstrumented() {
+        User user = request.toModel();
+        userMetrics.record(CREATE, Stage.VALIDATION, () -> userValidator.validateOrThrow(user));
+        userMetrics.record(CREATE, Stage.LOOKUP, () -> Boolean.FALSE);
+        created(user);
+        UserEntity userEntity = userMetrics.record(CREATE, Stage.MAPPING, () -> toEntity(user));
+        UserEntity savedEntity = userMetrics.record(CREATE, Stage.SAVE, () -> userEntity);
+        return userMetrics.record(CREATE, Stage.MAPPING,
+                () -> UserMapper.toUserResponse(UserMapper.toUserModel(savedEntity)));
+    }
+
+    @Benchmark
+    public boolean jdbcQuery() throws SQLException {
+        return execute(statement);
+    }
+
+    @Benchmark
+    public boolean jdbcQueryInstrumented() throws SQLException {
+        return execute(instrumentedStatement);
+    }
+
+    private static boolean execute(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * Completa el usuario con los mismos campos que asigna UserService.saveUser, con un hash fijo.
+     */
+    private static void created(User user) {
+        user.setId(UUID.randomUUID().toString());
+        user.setPassword(ENCODED_PASSWORD);
+        user.setCreated(LocalDate.now());
+        user.setLastLogin(user.getCreated());
+        user.setToken(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Convierte el usuario y sus teléfonos a entidades, igual que UserService.saveUser.
+     */
+    private static UserEntity toEntity(User user) {
+        UserEntity entity = UserMapper.toUserEntity(user);
+        entity.setPhones(user.getPhones().stream().map(phone -> {
+            PhoneEntity phoneEntity = UserMapper.toPhoneEntity(phone);
+            phoneEntity.setUser(entity);
+            return phoneEntity;
+        }).collect(Collectors.toList()));
+        return entity;
+    }
+}
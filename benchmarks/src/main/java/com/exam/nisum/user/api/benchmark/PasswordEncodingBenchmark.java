@@ -0,0 +1,58 @@
+package com.exam.nisum.user.api.benchmark;
+
+import com.exam.nisum.user.api.config.EncoderConfig;
+import com.exam.nisum.user.api.config.PasswordProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el costo de encriptar y de validar una contraseña con cada algoritmo soportado,
+ * usando el mismo PasswordEncoder que construye EncoderConfig con sus valores por defecto.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncodingBenchmark {
+
+    private static final String PASSWORD = "123Acb1234*";
+
+    @Param({"BCRYPT", "ARGON2", "PBKDF2"})
+    private PasswordProperties.Algorithm algorithm;
+
+    private PasswordEncoder passwordEncoder;
+
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        PasswordProperties properties = new PasswordProperties();
+        properties.setAlgorithm(algorithm);
+        passwordEncoder = new EncoderConfig().encoder(properties);
+        encodedPassword = passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, encodedPassword);
+    }
+}
@@ -0,0 +1,95 @@
+package com.exam.nisum.user.api.benchmark;
+
+import com.exam.nisum.user.api.ratelimit.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el costo de RateLimitFilter en una petición admitida: buscar el límite por método y ruta y consumir
+ * una petición del bucket de uno de 10.000 clientes. Los límites son altos para que ninguna petición
+ * se rechace. También mide un GET, que no compara la ruta porque ningún límite incluye el método.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RateLimiterBenchmark {
+
+    private static final int CLIENTS = 10000;
+
+    private List<RateLimiter> rateLimiters;
+
+    private String[] clients;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rateLimiters = List.of(
+                new RateLimiter("create", Set.of("POST"), "/nisum/api/users", 1_000_000_000, 1e9, CLIENTS),
+                new RateLimiter("bulk", Set.of("POST"), "/nisum/api/users/bulk", 1_000_000_000, 1e9, CLIENTS),
+                new RateLimiter("update", Set.of("PUT"), "/nisum/api/users", 1_000_000_000, 1e9, CLIENTS),
+                new RateLimiter("patch", Set.of("PATCH"), "/nisum/api/users/{id}", 1_000_000_000, 1e9, CLIENTS));
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return rateLimiters.get(0).tryAcquire(nextClient());
+    }
+
+    @Benchmark
+    public long postCreate() {
+        return admit("POST", "/nisum/api/users", nextClient());
+    }
+
+    @Benchmark
+    public long patchUser() {
+        return admit("PATCH", "/nisum/api/users/bb5d5031-4d64-4ff7-8164-1654002f7611", nextClient());
+    }
+
+    @Benchmark
+    public long getUsers() {
+        return admit("GET", "/nisum/api/users", nextClient());
+    }
+
+    /**
+     * Mismo recorrido que RateLimitFilter.doFilterInternal, sin la petición HTTP.
+     */
+    private long admit(String method, String uri, String client) {
+        for (RateLimiter rateLimiter : rateLimiters) {
+            if (!rateLimiter.appliesTo(method)) {
+                continue;
+            }
+            if (rateLimiter.matches(uri)) {
+                long wait = rateLimiter.tryAcquire(client);
+                if (wait > 0) {
+                    return wait;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private String nextClient() {
+        next = next + 1 == CLIENTS ? 0 : next + 1;
+        return clients[next];
+    }
+}
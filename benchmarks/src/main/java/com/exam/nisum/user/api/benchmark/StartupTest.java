@@ -0,0 +1,223 @@
+package com.exam.nisum.user.api.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mide el tiempo de arranque de la aplicación con una base H2 en archivo que ya tiene millones de usuarios,
+ * para verificar que reiniciar no depende de la cantidad de filas. Primero levanta la aplicación una vez para
+ * que Flyway cree el esquema, luego carga los usuarios directamente por JDBC y después la levanta varias veces
+ * con cada variante y modo de ddl-auto indicados, mostrando el tiempo hasta la primera respuesta exitosa de
+ * GET /nisum/api/users, el tiempo que informa Spring Boot y el de carga del índice de tokens.
+ *
+ * <p>Variantes: jar (jar exec con la configuración por defecto), prod (jar exec con el perfil prod) y cds (jar
+ * del perfil de Maven cds, con el perfil prod y el archivo CDS generado en su ejecución de entrenamiento).</p>
+ *
+ * <p>Parámetros (clave=valor): jar (target/user-api-0.0.1-SNAPSHOT-exec.jar),
+ * cdsJar (target/user-api-0.0.1-SNAPSHOT.jar), archive (target/user-api.jsa), dir (target/startup-db),
+ * users (2000000), runs (3), port (8090), variants (jar), modes (none,validate).</p>
+ */
+public class StartupTest {
+
+    private static final int SEED_CHUNK_SIZE = 100000;
+
+    private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+
+    private static final Pattern TOKEN_INDEX = Pattern.compile("tokens cargado con (\\d+) usuarios en (\\d+) ms");
+
+    private static final String INSERT_USERS_SQL = "insert into users"
+            + " (id, name, email, email_normalized, email_domain, password, created, last_login, token, is_active,"
+            + " version)"
+            + " select '00000000-0000-0000-0000-' || lpad(x, 12, '0'), 'Usuario ' || x, 'u' || x || '@startup.cl',"
+            + " 'u' || x || '@startup.cl', 'startup.cl', '{noop}Carga1234', current_date, current_date,"
+            + " cast(random_uuid() as varchar), true, 0 from system_range(?, ?)";
+
+    private static final String INSERT_PHONES_SQL = "insert into phone"
+            + " (id, number, city_code, country_code, user_id, user_created)"
+            + " select x, '1234567', '1', '57', '00000000-0000-0000-0000-' || lpad(x, 12, '0'), current_date"
+            + " from system_range(?, ?)";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            params.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        String jar = params.getOrDefault("jar", "target/user-api-0.0.1-SNAPSHOT-exec.jar");
+        String cdsJar = params.getOrDefault("cdsJar", "target/user-api-0.0.1-SNAPSHOT.jar");
+        String archive = params.getOrDefault("archive", "target/user-api.jsa");
+        Path dir = Path.of(params.getOrDefault("dir", "target/startup-db")).toAbsolutePath();
+        int users = Integer.parseInt(params.getOrDefault("users", "2000000"));
+        int runs = Integer.parseInt(params.getOrDefault("runs", "3"));
+        int port = Integer.parseInt(params.getOrDefault("port", "8090"));
+        String[] variants = params.getOrDefault("variants", "jar").split(",");
+        String[] modes = params.getOrDefault("modes", "none,validate").split(",");
+
+        String jdbcUrl = "jdbc:h2:file:" + dir.resolve("nisumexam") + ";DB_CLOSE_ON_EXIT=FALSE";
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        if (count(jdbcUrl) < users) {
+            start(command("jar", jar, cdsJar, archive), jdbcUrl, "none", port, httpClient);
+            seed(jdbcUrl, users);
+        }
+        for (String variant : variants) {
+            for (String mode : modes) {
+                for (int i = 0; i < runs; i++) {
+                    System.out.printf("%-5s ", variant);
+                    start(command(variant, jar, cdsJar, archive), jdbcUrl, mode, port, httpClient);
+                }
+            }
+        }
+    }
+
+    /**
+     * Comando java que levanta la aplicación en la variante indicada.
+     */
+    private static List<String> command(String variant, String jar, String cdsJar, String archive) {
+        switch (variant) {
+            case "jar":
+                return List.of("java", "-jar", jar);
+            case "prod":
+                return List.of("java", "-jar", jar, "--spring.profiles.active=prod");
+            case "cds":
+                return List.of("java", "-XX:SharedArchiveFile=" + archive, "-jar", cdsJar,
+                        "--spring.profiles.active=prod");
+            default:
+                throw new IllegalArgumentException("Variante desconocida: " + variant);
+        }
+    }
+
+    /**
+     * Levanta la aplicación, espera la primera respuesta exitosa de GET /nisum/api/users, la detiene y muestra
+     * los tiempos.
+     */
+    private static void start(List<String> java, String jdbcUrl, String mode, int port, HttpClient httpClient)
+            throws IOException, InterruptedException {
+        File log = File.createTempFile("startup", ".log");
+        List<String> command = new ArrayList<>(java);
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.jpa.hibernate.ddl-auto=" + mode));
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        try {
+            waitForOk(httpClient, "http://localhost:" + port + "/nisum/api/users?size=1", process);
+            long ready = System.nanoTime() - start;
+            // El índice de tokens se carga después de que la aplicación queda lista
+            String output = waitForLog(log, TOKEN_INDEX, process);
+            System.out.printf("%-9s firstRequest=%.2f s started=%s s tokenIndex=%s%n", mode, ready / 1e9,
+                    group(STARTED, output, 1), group(TOKEN_INDEX, output, 2) + " ms");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            Files.deleteIfExists(log.toPath());
+        }
+    }
+
+    static void waitForHealth(HttpClient httpClient, int port, Process process) throws InterruptedException {
+        waitForOk(httpClient, "http://localhost:" + port + "/actuator/health", process);
+    }
+
+    private static void waitForOk(HttpClient httpClient, String uri, Process process) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).build();
+        while (process.isAlive()) {
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Todavía no acepta conexiones
+            }
+            Thread.sleep(20);
+        }
+        throw new IllegalStateException("La aplicación terminó antes de quedar lista");
+    }
+
+    private static String waitForLog(File log, Pattern pattern, Process process)
+            throws IOException, InterruptedException {
+        String output = Files.readString(log.toPath(), StandardCharsets.UTF_8);
+        while (!pattern.matcher(output).find() && process.isAlive()) {
+            Thread.sleep(100);
+            output = Files.readString(log.toPath(), StandardCharsets.UTF_8);
+        }
+        return output;
+    }
+
+    private static String group(Pattern pattern, String output, int group) {
+        Matcher matcher = pattern.matcher(output);
+        return matcher.find() ? matcher.group(group) : "?";
+    }
+
+    /**
+     * Carga los usuarios que faltan, con un teléfono cada uno, en bloques de SEED_CHUNK_SIZE filas.
+     */
+    private static void seed(String jdbcUrl, int users) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "nisumExam", "nisumExam")) {
+            connection.setAutoCommit(false);
+            int from = (int) count(connection) + 1;
+            for (int first = from; first <= users; first += SEED_CHUNK_SIZE) {
+                int last = Math.min(first + SEED_CHUNK_SIZE - 1, users);
+                insertRange(connection, INSERT_USERS_SQL, first, last);
+                insertRange(connection, INSERT_PHONES_SQL, first, last);
+                connection.commit();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("alter sequence phone_seq restart with " + (users + 1));
+            }
+            connection.commit();
+        }
+        System.out.printf("seed      users=%d time=%.1f s%n", users, (System.nanoTime() - start) / 1e9);
+    }
+
+    static void insertRange(Connection connection, String sql, int first, int last) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, first);
+            statement.setInt(2, last);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Cuenta los usuarios de la base; 0 si el esquema todavía no existe.
+     */
+    private static long count(String jdbcUrl) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "nisumExam", "nisumExam")) {
+            return count(connection);
+        }
+    }
+
+    static long count(Connection connection) {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from users")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+}
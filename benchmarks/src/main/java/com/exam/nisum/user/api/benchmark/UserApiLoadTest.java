@@ -0,0 +1,150 @@
+package com.exam.nisum.user.api.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prueba de carga de la API contra una instancia ya levantada, con una cantidad fija de clientes concurrentes.
+ * Mide el throughput y los percentiles de latencia de crear usuarios (POST) y de listarlos (GET),
+ * para comparar el pool de hilos de Tomcat con el modo de hilos virtuales (nisum.threads.virtual)
+ * o con el módulo reactivo. Durante cada escenario consulta /actuator/metrics para mostrar el máximo
+ * de heap usado por cliente concurrente y de hilos vivos. Todos los clientes salen de la misma IP, por lo que la
+ * instancia se levanta con --nisum.rate-limit.enabled=false.
+ *
+ * <p>Parámetros (clave=valor): url (http://localhost:8080), clients (5000), requests (50000),
+ * scenario (create, list o all).</p>
+ */
+public class UserApiLoadTest {
+
+    private static final String USERS_PATH = "/nisum/api/users";
+
+    private static final String HEAP_METRIC_PATH = "/actuator/metrics/jvm.memory.used?tag=area:heap";
+
+    private static final String THREADS_METRIC_PATH = "/actuator/metrics/jvm.threads.live";
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    private static final long SAMPLE_INTERVAL_MS = 200;
+
+    private static final String USER_JSON = "{\"name\":\"Carga\",\"email\":\"%s@carga.cl\",\"password\":\"Carga1234\","
+            + "\"phones\":[{\"number\":\"1234567\",\"citycode\":\"1\",\"countrycode\":\"57\"}]}";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            params.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        String url = params.getOrDefault("url", "http://localhost:8080");
+        int clients = Integer.parseInt(params.getOrDefault("clients", "5000"));
+        int requests = Integer.parseInt(params.getOrDefault("requests", "50000"));
+        String scenario = params.getOrDefault("scenario", "all");
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        if (scenario.equals("create") || scenario.equals("all")) {
+            run("create", httpClient, url, clients, requests, () -> HttpRequest.newBuilder(URI.create(url + USERS_PATH))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(String.format(USER_JSON, UUID.randomUUID())))
+                    .build());
+        }
+        if (scenario.equals("list") || scenario.equals("all")) {
+            run("list", httpClient, url, clients, requests, () -> HttpRequest.newBuilder(URI.create(url + USERS_PATH))
+                    .GET()
+                    .build());
+        }
+    }
+
+    /**
+     * Envía las peticiones manteniendo como máximo la cantidad de clientes indicada en vuelo,
+     * y muestra el resultado por consola.
+     */
+    private static void run(String name, HttpClient httpClient, String url, int clients, int requests,
+                            RequestFactory requestFactory) throws InterruptedException {
+        double heapBefore = metric(httpClient, url + HEAP_METRIC_PATH);
+        AtomicLong maxHeap = new AtomicLong();
+        AtomicLong maxThreads = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleWithFixedDelay(() -> {
+            maxHeap.accumulateAndGet((long) metric(httpClient, url + HEAP_METRIC_PATH), Math::max);
+            maxThreads.accumulateAndGet((long) metric(httpClient, url + THREADS_METRIC_PATH), Math::max);
+        }, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        Semaphore inFlight = new Semaphore(clients);
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            futures[i] = httpClient.sendAsync(requestFactory.create(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[index] = System.nanoTime() - sent;
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        CompletableFuture.allOf(futures).exceptionally(error -> null).join();
+        long elapsed = System.nanoTime() - start;
+        sampler.shutdownNow();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-7s clients=%d requests=%d errors=%d throughput=%.0f req/s"
+                        + " p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                name, clients, requests, errors.get(), requests / (elapsed / 1e9),
+                percentile(latencies, 50), percentile(latencies, 99), latencies[requests - 1] / 1e6);
+        if (heapBefore >= 0) {
+            System.out.printf("%-7s max heap=%.1f MB (%.1f KB por cliente) max threads=%d%n",
+                    name, maxHeap.get() / 1e6, (maxHeap.get() - heapBefore) / 1e3 / clients, maxThreads.get());
+        }
+    }
+
+    /**
+     * Lee el valor de una métrica de actuator.
+     *
+     * @return el valor, o -1 si la aplicación no expone la métrica.
+     */
+    static double metric(HttpClient httpClient, String metricUrl) {
+        try {
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(metricUrl)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = METRIC_VALUE.matcher(response.body());
+            return response.statusCode() == 200 && matcher.find() ? Double.parseDouble(matcher.group(1)) : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1e6;
+    }
+
+    private interface RequestFactory {
+        HttpRequest create();
+    }
+}
@@ -0,0 +1,238 @@
+package com.exam.nisum.user.api.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mide la latencia de GET /nisum/api/users/search con una base H2 en archivo con un millón de usuarios,
+ * para cada filtro por separado, combinados y en una página siguiente. Los usuarios se cargan por JDBC con
+ * valores repartidos: 10 nombres, la mitad con gmail.com y el resto en 1000 dominios, 10% inactivos,
+ * creados en los últimos 3 años, un tercio modificados y un teléfono de 50 países y 20 ciudades.
+ * Muestra la cantidad de usuarios de la primera respuesta y los percentiles 50 y 99 del tiempo de respuesta.
+ *
+ * <p>Parámetros (clave=valor): jar (target/user-api-0.0.1-SNAPSHOT-exec.jar), dir (target/search-db),
+ * users (1000000), runs (500), port (8090), size (100).</p>
+ */
+public class UserSearchTest {
+
+    private static final int SEED_CHUNK_SIZE = 100000;
+
+    private static final int VARIANTS = 50;
+
+    private static final String[] NAMES = {
+            "Ana", "Bruno", "Carla", "Diego", "Elena", "Felipe", "Gabriela", "Hugo", "Isabel", "Juan"};
+
+    private static final LocalDate DAY = LocalDate.of(2022, 6, 1);
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\":([0-9.E]+)");
+
+    private static final String INSERT_USERS_SQL = "insert into users"
+            + " (id, name, email, email_normalized, email_domain, password, created, modified, last_login, token,"
+            + " is_active, version)"
+            + " select '00000000-0000-0000-0000-' || lpad(x, 12, '0'),"
+            + " array['" + String.join("', '", NAMES) + "'][mod(x, 10) + 1] || ' ' || x,"
+            + " 'u' || x || '@' || d, 'u' || x || '@' || d, d, '{noop}Carga1234', c,"
+            + " case when mod(x, 3) = 0 then dateadd(day, mod(x, 30), c) end, c, cast(random_uuid() as varchar),"
+            + " mod(x, 10) <> 0, 0"
+            + " from (select x, case when mod(x, 2) = 0 then 'gmail.com' else 'dominio' || mod(x, 1000) || '.cl' end d,"
+            + " dateadd(day, -mod(x * 7919, 1095), date '2023-05-01') c from system_range(?, ?))";
+
+    private static final String INSERT_PHONES_SQL = "insert into phone"
+            + " (id, number, city_code, country_code, user_id, user_created)"
+            + " select x, '1234567', cast(mod(x / 50, 20) + 1 as varchar), cast(mod(x, 50) + 1 as varchar),"
+            + " '00000000-0000-0000-0000-' || lpad(x, 12, '0'), dateadd(day, -mod(x * 7919, 1095), date '2023-05-01')"
+            + " from system_range(?, ?)";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            params.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        String jar = params.getOrDefault("jar", "target/user-api-0.0.1-SNAPSHOT-exec.jar");
+        Path dir = Path.of(params.getOrDefault("dir", "target/search-db")).toAbsolutePath();
+        int users = Integer.parseInt(params.getOrDefault("users", "1000000"));
+        int runs = Integer.parseInt(params.getOrDefault("runs", "500"));
+        int port = Integer.parseInt(params.getOrDefault("port", "8090"));
+        int size = Integer.parseInt(params.getOrDefault("size", "100"));
+
+        // Con un cache de páginas de 512 MB la base completa queda en memoria, como con el H2 en memoria por defecto
+        String jdbcUrl = "jdbc:h2:file:" + dir.resolve("nisumexam") + ";DB_CLOSE_ON_EXIT=FALSE;CACHE_SIZE=524288";
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        if (count(jdbcUrl) < users) {
+            stop(start(jar, jdbcUrl, port, httpClient));
+            seed(jdbcUrl, users);
+        }
+
+        // Cada búsqueda se repite con distintos valores, para no medir el cache de resultados de H2
+        Map<String, List<String>> queries = new LinkedHashMap<>();
+        queries.put("name", variants(i -> "name=" + NAMES[i % NAMES.length] + "%20" + (10 + i % 90)));
+        queries.put("domain", variants(i -> "emailDomain=dominio" + (2 * i + 1) + ".cl"));
+        queries.put("domain-wide", variants(i -> "emailDomain=gmail.com&size=" + (size - i % 10)));
+        queries.put("inactive", variants(i -> "isActive=false&size=" + (size - i % 10)));
+        queries.put("created", variants(i -> "createdFrom=" + DAY.minusDays(i)
+                + "&createdTo=" + DAY.minusDays(i - 30)));
+        queries.put("modified", variants(i -> "modifiedFrom=" + DAY.minusDays(i)
+                + "&modifiedTo=" + DAY.minusDays(i - 7)));
+        queries.put("country", variants(i -> "countryCode=" + (i % 50 + 1)));
+        queries.put("country-city", variants(i -> "countryCode=" + (i % 50 + 1) + "&cityCode=" + (i % 20 + 1)));
+        // Los usuarios de gmail.com tienen códigos de país impares, y los de código terminado en 1 están inactivos
+        queries.put("combined", variants(i -> "emailDomain=gmail.com&isActive=true&createdFrom=" + DAY.minusDays(365)
+                + "&countryCode=" + (10 * (i % 5) + 3 + 2 * (i % 4))));
+
+        // El índice de tokens solo carga los usuarios activos
+        long active = countActive(jdbcUrl);
+        Process process = start(jar, jdbcUrl, port, httpClient);
+        try {
+            waitForTokenIndex(httpClient, port, active);
+            String base = "http://localhost:" + port + "/nisum/api/users/search?size=" + size + "&";
+            for (Map.Entry<String, List<String>> query : queries.entrySet()) {
+                measure(httpClient, query.getKey(), base, query.getValue(), runs);
+            }
+            // Página siguiente de cada búsqueda por dominio, con el cursor de su primera página
+            List<String> nextPages = new ArrayList<>();
+            for (String query : queries.get("domain")) {
+                HttpResponse<String> first = send(httpClient, base + query);
+                first.headers().firstValue("X-Next-Cursor")
+                        .ifPresent(cursor -> nextPages.add(query + "&cursor=" + cursor));
+            }
+            measure(httpClient, "next-page", base, nextPages, runs);
+        } finally {
+            stop(process);
+        }
+    }
+
+    /**
+     * Espera a que termine la carga del índice de tokens, que se ejecuta después de que la aplicación queda lista
+     * y compite por la CPU con las búsquedas.
+     */
+    private static void waitForTokenIndex(HttpClient httpClient, int port, long users)
+            throws IOException, InterruptedException {
+        String url = "http://localhost:" + port + "/actuator/metrics/nisum.users.tokens";
+        while (true) {
+            Matcher value = METRIC_VALUE.matcher(send(httpClient, url).body());
+            if (value.find() && Double.parseDouble(value.group(1)) >= users) {
+                return;
+            }
+            Thread.sleep(500);
+        }
+    }
+
+    private static List<String> variants(IntFunction<String> query) {
+        List<String> variants = new ArrayList<>(VARIANTS);
+        for (int i = 0; i < VARIANTS; i++) {
+            variants.add(query.apply(i));
+        }
+        return variants;
+    }
+
+    private static void measure(HttpClient httpClient, String name, String base, List<String> queries, int runs)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = send(httpClient, base + queries.get(0));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(name + " respondió " + response.statusCode() + ": " + response.body());
+        }
+        int found = response.body().split("\"id\"", -1).length - 1;
+        for (int i = 0; i < runs / 10; i++) {
+            send(httpClient, base + queries.get(i % queries.size()));
+        }
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            String url = base + queries.get(i % queries.size());
+            long start = System.nanoTime();
+            send(httpClient, url);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        System.out.printf("%-13s users=%-4d p50=%6.2f ms p99=%6.2f ms%n", name, found,
+                times[runs / 2] / 1e6, times[runs * 99 / 100] / 1e6);
+    }
+
+    private static HttpResponse<String> send(HttpClient httpClient, String url)
+            throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static Process start(String jar, String jdbcUrl, int port, HttpClient httpClient)
+            throws IOException, InterruptedException {
+        List<String> command = List.of("java", "-jar", jar,
+                "--server.port=" + port,
+                "--spring.datasource.url=" + jdbcUrl,
+                "--logging.level.root=WARN");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        StartupTest.waitForHealth(httpClient, port, process);
+        return process;
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(60, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    /**
+     * Carga los usuarios que faltan, con un teléfono cada uno, en bloques de SEED_CHUNK_SIZE filas.
+     */
+    private static void seed(String jdbcUrl, int users) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "nisumExam", "nisumExam")) {
+            connection.setAutoCommit(false);
+            int from = (int) StartupTest.count(connection) + 1;
+            for (int first = from; first <= users; first += SEED_CHUNK_SIZE) {
+                int last = Math.min(first + SEED_CHUNK_SIZE - 1, users);
+                StartupTest.insertRange(connection, INSERT_USERS_SQL, first, last);
+                StartupTest.insertRange(connection, INSERT_PHONES_SQL, first, last);
+                connection.commit();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("alter sequence phone_seq restart with " + (users + 1));
+                statement.execute("analyze");
+            }
+            connection.commit();
+            // Los bloques de 100.000 filas dejan el archivo varias veces más grande que los datos
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("shutdown compact");
+            }
+        }
+        System.out.printf("seed          users=%d time=%.1f s%n", users, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static long count(String jdbcUrl) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "nisumExam", "nisumExam")) {
+            return StartupTest.count(connection);
+        }
+    }
+
+    private static long countActive(String jdbcUrl) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "nisumExam", "nisumExam");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from users where is_active = true")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.exam.nisum.user.api.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Mide la descarga del listado completo en NDJSON contra una instancia ya levantada, sin comprimir y con gzip:
+ * el tiempo hasta el primer byte, el tiempo total, los bytes transferidos y el máximo de heap usado por el
+ * servidor (consultando /actuator/metrics durante la descarga).
+ * Antes de medir puede cargar usuarios con la importación masiva; para que la carga no quede limitada por
+ * el costo de las contraseñas ni por el límite de peticiones, el servidor se levanta con un algoritmo barato
+ * y sin límites, por ejemplo --nisum.password.algorithm=pbkdf2 --nisum.password.pbkdf2-iterations=1
+ * --nisum.rate-limit.enabled=false.
+ *
+ * <p>Parámetros (clave=valor): url (http://localhost:8080), seed (500000, usuarios a importar antes de medir),
+ * runs (3, descargas por codificación).</p>
+ */
+public class UserStreamingTest {
+
+    private static final String USERS_PATH = "/nisum/api/users";
+
+    private static final String HEAP_METRIC_PATH = "/actuator/metrics/jvm.memory.used?tag=area:heap";
+
+    private static final long SAMPLE_INTERVAL_MS = 50;
+
+    private static final int SEED_REQUEST_SIZE = 10000;
+
+    private static final String USER_JSON = "{\"name\":\"Streaming\",\"email\":\"s%d@stream.cl\",\"password\":\"Carga1234\","
+            + "\"phones\":[{\"number\":\"1234567\",\"citycode\":\"1\",\"countrycode\":\"57\"}]}\n";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            params.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        String url = params.getOrDefault("url", "http://localhost:8080");
+        int seed = Integer.parseInt(params.getOrDefault("seed", "500000"));
+        int runs = Integer.parseInt(params.getOrDefault("runs", "3"));
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        if (seed > 0) {
+            seed(httpClient, url, seed);
+        }
+        for (int i = 0; i < runs; i++) {
+            download("identity", httpClient, url);
+            download("gzip", httpClient, url);
+        }
+    }
+
+    /**
+     * Importa la cantidad de usuarios indicada en peticiones NDJSON de SEED_REQUEST_SIZE usuarios.
+     */
+    private static void seed(HttpClient httpClient, String url, int users) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        for (int from = 0; from < users; from += SEED_REQUEST_SIZE) {
+            StringBuilder body = new StringBuilder();
+            for (int i = from; i < Math.min(from + SEED_REQUEST_SIZE, users); i++) {
+                body.append(String.format(USER_JSON, i));
+            }
+            HttpResponse<Void> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(url + USERS_PATH + "/bulk"))
+                            .header("Content-Type", "application/x-ndjson")
+                            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("La importación respondió " + response.statusCode());
+            }
+        }
+        System.out.printf("seed    users=%d time=%.1f s%n", users, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Descarga el listado completo con la codificación indicada y muestra el resultado por consola.
+     */
+    private static void download(String encoding, HttpClient httpClient, String url)
+            throws IOException, InterruptedException {
+        double heapBefore = UserApiLoadTest.metric(httpClient, url + HEAP_METRIC_PATH);
+        AtomicLong maxHeap = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleWithFixedDelay(() -> maxHeap.accumulateAndGet(
+                (long) UserApiLoadTest.metric(httpClient, url + HEAP_METRIC_PATH), Math::max),
+                0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = httpClient.send(HttpRequest.newBuilder(URI.create(url + USERS_PATH))
+                        .header("Accept", "application/x-ndjson")
+                        .header("Accept-Encoding", encoding)
+                        .GET()
+                        .build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        CountingInputStream wire = new CountingInputStream(response.body());
+        long firstByte = 0;
+        long lines = 0;
+        boolean gzip = response.headers().firstValue("Content-Encoding").filter("gzip"::equals).isPresent();
+        try (InputStream body = gzip ? new GZIPInputStream(wire, 8192) : wire) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                if (firstByte == 0) {
+                    firstByte = System.nanoTime();
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+            }
+        }
+        long end = System.nanoTime();
+        sampler.shutdownNow();
+
+        System.out.printf("%-8s status=%d users=%d ttfb=%.1f ms total=%.1f s bytes=%.1f MB"
+                        + " heap before=%.1f MB max=%.1f MB%n",
+                encoding, response.statusCode(), lines, (firstByte - start) / 1e6, (end - start) / 1e9,
+                wire.count / 1e6, heapBefore / 1e6, maxHeap.get() / 1e6);
+    }
+
+    /**
+     * Cuenta los bytes recibidos antes de descomprimir.
+     */
+    private static class CountingInputStream extends InputStream {
+
+        private final InputStream delegate;
+
+        private long count;
+
+        CountingInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = delegate.read();
+            if (value != -1) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.exam.nisum.user.api.benchmark;
+
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.validation.EmailFormatRule;
+import com.exam.nisum.user.api.validation.PasswordFormatRule;
+import com.exam.nisum.user.api.validation.PhoneFormatRule;
+import com.exam.nisum.user.api.validation.RequiredFieldsRule;
+import com.exam.nisum.user.api.validation.UserValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compara la validación de email y contraseña con expresiones regulares compiladas en cada llamada
+ * (implementación anterior de UserService), con expresiones precompiladas y con UserValidator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private static final String EMAIL_REGEX = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
+    private static final String PWD_REGEX = "^(?=.*\\d)(?=.*[a-z])(?=.*[A-Z]).{8,16}$";
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(EMAIL_REGEX);
+    private static final Pattern PWD_PATTERN = Pattern.compile(PWD_REGEX);
+
+    @Param({"valid", "invalid"})
+    private String input;
+
+    private User user;
+
+    private UserValidator userValidator;
+
+    @Setup
+    public void setUp() {
+        user = new User();
+        user.setName("Test Nisum");
+        user.setPhones(List.of(new Phone("3223605348", "1", "57", null)));
+        if ("valid".equals(input)) {
+            user.setEmail("camilo.arevalo@dominio.cl");
+            user.setPassword("123Acb1234*");
+        } else {
+            user.setEmail("camilo.arevalo.dominio.cl");
+            user.setPassword("abcdefghijklmnop");
+        }
+        userValidator = new UserValidator(Arrays.asList(
+                new RequiredFieldsRule(), new EmailFormatRule(), new PasswordFormatRule(), new PhoneFormatRule()));
+    }
+
+    @Benchmark
+    public boolean regexCompiledPerCall() {
+        return Pattern.compile(EMAIL_REGEX).matcher(user.getEmail()).matches()
+                & Pattern.compile(PWD_REGEX).matcher(user.getPassword()).matches();
+    }
+
+    @Benchmark
+    public boolean regexPrecompiled() {
+        return EMAIL_PATTERN.matcher(user.getEmail()).matches()
+                & PWD_PATTERN.matcher(user.getPassword()).matches();
+    }
+
+    @Benchmark
+    public boolean scanners() {
+        return EmailFormatRule.isValid(user.getEmail())
+                & PasswordFormatRule.isValid(user.getPassword());
+    }
+
+    @Benchmark
+    public int userValidator() {
+        return userValidator.validate(user).size();
+    }
+}
@@ -0,0 +1,24 @@
+package com.exam.nisum.user.reactive;
+
+import com.exam.nisum.user.api.config.EncoderConfig;
+import com.exam.nisum.user.api.config.PasswordProperties;
+import com.exam.nisum.user.api.validation.UserValidator;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Variante reactiva de la API de usuarios (WebFlux + R2DBC), con el mismo contrato de /nisum/api/users.
+ * Reutiliza las reglas de validación y la configuración de contraseñas de user-api.
+ */
+@SpringBootApplication(scanBasePackageClasses = {ReactiveUserApiApplication.class, UserValidator.class})
+@EnableConfigurationProperties(PasswordProperties.class)
+@Import(EncoderConfig.class)
+public class ReactiveUserApiApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveUserApiApplication.class, args);
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.exam.nisum.user.reactive.config;
+
+import com.exam.nisum.user.reactive.handler.UserHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+
+/**
+ * Clase de configuración con las rutas de /nisum/api/users.
+ */
+@Configuration
+public class UserRouterConfig {
+
+    /**
+     * Bean con las rutas de usuarios.
+     * El listado se entrega en NDJSON solo si el cliente lo pide explícitamente en el header Accept,
+     * igual que en user-api; un Accept comodín recibe la página en JSON.
+     *
+     * @param userHandler handler de usuarios
+     * @return bean de RouterFunction.
+     */
+    @Bean
+    public RouterFunction<ServerResponse> userRoutes(UserHandler userHandler) {
+        RequestPredicate acceptsNdjson = request -> request.headers().accept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        return RouterFunctions.route()
+                .path("/nisum/api/users", builder -> builder
+                        .GET("", acceptsNdjson, userHandler::streamUsers)
+                        .GET("", userHandler::getUsers)
+                        .GET("/{id}", userHandler::getUser)
+                        .POST("", contentType(MediaType.APPLICATION_JSON), userHandler::saveUser)
+                        .PUT("", contentType(MediaType.APPLICATION_JSON), userHandler::updateUser))
+                .build();
+    }
+
+    /**
+     * Bean usado para ejecutar las escrituras dentro de una transacción reactiva.
+     *
+     * @param transactionManager transaction manager de R2DBC
+     * @return bean de TransactionalOperator.
+     */
+    @Bean
+    public TransactionalOperator transactionalOperator(ReactiveTransactionManager transactionManager) {
+        return TransactionalOperator.create(transactionManager);
+    }
+}
@@ -0,0 +1,149 @@
+package com.exam.nisum.user.reactive.handler;
+
+import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.service.UserService;
+import com.exam.nisum.user.reactive.service.ReactiveUserService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Handler WebFlux con el mismo contrato que UserController de user-api para /nisum/api/users.
+ */
+@Component
+public class UserHandler {
+
+    // Header con el token de continuación para pedir la página siguiente
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private ReactiveUserService userService;
+
+    public UserHandler(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    /**
+     * Solicitud HTTP-GET para obtener una página de usuarios con su lista de telefonos.
+     * Si existe una página siguiente, su cursor se devuelve en el header X-Next-Cursor.
+     *
+     * @param request petición con los parámetros cursor y size (opcionales)
+     * @return una lista de usuarios en el cuerpo de la respuesta HTTP
+     */
+    public Mono<ServerResponse> getUsers(ServerRequest request) {
+        int size;
+        try {
+            size = request.queryParam("size").map(Integer::parseInt).orElse(UserService.DEFAULT_PAGE_SIZE);
+        } catch (NumberFormatException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "El tamaño de página no es válido"));
+        }
+        return userService.getUsers(request.queryParam("cursor").orElse(null), size)
+                .flatMap(page -> {
+                    ServerResponse.BodyBuilder response = ServerResponse.ok().contentType(MediaType.APPLICATION_JSON);
+                    if (page.getNextCursor() != null) {
+                        response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+                    }
+                    return response.bodyValue(page.getUsers());
+                });
+    }
+
+    /**
+     * Solicitud HTTP-GET que entrega todos los usuarios en formato NDJSON (un JSON por línea).
+     * Los usuarios se leen de la base de datos a medida que el cliente los consume.
+     *
+     * @param request petición
+     * @return cuerpo de la respuesta HTTP escrito en streaming
+     */
+    public Mono<ServerResponse> streamUsers(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(userService.streamUsers(), UserResponseDTO.class);
+    }
+
+    /**
+     * Solicitud HTTP-GET para obtener un usuario por su id, con un ETag con su versión.
+     * Si el header If-None-Match coincide, se responde 304 sin cargar el usuario ni sus teléfonos.
+     *
+     * @param request petición con el id del usuario
+     * @return el usuario en el cuerpo de la respuesta HTTP, o 304 si el cliente ya tiene la versión actual
+     */
+    public Mono<ServerResponse> getUser(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return userService.getUserVersion(id).flatMap(version -> {
+            String eTag = eTag(version);
+            if (matches(request.headers().header(HttpHeaders.IF_NONE_MATCH), eTag)) {
+                return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            return userService.getUser(id)
+                    .flatMap(user -> ServerResponse.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .eTag(eTag(user.getVersion()))
+                            .bodyValue(user));
+        });
+    }
+
+    /**
+     * Solicitud HTTP POST para guardar un nuevo usuario.
+     *
+     * @param request petición con el usuario a guardar
+     * @return el usuario creado en el cuerpo de la respuesta HTTP
+     */
+    public Mono<ServerResponse> saveUser(ServerRequest request) {
+        return requestBody(request)
+                .flatMap(userRequestDTO -> userService.saveUser(userRequestDTO.toModel()))
+                .flatMap(user -> ServerResponse.status(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(user));
+    }
+
+    /**
+     * Solicitud HTTP PUT para actualizar un usuario ya guardado previamente.
+     *
+     * @param request petición con el usuario a actualizar
+     * @return el usuario actualizado en el cuerpo de la respuesta HTTP
+     */
+    public Mono<ServerResponse> updateUser(ServerRequest request) {
+        return requestBody(request)
+                .flatMap(userRequestDTO -> userService.updateUser(userRequestDTO.toModel()))
+                .flatMap(user -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(user));
+    }
+
+    private static Mono<UserRequestDTO> requestBody(ServerRequest request) {
+        return request.bodyToMono(UserRequestDTO.class)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "El cuerpo de la petición es obligatorio")));
+    }
+
+    /**
+     * Construye el ETag fuerte de un usuario a partir de su versión.
+     *
+     * @param version versión del usuario
+     * @return valor del header ETag, entre comillas.
+     */
+    static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Indica si alguno de los ETags del header If-None-Match coincide (comparación débil).
+     *
+     * @param ifNoneMatch valores del header
+     * @param eTag        ETag actual
+     * @return true si el cliente ya tiene la versión actual.
+     */
+    static boolean matches(List<String> ifNoneMatch, String eTag) {
+        return ifNoneMatch.stream()
+                .flatMap(value -> List.of(value.split(",")).stream())
+                .map(String::trim)
+                .anyMatch(value -> value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag));
+    }
+}
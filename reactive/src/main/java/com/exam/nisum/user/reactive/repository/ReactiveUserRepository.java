@@ -0,0 +1,302 @@
+package com.exam.nisum.user.reactive.repository;
+
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.outbox.UserChangeType;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositorio reactivo de usuarios y teléfonos sobre R2DBC, sobre el mismo esquema que crean las migraciones de
+ * Flyway de user-api.
+ * Las consultas devuelven Flux que respetan la demanda del suscriptor, así el listado en streaming
+ * solo lee de la base de datos las filas que el cliente alcanza a consumir.
+ * Igual que en user-api, los usuarios dados de baja (is_active en false) no se leen ni se actualizan.
+ */
+@Repository
+public class ReactiveUserRepository {
+
+    private static final String USER_COLUMNS =
+            "id, name, email, password, created, modified, last_login, token, is_active, version";
+
+    // Incluye is_active para que H2 lea las páginas en el orden del índice (is_active, created, id)
+    private static final String ACTIVE_ORDER = " order by is_active asc, created asc, id asc";
+
+    private static final String PHONE_COLUMNS = "id, number, city_code, country_code, user_id";
+
+    private DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Obtiene la primera página de usuarios activos ordenada por (created, id), sin sus teléfonos.
+     *
+     * @param limit cantidad máxima de usuarios
+     * @return usuarios de la primera página.
+     */
+    public Flux<User> findFirstPage(int limit) {
+        return databaseClient.sql("select " + USER_COLUMNS + " from users where is_active = true" + ACTIVE_ORDER
+                        + " limit :limit")
+                .bind("limit", limit)
+                .map((row, metadata) -> toUser(row))
+                .all();
+    }
+
+    /**
+     * Obtiene la página de usuarios activos posterior a la clave (created, id) indicada, sin sus teléfonos.
+     * created >= :created permite empezar a leer el índice (is_active, created, id) desde la clave.
+     *
+     * @param created fecha de creación del último usuario de la página anterior
+     * @param id      id del último usuario de la página anterior
+     * @param limit   cantidad máxima de usuarios
+     * @return usuarios de la página siguiente.
+     */
+    public Flux<User> findPageAfter(LocalDate created, String id, int limit) {
+        return databaseClient.sql("select " + USER_COLUMNS + " from users"
+                        + " where is_active = true and created >= :created and (created > :created or id > :id)"
+                        + ACTIVE_ORDER + " limit :limit")
+                .bind("created", created)
+                .bind("id", id)
+                .bind("limit", limit)
+                .map((row, metadata) -> toUser(row))
+                .all();
+    }
+
+    /**
+     * Recorre todos los usuarios activos, sin sus teléfonos, en el mismo orden que la paginación.
+     *
+     * @return Flux de usuarios.
+     */
+    public Flux<User> streamAll() {
+        return databaseClient.sql("select " + USER_COLUMNS + " from users where is_active = true" + ACTIVE_ORDER)
+                .map((row, metadata) -> toUser(row))
+                .all();
+    }
+
+    /**
+     * Busca un usuario activo por su id, sin sus teléfonos.
+     *
+     * @param id id del usuario
+     * @return el usuario, o vacío si no existe o está dado de baja.
+     */
+    public Mono<User> findById(String id) {
+        return databaseClient.sql("select " + USER_COLUMNS + " from users where id = :id and is_active = true")
+                .bind("id", id)
+                .map((row, metadata) -> toUser(row))
+                .one();
+    }
+
+    /**
+     * Busca un usuario activo por su email, sin distinguir mayúsculas, usando el índice único de email.
+     *
+     * @param email email del usuario
+     * @return el usuario sin sus teléfonos, o vacío si no existe o está dado de baja.
+     */
+    public Mono<User> findByEmail(String email) {
+        return databaseClient.sql("select " + USER_COLUMNS + " from users"
+                        + " where email_normalized = :email and is_active = true")
+                .bind("email", UserEntity.normalizeEmail(email))
+                .map((row, metadata) -> toUser(row))
+                .one();
+    }
+
+    /**
+     * Obtiene solo la versión de un usuario activo.
+     *
+     * @param id id del usuario
+     * @return la versión, o vacío si el usuario no existe o está dado de baja.
+     */
+    public Mono<Long> findVersionById(String id) {
+        return databaseClient.sql("select version from users where id = :id and is_active = true")
+                .bind("id", id)
+                .map((row, metadata) -> row.get("version", Long.class))
+                .one();
+    }
+
+    /**
+     * Carga en una sola consulta los teléfonos de varios usuarios.
+     *
+     * @param userIds ids de los usuarios
+     * @return teléfonos de los usuarios, con su userId.
+     */
+    public Flux<Phone> findPhonesByUserIds(Collection<String> userIds) {
+        return databaseClient.sql("select " + PHONE_COLUMNS + " from phone where user_id in (:ids) order by id")
+                .bind("ids", userIds)
+                .map((row, metadata) -> toPhone(row))
+                .all();
+    }
+
+    /**
+     * Carga los teléfonos de un usuario junto con su id.
+     *
+     * @param userId id del usuario
+     * @return teléfonos indexados por su id, en orden de creación.
+     */
+    public Mono<Map<Long, Phone>> findPhonesByUserId(String userId) {
+        return databaseClient.sql("select " + PHONE_COLUMNS + " from phone where user_id = :id order by id")
+                .bind("id", userId)
+                .map((row, metadata) -> Map.entry(row.get("id", Long.class), toPhone(row)))
+                .all()
+                .collect(LinkedHashMap::new, (phones, entry) -> phones.put(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Inserta un usuario con sus teléfonos. Debe ejecutarse dentro de una transacción.
+     *
+     * @param user usuario con la contraseña encriptada
+     * @return Mono que termina al insertar todas las filas.
+     */
+    public Mono<Void> insert(User user) {
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("insert into users"
+                        + " (id, name, email, email_normalized, email_domain, password, created, modified, last_login,"
+                        + " token, is_active, version)"
+                        + " values (:id, :name, :email, :emailNormalized, :emailDomain, :password, :created, :modified,"
+                        + " :lastLogin, :token, :isActive, :version)")
+                .bind("id", user.getId())
+                .bind("name", user.getName())
+                .bind("email", user.getEmail())
+                .bind("emailNormalized", UserEntity.normalizeEmail(user.getEmail()))
+                .bind("emailDomain", UserEntity.emailDomain(user.getEmail()))
+                .bind("password", user.getPassword())
+                .bind("created", user.getCreated())
+                .bind("lastLogin", user.getLastLogin())
+                .bind("token", user.getToken())
+                .bind("isActive", user.getIsActive())
+                .bind("version", user.getVersion());
+        insert = user.getModified() == null
+                ? insert.bindNull("modified", LocalDate.class)
+                : insert.bind("modified", user.getModified());
+        return insert.fetch().rowsUpdated()
+                .then(insertPhones(user.getId(), user.getCreated(), user.getPhones()));
+    }
+
+    /**
+     * Actualiza los datos de un usuario activo si su versión no cambió e incrementa la versión.
+     *
+     * @param user            usuario con los datos nuevos
+     * @param expectedVersion versión leída antes de modificarlo
+     * @return cantidad de filas actualizadas, 0 si otra petición modificó al usuario o lo dio de baja.
+     */
+    public Mono<Integer> update(User user, long expectedVersion) {
+        return databaseClient.sql("update users set name = :name, email = :email, email_normalized = :emailNormalized,"
+                        + " email_domain = :emailDomain, password = :password, modified = :modified,"
+                        + " version = version + 1"
+                        + " where id = :id and version = :version and is_active = true")
+                .bind("name", user.getName())
+                .bind("email", user.getEmail())
+                .bind("emailNormalized", UserEntity.normalizeEmail(user.getEmail()))
+                .bind("emailDomain", UserEntity.emailDomain(user.getEmail()))
+                .bind("password", user.getPassword())
+                .bind("modified", user.getModified())
+                .bind("id", user.getId())
+                .bind("version", expectedVersion)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Inserta teléfonos de un usuario. El código de ciudad y de país son opcionales.
+     *
+     * @param userId      id del usuario
+     * @param userCreated fecha de creación del usuario, que se copia en cada teléfono
+     * @param phones      teléfonos a insertar
+     * @return Mono que termina al insertar todas las filas.
+     */
+    public Mono<Void> insertPhones(String userId, LocalDate userCreated, List<Phone> phones) {
+        return Flux.fromIterable(phones)
+                .concatMap(phone -> {
+                    DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("insert into phone"
+                                    + " (id, number, city_code, country_code, user_id, user_created)"
+                                    + " values (next value for phone_seq, :number, :cityCode, :countryCode, :userId,"
+                                    + " :userCreated)")
+                            .bind("userId", userId)
+                            .bind("userCreated", userCreated);
+                    insert = bindNullable(insert, "number", phone.getNumber());
+                    insert = bindNullable(insert, "cityCode", phone.getCitycode());
+                    insert = bindNullable(insert, "countryCode", phone.getCountrycode());
+                    return insert.fetch().rowsUpdated();
+                })
+                .then();
+    }
+
+    /**
+     * Elimina teléfonos por su id.
+     *
+     * @param ids ids de los teléfonos
+     * @return Mono que termina al eliminar las filas.
+     */
+    public Mono<Void> deletePhones(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return databaseClient.sql("delete from phone where id in (:ids)")
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    /**
+     * Agrega el cambio de un usuario a la tabla user_outbox de user-api, que lo publica con su OutboxRelay.
+     * Debe ejecutarse dentro de la transacción que modifica al usuario.
+     *
+     * @param type    tipo de cambio
+     * @param userId  id del usuario
+     * @param version versión del usuario después del cambio
+     * @return Mono que termina al insertar la fila.
+     */
+    public Mono<Void> insertChange(UserChangeType type, String userId, long version) {
+        return databaseClient.sql("insert into user_outbox (user_id, change_type, user_version, occurred_at)"
+                        + " values (:userId, :type, :version, :occurredAt)")
+                .bind("userId", userId)
+                .bind("type", type.name())
+                .bind("version", version)
+                .bind("occurredAt", LocalDateTime.now())
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    // R2DBC no acepta null en bind, los valores opcionales se envían con bindNull
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                                  String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    private static User toUser(Row row) {
+        return User.builder()
+                .id(row.get("id", String.class))
+                .name(row.get("name", String.class))
+                .email(row.get("email", String.class))
+                .password(row.get("password", String.class))
+                .created(row.get("created", LocalDate.class))
+                .modified(row.get("modified", LocalDate.class))
+                .lastLogin(row.get("last_login", LocalDate.class))
+                .token(row.get("token", String.class))
+                .isActive(row.get("is_active", Boolean.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+
+    private static Phone toPhone(Row row) {
+        return Phone.builder()
+                .number(row.get("number", String.class))
+                .citycode(row.get("city_code", String.class))
+                .countrycode(row.get("country_code", String.class))
+                .userId(row.get("user_id", String.class))
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.exam.nisum.user.reactive.service;
+
+import com.exam.nisum.user.api.config.PasswordProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Servicio que encripta contraseñas fuera de los hilos del event loop, en un scheduler elástico acotado
+ * con la misma cantidad de hilos y el mismo tamaño de cola que el pool de user-api.
+ */
+@Service
+public class ReactivePasswordHasher {
+
+    private PasswordEncoder passwordEncoder;
+
+    private Scheduler scheduler;
+
+    public ReactivePasswordHasher(PasswordEncoder passwordEncoder, PasswordProperties properties) {
+        this.passwordEncoder = passwordEncoder;
+        this.scheduler = Schedulers.newBoundedElastic(
+                properties.getThreads(), properties.getQueueCapacity(), "password-hash");
+    }
+
+    /**
+     * Encripta una contraseña.
+     *
+     * @param rawPassword contraseña en texto plano
+     * @return Mono con el hash de la contraseña, o error 503 si la cola del scheduler está llena.
+     */
+    public Mono<String> encode(String rawPassword) {
+        return onScheduler(Mono.fromCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Devuelve el hash actual si la contraseña no cambió y su algoritmo y costo están vigentes;
+     * en cualquier otro caso la encripta de nuevo.
+     *
+     * @param rawPassword     contraseña en texto plano
+     * @param encodedPassword hash guardado
+     * @return Mono con el hash a guardar.
+     */
+    public Mono<String> rehashIfNeeded(String rawPassword, String encodedPassword) {
+        return onScheduler(Mono.fromCallable(() -> {
+            if (encodedPassword != null && passwordEncoder.matches(rawPassword, encodedPassword)
+                    && !passwordEncoder.upgradeEncoding(encodedPassword)) {
+                return encodedPassword;
+            }
+            return passwordEncoder.encode(rawPassword);
+        }));
+    }
+
+    /**
+     * Detiene el scheduler al cerrar la aplicación.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    private Mono<String> onScheduler(Mono<String> task) {
+        return task.subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> new ResponseStatusException(
+                        HttpStatus.SERVICE_UNAVAILABLE,
+                        "El servicio está ocupado, intente nuevamente",
+                        e
+                ));
+    }
+}
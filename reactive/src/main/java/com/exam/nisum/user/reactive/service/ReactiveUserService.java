@@ -0,0 +1,294 @@
+package com.exam.nisum.user.reactive.service;
+
+import com.exam.nisum.user.api.dto.response.UserPageResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.mapper.UserMapper;
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.outbox.UserChangeType;
+import com.exam.nisum.user.api.service.UserCursor;
+import com.exam.nisum.user.api.service.UserService;
+import com.exam.nisum.user.api.validation.UserValidator;
+import com.exam.nisum.user.reactive.repository.ReactiveUserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio reactivo con la misma lógica de negocio que UserService de user-api.
+ * Ninguna operación bloquea el event loop: la base de datos se accede con R2DBC
+ * y las contraseñas se encriptan en el scheduler de ReactivePasswordHasher.
+ */
+@Service
+public class ReactiveUserService {
+
+    private ReactiveUserRepository userRepository;
+
+    private ReactivePasswordHasher passwordHasher;
+
+    private UserValidator userValidator;
+
+    private TransactionalOperator transactionalOperator;
+
+    public ReactiveUserService(ReactiveUserRepository userRepository, ReactivePasswordHasher passwordHasher,
+                               UserValidator userValidator, TransactionalOperator transactionalOperator) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.userValidator = userValidator;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    /**
+     * Se obtiene una página de usuarios usando paginación por clave (created, id).
+     *
+     * @param cursor token de continuación devuelto por la página anterior, o null para la primera página
+     * @param size   cantidad máxima de usuarios de la página
+     * @return página de usuarios con el cursor de la página siguiente (null si no hay más).
+     */
+    public Mono<UserPageResponseDTO> getUsers(String cursor, int size) {
+        if (size < 1 || size > UserService.MAX_PAGE_SIZE) {
+            return Mono.error(new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "El tamaño de página debe estar entre 1 y " + UserService.MAX_PAGE_SIZE
+            ));
+        }
+
+        // Se pide un registro adicional para saber si existe una página siguiente
+        Flux<User> users;
+        if (cursor == null || cursor.isEmpty()) {
+            users = userRepository.findFirstPage(size + 1);
+        } else {
+            UserCursor after;
+            try {
+                after = UserCursor.decode(cursor);
+            } catch (ResponseStatusException e) {
+                return Mono.error(e);
+            }
+            users = userRepository.findPageAfter(after.getCreated(), after.getId(), size + 1);
+        }
+
+        return users.collectList().flatMap(page -> {
+            String nextCursor = null;
+            if (page.size() > size) {
+                page = page.subList(0, size);
+                User last = page.get(size - 1);
+                nextCursor = new UserCursor(last.getCreated(), last.getId()).encode();
+            }
+            String next = nextCursor;
+            return withPhones(page)
+                    .map(UserMapper::toUserResponse)
+                    .collectList()
+                    .map(responses -> UserPageResponseDTO.builder()
+                            .users(responses)
+                            .nextCursor(next)
+                            .build());
+        });
+    }
+
+    /**
+     * Recorre todos los usuarios respetando la demanda del cliente: los usuarios se leen en bloques y
+     * los teléfonos de cada bloque se cargan con una sola consulta, solo cuando el bloque anterior se entregó.
+     *
+     * @return Flux con todos los usuarios en el orden de la paginación.
+     */
+    public Flux<UserResponseDTO> streamUsers() {
+        return userRepository.streamAll()
+                .buffer(UserService.STREAM_CHUNK_SIZE)
+                .concatMap(this::withPhones, 1)
+                .map(UserMapper::toUserResponse);
+    }
+
+    /**
+     * Obtiene la versión actual de un usuario sin cargar sus teléfonos.
+     *
+     * @param id id del usuario
+     * @return Mono con la versión, o error 404 si el usuario no existe.
+     */
+    public Mono<Long> getUserVersion(String id) {
+        return userRepository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> userNotFound(id)));
+    }
+
+    /**
+     * Obtiene un usuario por su id con sus teléfonos.
+     *
+     * @param id id del usuario
+     * @return Mono con el usuario, o error 404 si no existe.
+     */
+    public Mono<UserResponseDTO> getUser(String id) {
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> userNotFound(id)))
+                .flatMap(user -> withPhones(List.of(user)).single())
+                .map(UserMapper::toUserResponse);
+    }
+
+    /**
+     * Guarda un nuevo usuario con una lista de telefonos y su cambio CREATED en el outbox, en una transacción.
+     *
+     * @param user Usuario a guardar.
+     * @return Mono con el usuario guardado, o error 409 si el email ya está registrado.
+     */
+    public Mono<UserResponseDTO> saveUser(User user) {
+        return Mono.fromRunnable(() -> userValidator.validateOrThrow(user))
+                .then(passwordHasher.encode(user.getPassword()))
+                .flatMap(hash -> {
+                    LocalDate today = LocalDate.now();
+                    User created = user.toBuilder()
+                            .id(UUID.randomUUID().toString())
+                            .password(hash)
+                            .created(today)
+                            .lastLogin(user.getLastLogin() != null ? user.getLastLogin() : today)
+                            .token(UUID.randomUUID().toString())
+                            .isActive(Boolean.TRUE)
+                            .version(0L)
+                            .build();
+                    return userRepository.insert(created)
+                            .then(userRepository.insertChange(UserChangeType.CREATED, created.getId(), 0L))
+                            .as(transactionalOperator::transactional)
+                            .thenReturn(created);
+                })
+                .map(UserMapper::toUserResponse)
+                .onErrorMap(ReactiveUserService::isDuplicateEmail, e -> emailAlreadyRegistered(user.getEmail()));
+    }
+
+    /**
+     * Actualiza los datos de un usuario existente, buscado por su email.
+     * Los teléfonos que no cambian se conservan; solo se eliminan los que sobran y se agregan los nuevos.
+     * El cambio UPDATED se agrega al outbox en la misma transacción.
+     *
+     * @param user Usuario a actualizar.
+     * @return Mono con el usuario actualizado, 404 si no existe o 409 si otra petición lo modificó.
+     */
+    public Mono<UserResponseDTO> updateUser(User user) {
+        return Mono.fromRunnable(() -> userValidator.validateOrThrow(user))
+                .then(userRepository.findByEmail(user.getEmail()))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND,
+                        "No se encontro ningún usuario con el email " + user.getEmail()
+                )))
+                .flatMap(current -> passwordHasher.rehashIfNeeded(user.getPassword(), current.getPassword())
+                        .flatMap(hash -> {
+                            User updated = current.toBuilder()
+                                    .name(user.getName())
+                                    .email(user.getEmail())
+                                    .password(hash)
+                                    .modified(LocalDate.now())
+                                    .build();
+                            return userRepository.update(updated, current.getVersion())
+                                    .flatMap(rows -> rows == 0
+                                            ? Mono.error(concurrentModification(current.getId()))
+                                            : replacePhones(current.getId(), current.getCreated(), user.getPhones())
+                                            .then(userRepository.insertChange(UserChangeType.UPDATED,
+                                                    current.getId(), current.getVersion() + 1)))
+                                    .as(transactionalOperator::transactional)
+                                    .then(getUser(current.getId()));
+                        }))
+                .onErrorMap(ReactiveUserService::isDuplicateEmail, e -> emailAlreadyRegistered(user.getEmail()));
+    }
+
+    /**
+     * Deja en el usuario exactamente los teléfonos indicados, comparándolos por (number, citycode, countrycode).
+     *
+     * @param userId      id del usuario
+     * @param userCreated fecha de creación del usuario
+     * @param phones      teléfonos que debe tener el usuario
+     * @return Mono que termina al eliminar e insertar los teléfonos que cambiaron.
+     */
+    private Mono<Void> replacePhones(String userId, LocalDate userCreated, List<Phone> phones) {
+        return userRepository.findPhonesByUserId(userId).flatMap(existing -> {
+            List<Phone> pending = new ArrayList<>(phones);
+            List<Long> removed = new ArrayList<>();
+            existing.forEach((id, phone) -> {
+                int same = indexOfSamePhone(pending, phone);
+                if (same >= 0) {
+                    pending.remove(same);
+                } else {
+                    removed.add(id);
+                }
+            });
+            return userRepository.deletePhones(removed)
+                    .then(userRepository.insertPhones(userId, userCreated, pending));
+        });
+    }
+
+    /**
+     * Asigna a cada usuario sus teléfonos, cargados con una sola consulta para todo el grupo.
+     *
+     * @param users usuarios ya leídos
+     * @return los mismos usuarios, en el mismo orden, con sus teléfonos.
+     */
+    private Flux<User> withPhones(List<User> users) {
+        if (users.isEmpty()) {
+            return Flux.empty();
+        }
+        Collection<String> ids = users.stream().map(User::getId).collect(Collectors.toList());
+        return userRepository.findPhonesByUserIds(ids)
+                .collectMultimap(Phone::getUserId)
+                .flatMapIterable(phones -> users.stream()
+                        .map(user -> user.toBuilder()
+                                .phones(new ArrayList<>(phones.getOrDefault(user.getId(), List.of())))
+                                .build())
+                        .collect(Collectors.toList()));
+    }
+
+    private static int indexOfSamePhone(List<Phone> phones, Phone stored) {
+        for (int i = 0; i < phones.size(); i++) {
+            Phone phone = phones.get(i);
+            if (Objects.equals(stored.getNumber(), phone.getNumber())
+                    && Objects.equals(stored.getCitycode(), phone.getCitycode())
+                    && Objects.equals(stored.getCountrycode(), phone.getCountrycode())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Indica si el error corresponde al índice único de email.
+     *
+     * @param e error lanzado al insertar o actualizar
+     * @return true si el email ya estaba registrado.
+     */
+    static boolean isDuplicateEmail(Throwable e) {
+        if (!(e instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+        String message = ((DataIntegrityViolationException) e).getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(UserEntity.EMAIL_UNIQUE_INDEX);
+    }
+
+    private static ResponseStatusException userNotFound(String id) {
+        return new ResponseStatusException(
+                HttpStatus.NOT_FOUND,
+                "No se encontro ningún usuario con el id " + id
+        );
+    }
+
+    private static ResponseStatusException concurrentModification(String id) {
+        return new ResponseStatusException(
+                HttpStatus.CONFLICT,
+                "El usuario " + id + " fue modificado por otra petición"
+        );
+    }
+
+    private static ResponseStatusException emailAlreadyRegistered(String email) {
+        return new ResponseStatusException(
+                HttpStatus.CONFLICT,
+                "El correo " + email + " ya  registrado"
+        );
+    }
+}
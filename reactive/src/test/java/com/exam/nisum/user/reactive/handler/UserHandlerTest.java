@@ -0,0 +1,239 @@
+package com.exam.nisum.user.reactive.handler;
+
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.service.UserCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "nisum.password.bcrypt-strength=4")
+@AutoConfigureWebTestClient
+public class UserHandlerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void saveUser_thenGetById_returnsETagAndNotModified() {
+        //given
+        String email = UUID.randomUUID() + "@nisum.cl";
+
+        //when
+        UserResponseDTO created = create(email);
+        String eTag = webTestClient.get().uri("/nisum/api/users/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.email").isEqualTo(email)
+                .jsonPath("$.phones[0].countrycode").isEqualTo("57")
+                .returnResult().getResponseHeaders().getETag();
+
+        //then
+        assertEquals("\"0\"", eTag);
+        webTestClient.get().uri("/nisum/api/users/{id}", created.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void saveUser_duplicateEmail_returnsConflict() {
+        String email = UUID.randomUUID() + "@nisum.cl";
+        create(email);
+
+        webTestClient.post().uri("/nisum/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request(email.toUpperCase(), List.of(phone("1234567"))))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void saveUser_invalidPassword_returnsBadRequest() {
+        Map<String, Object> request = request(UUID.randomUUID() + "@nisum.cl", List.of(phone("1234567")));
+        request.put("password", "corta");
+
+        webTestClient.post().uri("/nisum/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void updateUser_replacesPhonesIncrementsVersionAndRecordsChanges() {
+        String email = UUID.randomUUID() + "@nisum.cl";
+        UserResponseDTO created = create(email);
+
+        webTestClient.put().uri("/nisum/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request(email, List.of(phone("1234567"), phone("7654321"))))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.phones.length()").isEqualTo(2)
+                .jsonPath("$.modified").isNotEmpty();
+
+        webTestClient.get().uri("/nisum/api/users/{id}", created.getId())
+                .exchange()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+
+        List<String> changes = databaseClient.sql("select change_type, user_version from user_outbox"
+                        + " where user_id = :id order by id")
+                .bind("id", created.getId().toString())
+                .map((row, metadata) -> row.get("change_type", String.class) + ":" + row.get("user_version"))
+                .all()
+                .collectList()
+                .block();
+        assertEquals(List.of("CREATED:0", "UPDATED:1"), changes);
+    }
+
+    @Test
+    void getUsers_pagesWithCursorAndStreamsNdjson() {
+        create(UUID.randomUUID() + "@nisum.cl");
+        create(UUID.randomUUID() + "@nisum.cl");
+
+        String nextCursor = webTestClient.get().uri("/nisum/api/users?size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .returnResult().getResponseHeaders().getFirst(UserHandler.NEXT_CURSOR_HEADER);
+        assertNotNull(nextCursor);
+
+        List<UserResponseDTO> streamed = webTestClient.get().uri("/nisum/api/users")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .returnResult(UserResponseDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertNotNull(streamed);
+        assertTrue(streamed.size() >= 2);
+    }
+
+    @Test
+    void saveUser_phoneWithoutCodes_returnsCreated() {
+        //given
+        Map<String, Object> request = request(UUID.randomUUID() + "@nisum.cl", List.of(Map.of("number", "1234567")));
+
+        //when
+        UserResponseDTO created = webTestClient.post().uri("/nisum/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(UserResponseDTO.class)
+                .returnResult().getResponseBody();
+
+        //then
+        assertNotNull(created);
+        webTestClient.get().uri("/nisum/api/users/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.phones[0].number").isEqualTo("1234567")
+                .jsonPath("$.phones[0].citycode").doesNotExist();
+    }
+
+    @Test
+    void deactivatedUser_isNotFoundNorListed() {
+        //given
+        String email = UUID.randomUUID() + "@nisum.cl";
+        UserResponseDTO created = create(email);
+
+        //when
+        databaseClient.sql("update users set is_active = false, version = version + 1 where id = :id")
+                .bind("id", created.getId().toString())
+                .fetch().rowsUpdated()
+                .block();
+
+        //then
+        webTestClient.get().uri("/nisum/api/users/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.put().uri("/nisum/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request(email, List.of(phone("1234567"))))
+                .exchange()
+                .expectStatus().isNotFound();
+        List<UserResponseDTO> streamed = webTestClient.get().uri("/nisum/api/users")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .returnResult(UserResponseDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertNotNull(streamed);
+        assertFalse(streamed.stream().anyMatch(user -> user.getId().equals(created.getId())));
+        List<UserResponseDTO> page = webTestClient.get().uri("/nisum/api/users?size=1000")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UserResponseDTO.class)
+                .returnResult().getResponseBody();
+        assertNotNull(page);
+        assertFalse(page.stream().anyMatch(user -> user.getId().equals(created.getId())));
+    }
+
+    @Test
+    void getUser_idNotUuid_returnsNotFound() {
+        webTestClient.get().uri("/nisum/api/users/{id}", "no-es-un-uuid")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getUsers_cursorWithIdNotUuid_pagesLikeAnyOtherKey() {
+        String cursor = new UserCursor(LocalDate.of(2000, 1, 1), "no-es-un-uuid").encode();
+
+        webTestClient.get().uri("/nisum/api/users?size=1&cursor={cursor}", cursor)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/nisum/api/users?cursor={cursor}", "no es un cursor")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private UserResponseDTO create(String email) {
+        return webTestClient.post().uri("/nisum/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request(email, List.of(phone("1234567"))))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(UserResponseDTO.class)
+                .returnResult().getResponseBody();
+    }
+
+    private static Map<String, Object> request(String email, List<Map<String, String>> phones) {
+        return new java.util.HashMap<>(Map.of(
+                "name", "Test Reactivo",
+                "email", email,
+                "password", "Reactivo123",
+                "phones", phones));
+    }
+
+    private static Map<String, String> phone(String number) {
+        return Map.of("number", number, "citycode", "1", "countrycode", "57");
+    }
+}
@@ -0,0 +1,115 @@
+package com.exam.nisum.user.api.cache;
+
+import com.exam.nisum.user.api.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria token -> id de usuario, para validar un token sin consultar la base de datos.
+ * Se carga completo al iniciar la aplicación y se actualiza al crear usuarios. Los tokens y los ids se guardan
+ * como UUID (dos long) en lugar de String, lo que reduce el tamaño de cada entrada a menos de la mitad.
+ * Si un token no está en el índice (por ejemplo, antes de terminar la carga) se busca por el índice único
+ * de la columna token.
+ */
+@Slf4j
+@Component
+public class TokenIndex {
+
+    private UserRepository userRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Map<UUID, UUID> userIdsByToken = new ConcurrentHashMap<>();
+
+    public TokenIndex(UserRepository userRepository, TransactionTemplate transactionTemplate,
+                      MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        Gauge.builder("nisum.users.tokens", userIdsByToken, Map::size)
+                .description("Tokens en el índice en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Carga en el índice los tokens de todos los usuarios, recorriéndolos con un cursor de base de datos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<UserRepository.TokenOwner> owners = userRepository.streamTokens()) {
+                owners.forEach(owner -> put(owner.getToken(), owner.getId()));
+            }
+        });
+        log.info("Índice de tokens cargado con {} usuarios en {} ms", userIdsByToken.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Busca el id del usuario dueño de un token.
+     *
+     * @param token token del usuario
+     * @return Optional con el id del usuario, vacío si el token no tiene formato UUID o no existe.
+     */
+    public Optional<String> findUserId(String token) {
+        UUID key = toUuid(token);
+        if (key == null) {
+            return Optional.empty();
+        }
+        UUID userId = userIdsByToken.get(key);
+        if (userId != null) {
+            return Optional.of(userId.toString());
+        }
+        Optional<String> id = userRepository.findIdByToken(key.toString());
+        id.ifPresent(value -> put(key.toString(), value));
+        return id;
+    }
+
+    /**
+     * Agrega el token de un usuario creado, después de confirmar la transacción.
+     *
+     * @param token token del usuario
+     * @param id    id del usuario
+     */
+    public void put(String token, String id) {
+        UUID key = toUuid(token);
+        UUID userId = toUuid(id);
+        if (key != null && userId != null) {
+            userIdsByToken.put(key, userId);
+        }
+    }
+
+    /**
+     * Quita un token del índice.
+     *
+     * @param token token a quitar
+     */
+    public void remove(String token) {
+        UUID key = toUuid(token);
+        if (key != null) {
+            userIdsByToken.remove(key);
+        }
+    }
+
+    private static UUID toUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
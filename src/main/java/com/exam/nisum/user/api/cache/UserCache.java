@@ -0,0 +1,148 @@
+package com.exam.nisum.user.api.cache;
+
+import com.exam.nisum.user.api.config.UserCacheProperties;
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.mapper.UserMapper;
+import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Cache en memoria, acotado y con expiración, delante de UserRepository para las búsquedas
+ * de usuarios por id y por email. También recuerda por un tiempo corto los emails que no
+ * están registrados, para que la validación de email duplicado al crear no llegue a la base de datos.
+ * Las entradas deben invalidarse con evict después de cada escritura confirmada.
+ */
+@Component
+public class UserCache {
+
+    private UserRepository userRepository;
+
+    private Cache<String, User> usersById;
+
+    // Email normalizado -> id del usuario, o Optional.empty() si el email no está registrado
+    private Cache<String, Optional<String>> idsByEmail;
+
+    public UserCache(UserRepository userRepository, UserCacheProperties properties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.usersById = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .<String, User>build(), "users.byId");
+        long ttlNanos = properties.getTtl().toNanos();
+        long negativeTtlNanos = properties.getNegativeTtl().toNanos();
+        this.idsByEmail = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<String, Optional<String>>() {
+                    @Override
+                    public long expireAfterCreate(String email, Optional<String> id, long currentTime) {
+                        return id.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String email, Optional<String> id, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(email, id, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String email, Optional<String> id, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .<String, Optional<String>>build(), "users.byEmail");
+    }
+
+    /**
+     * Busca un usuario por id, consultando la base de datos solo si no está en cache.
+     *
+     * @param id id del usuario
+     * @return Optional con una copia del usuario y sus teléfonos.
+     */
+    public Optional<User> findById(String id) {
+        User user = usersById.get(id, key -> userRepository.findWithPhonesByIdIn(List.of(key)).stream()
+                .findFirst()
+                .map(UserMapper::toUserModel)
+                .orElse(null));
+        return Optional.ofNullable(user).map(this::copy);
+    }
+
+    /**
+     * Busca un usuario por email, consultando la base de datos solo si no está en cache.
+     * Si el email no está registrado, el resultado vacío también queda en cache.
+     * Cada cache se carga solo dentro de su propio cómputo de Caffeine: una invalidación que llega mientras la
+     * consulta está en curso espera a que termine y luego elimina la entrada, así no queda en cache un usuario
+     * leído antes de una escritura confirmada. Por eso el usuario leído por email no se agrega al cache por id.
+     *
+     * @param email email del usuario
+     * @return Optional con una copia del usuario y sus teléfonos.
+     */
+    public Optional<User> findByEmail(String email) {
+        User[] loaded = new User[1];
+        Optional<String> id = idsByEmail.get(UserEntity.normalizeEmail(email), key -> {
+            loaded[0] = userRepository.findWithPhonesByEmail(key).map(UserMapper::toUserModel).orElse(null);
+            return Optional.ofNullable(loaded[0]).map(User::getId);
+        });
+        if (loaded[0] != null) {
+            return Optional.of(loaded[0]);
+        }
+        return id.flatMap(this::findById);
+    }
+
+    /**
+     * Indica si el email está registrado, consultando solo el id en la base de datos si no está en cache.
+     * Un email no registrado se recuerda durante nisum.cache.users.negative-ttl, así los reintentos de creación
+     * con el mismo email no vuelven a consultar. El resultado puede estar desactualizado si otra instancia
+     * registró el email: el índice único de email sigue siendo la verificación definitiva al insertar.
+     *
+     * @param email email a verificar
+     * @return true si el email está registrado, por un usuario activo o dado de baja.
+     */
+    public boolean isRegistered(String email) {
+        return idsByEmail.get(UserEntity.normalizeEmail(email), userRepository::findIdByEmailNormalized).isPresent();
+    }
+
+    /**
+     * Invalida las entradas de un usuario después de crearlo o modificarlo.
+     *
+     * @param id     id del usuario
+     * @param emails emails anteriores y actuales del usuario
+     */
+    public void evict(String id, String... emails) {
+        if (id != null) {
+            usersById.invalidate(id);
+        }
+        for (String email : emails) {
+            if (email != null) {
+                idsByEmail.invalidate(UserEntity.normalizeEmail(email));
+            }
+        }
+    }
+
+    /**
+     * Invalida los emails indicados, por ejemplo los usuarios creados en una importación masiva.
+     *
+     * @param emails emails a invalidar
+     */
+    public void evictEmails(Collection<String> emails) {
+        idsByEmail.invalidateAll(emails.stream().map(UserEntity::normalizeEmail).collect(Collectors.toList()));
+    }
+
+    // Copia superficial para que quien llama no modifique la instancia guardada en cache
+    private User copy(User user) {
+        return user.toBuilder().build();
+    }
+}
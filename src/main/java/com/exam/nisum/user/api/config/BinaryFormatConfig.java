@@ -0,0 +1,44 @@
+package com.exam.nisum.user.api.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formatos binarios de Jackson (Smile y CBOR) para los clientes internos que envían el header Accept
+ * application/x-jackson-smile o application/cbor. Usan el mismo modelo y las mismas anotaciones que JSON,
+ * pero sin repetir los nombres de los campos como texto, lo que reduce el tamaño y el costo de escribir
+ * listados grandes. Los ObjectMapper se construyen con el builder de Spring Boot, así comparten la
+ * configuración de spring.jackson.* con el de JSON.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    /**
+     * Bean que lee y escribe el formato Smile. Reemplaza al que Spring agrega por defecto, que no usa
+     * la configuración de Spring Boot.
+     *
+     * @param builder builder de ObjectMapper configurado por Spring Boot
+     * @return bean de MappingJackson2SmileHttpMessageConverter.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Bean que lee y escribe el formato CBOR. Reemplaza al que Spring agrega por defecto, que no usa
+     * la configuración de Spring Boot.
+     *
+     * @param builder builder de ObjectMapper configurado por Spring Boot
+     * @return bean de MappingJackson2CborHttpMessageConverter.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
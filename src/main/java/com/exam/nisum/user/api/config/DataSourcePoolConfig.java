@@ -0,0 +1,46 @@
+package com.exam.nisum.user.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Clase de configuración del pool de conexiones.
+ * Si no se configura spring.datasource.hikari.maximum-pool-size, el tamaño del pool se calcula con la
+ * cantidad de CPUs ((CPUs * 2) + 1) en lugar de las 10 conexiones fijas de Hikari: con más conexiones que
+ * hilos capaces de usarlas, las consultas solo esperan más tiempo dentro de la base de datos.
+ */
+@Configuration
+public class DataSourcePoolConfig {
+
+    /**
+     * Ajusta el tamaño máximo del pool antes de que Hikari lo inicie. Es estático para registrarse antes
+     * que los demás beans.
+     *
+     * @return bean de BeanPostProcessor.
+     */
+    @Bean
+    public static BeanPostProcessor dataSourcePoolSizePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // Hikari deja el tamaño en -1 hasta iniciar el pool si no se configuró
+                if (bean instanceof HikariDataSource && ((HikariDataSource) bean).getMaximumPoolSize() < 1) {
+                    ((HikariDataSource) bean).setMaximumPoolSize(poolSize(Runtime.getRuntime().availableProcessors()));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Calcula el tamaño del pool para la cantidad de CPUs indicada.
+     *
+     * @param cpus cantidad de CPUs disponibles
+     * @return cantidad máxima de conexiones.
+     */
+    static int poolSize(int cpus) {
+        return cpus * 2 + 1;
+    }
+}
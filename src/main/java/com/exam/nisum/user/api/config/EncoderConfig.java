@@ -2,25 +2,49 @@ package com.exam.nisum.user.api.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Clase de configuración usada para encriptar contraseñas con BCryptPasswordEncoder.
+ * Clase de configuración usada para encriptar contraseñas con el algoritmo configurado.
  */
 
 @Configuration
 public class EncoderConfig {
 
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
 
     /**
      * Bean usado para encriptar contraseñas.
+     * Los hashes se guardan con el prefijo del algoritmo ({bcrypt}, {argon2}, {pbkdf2}), así se
+     * pueden validar hashes de cualquier algoritmo y detectar cuáles deben re-encriptarse.
+     * Los hashes sin prefijo, guardados antes de este cambio, se validan con BCrypt.
      *
-     * @return bean de BCryptPasswordEncoder.
+     * @param properties algoritmo y costo configurados
+     * @return bean de DelegatingPasswordEncoder.
      */
     @Bean
-    public PasswordEncoder encoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder encoder(PasswordProperties properties) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(properties.getBcryptStrength());
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(PasswordProperties.Algorithm.BCRYPT.getId(), bcrypt);
+        encoders.put(PasswordProperties.Algorithm.ARGON2.getId(), new Argon2PasswordEncoder(
+                SALT_LENGTH, HASH_LENGTH, 1, properties.getArgon2Memory(), properties.getArgon2Iterations()));
+        encoders.put(PasswordProperties.Algorithm.PBKDF2.getId(), new Pbkdf2PasswordEncoder(
+                "", SALT_LENGTH, properties.getPbkdf2Iterations(),
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(properties.getAlgorithm().getId(), encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
 }
@@ -0,0 +1,25 @@
+package com.exam.nisum.user.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propiedades de configuración de las claves de idempotencia de la creación de usuarios (prefijo nisum.idempotency).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "nisum.idempotency")
+public class IdempotencyProperties {
+
+    // Cantidad máxima de claves vigentes, con el almacén lleno las claves nuevas se rechazan con 503
+    private long maximumSize = 100000;
+
+    // Tiempo que se recuerda la respuesta de una clave desde que se recibió
+    private Duration ttl = Duration.ofHours(24);
+
+    // Largo máximo del header Idempotency-Key
+    private int maxKeyLength = 255;
+}
@@ -0,0 +1,69 @@
+package com.exam.nisum.user.api.config;
+
+import com.exam.nisum.user.api.metrics.JdbcMetricsListener;
+import com.exam.nisum.user.api.metrics.JdbcRequestMetricsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuración de las métricas JDBC: envuelve el DataSource con datasource-proxy para medir cada sentencia
+ * y registra el filtro que acumula las sentencias por petición HTTP.
+ * Se desactiva con nisum.metrics.jdbc.enabled=false, por ejemplo para comparar el rendimiento sin el proxy.
+ * El tiempo de espera por una conexión del pool lo publica Hikari en hikaricp.connections.acquire.
+ */
+@Configuration
+@ConditionalOnProperty(name = "nisum.metrics.jdbc.enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcMetricsConfig {
+
+    /**
+     * Bean que mide cada sentencia ejecutada por el DataSource. No depende del registro de métricas,
+     * que a su vez depende del DataSource; Spring Boot lo vincula al registro como MeterBinder.
+     *
+     * @return bean de JdbcMetricsListener.
+     */
+    @Bean
+    public JdbcMetricsListener jdbcMetricsListener() {
+        return new JdbcMetricsListener();
+    }
+
+    /**
+     * Bean que registra las sentencias JDBC de cada petición HTTP.
+     *
+     * @param meterRegistry registro de métricas
+     * @return bean de JdbcRequestMetricsFilter.
+     */
+    @Bean
+    public JdbcRequestMetricsFilter jdbcRequestMetricsFilter(MeterRegistry meterRegistry) {
+        return new JdbcRequestMetricsFilter(meterRegistry);
+    }
+
+    /**
+     * Envuelve los DataSource de la aplicación con datasource-proxy. Es estático para registrarse antes
+     * que los demás beans; el listener se obtiene recién al envolver el DataSource.
+     *
+     * @param listener listener que mide las sentencias
+     * @return bean de BeanPostProcessor.
+     */
+    @Bean
+    public static BeanPostProcessor jdbcMetricsDataSourcePostProcessor(ObjectProvider<JdbcMetricsListener> listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                        .listener(listener.getObject())
+                        .build();
+            }
+        };
+    }
+}
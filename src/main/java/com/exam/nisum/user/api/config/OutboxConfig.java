@@ -0,0 +1,36 @@
+package com.exam.nisum.user.api.config;
+
+import com.exam.nisum.user.api.outbox.FileUserChangeSink;
+import com.exam.nisum.user.api.outbox.InMemoryUserChangeSink;
+import com.exam.nisum.user.api.outbox.UserChangeSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+
+/**
+ * Clase de configuración del destino de los cambios publicados desde el outbox.
+ * Para publicar en un broker basta con declarar otro bean de UserChangeSink.
+ */
+@Configuration
+public class OutboxConfig {
+
+    /**
+     * Bean que publica los cambios en el archivo de nisum.outbox.sink-file, o en memoria si no está configurado.
+     *
+     * @param properties   configuración del outbox
+     * @param objectMapper ObjectMapper de la aplicación, para escribir cada cambio en JSON
+     * @return bean de UserChangeSink.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public UserChangeSink userChangeSink(OutboxProperties properties, ObjectMapper objectMapper) {
+        if (StringUtils.hasText(properties.getSinkFile())) {
+            return new FileUserChangeSink(Path.of(properties.getSinkFile()), objectMapper);
+        }
+        return new InMemoryUserChangeSink(properties.getMemorySinkCapacity());
+    }
+}
@@ -0,0 +1,34 @@
+package com.exam.nisum.user.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propiedades de configuración del outbox de cambios de usuarios (prefijo nisum.outbox).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "nisum.outbox")
+public class OutboxProperties {
+
+    // Tiempo entre dos revisiones de cambios pendientes de publicar
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    // Cantidad máxima de cambios por publicación
+    private int batchSize = 500;
+
+    // Tiempo que se conservan los cambios publicados para el feed de cambios
+    private Duration retention = Duration.ofDays(7);
+
+    // Tiempo entre dos eliminaciones de cambios más antiguos que la retención
+    private Duration purgeInterval = Duration.ofHours(1);
+
+    // Archivo donde se agregan los cambios publicados, uno por línea en JSON; si está vacío se publican en memoria
+    private String sinkFile = "";
+
+    // Cantidad de cambios que conserva la publicación en memoria
+    private int memorySinkCapacity = 10000;
+}
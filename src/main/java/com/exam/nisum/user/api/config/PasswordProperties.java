@@ -0,0 +1,58 @@
+package com.exam.nisum.user.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Propiedades de configuración para encriptar contraseñas (prefijo nisum.password).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "nisum.password")
+public class PasswordProperties {
+
+    /**
+     * Algoritmos soportados para encriptar contraseñas.
+     */
+    public enum Algorithm {
+        BCRYPT("bcrypt"),
+        ARGON2("argon2"),
+        PBKDF2("pbkdf2");
+
+        private final String id;
+
+        Algorithm(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Prefijo con el que se guardan los hashes de este algoritmo ({id}hash).
+         *
+         * @return id del algoritmo.
+         */
+        public String getId() {
+            return id;
+        }
+    }
+
+    // Algoritmo usado para las contraseñas nuevas, los hashes anteriores se re-encriptan al validarse
+    private Algorithm algorithm = Algorithm.BCRYPT;
+
+    // Costo de BCrypt (log2 de las rondas)
+    private int bcryptStrength = 10;
+
+    // Iteraciones de PBKDF2. No se guardan en el hash: si cambian, los hashes PBKDF2 anteriores dejan de validarse
+    private int pbkdf2Iterations = 310000;
+
+    // Iteraciones y memoria (KB) de Argon2
+    private int argon2Iterations = 2;
+    private int argon2Memory = 16384;
+
+    // Hilos dedicados a encriptar, por defecto uno por CPU
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    // Máximo de contraseñas esperando a ser encriptadas antes de rechazar con 503 (las importaciones masivas no se
+    // rechazan, encriptan en su propio hilo)
+    private int queueCapacity = 1000;
+}
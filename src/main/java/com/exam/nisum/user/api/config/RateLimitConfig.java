@@ -0,0 +1,67 @@
+package com.exam.nisum.user.api.config;
+
+import com.exam.nisum.user.api.ratelimit.RateLimitFilter;
+import com.exam.nisum.user.api.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Clase de configuración del límite de peticiones por cliente en los endpoints de escritura.
+ * Se desactiva con nisum.rate-limit.enabled=false, por ejemplo para las pruebas de carga.
+ */
+@Configuration
+@ConditionalOnProperty(name = "nisum.rate-limit.enabled", matchIfMissing = true)
+public class RateLimitConfig {
+
+    /**
+     * Bean que registra el filtro de límites antes que los demás filtros de la aplicación.
+     *
+     * @param properties    límites configurados
+     * @param meterRegistry registro de métricas
+     * @return bean de FilterRegistrationBean con el RateLimitFilter.
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimitProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        List<RateLimiter> rateLimiters = properties.getLimits().entrySet().stream()
+                .map(entry -> new RateLimiter(entry.getKey(), methods(entry.getValue().getMethods()),
+                        entry.getValue().getPath(), entry.getValue().getCapacity(),
+                        entry.getValue().getRefillPerSecond(), properties.getMaxClients()))
+                .collect(Collectors.toList());
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(rateLimiters, properties.getClientHeader(), meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+
+    /**
+     * Bean que acota la cantidad de clientes distintos en el tag client de la métrica de rechazos; los
+     * siguientes clientes rechazados no se registran, para que un cliente que cambia su clave no haga
+     * crecer la memoria.
+     *
+     * @param properties límites configurados
+     * @return bean de MeterFilter.
+     */
+    @Bean
+    public MeterFilter rateLimitClientTagsFilter(RateLimitProperties properties) {
+        return MeterFilter.maximumAllowableTags(RateLimitFilter.REJECTED_COUNTER, "client",
+                properties.getMaxClientTags(), MeterFilter.deny());
+    }
+
+    private static Set<String> methods(List<String> methods) {
+        Set<String> result = new HashSet<>();
+        methods.forEach(method -> result.add(method.trim().toUpperCase(Locale.ROOT)));
+        return result;
+    }
+}
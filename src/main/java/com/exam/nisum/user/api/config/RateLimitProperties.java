@@ -0,0 +1,49 @@
+package com.exam.nisum.user.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Propiedades de configuración del límite de peticiones por cliente (prefijo nisum.rate-limit).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "nisum.rate-limit")
+public class RateLimitProperties {
+
+    // Header con la clave del cliente (por ejemplo la que agrega un gateway); si está vacío o no viene en la
+    // petición, el cliente se identifica por su IP
+    private String clientHeader = "";
+
+    // Cantidad máxima de clientes recordados por cada límite, los inactivos se descartan antes
+    private long maxClients = 100000;
+
+    // Cantidad máxima de clientes distintos en el tag client de la métrica de rechazos
+    private int maxClientTags = 1000;
+
+    // Límites por endpoint, por nombre
+    private Map<String, Limit> limits = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        // Métodos HTTP a los que se aplica el límite
+        private List<String> methods = new ArrayList<>();
+
+        // Patrón de la ruta, por ejemplo /nisum/api/users/{id}
+        private String path;
+
+        // Peticiones que un cliente puede enviar de golpe
+        private int capacity;
+
+        // Peticiones por segundo que se recuperan después de agotar la capacidad
+        private double refillPerSecond;
+    }
+}
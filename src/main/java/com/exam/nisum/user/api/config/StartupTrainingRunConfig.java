@@ -0,0 +1,31 @@
+package com.exam.nisum.user.api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Ejecución de entrenamiento del archivo CDS (nisum.startup.training-run=true), usada por el perfil de Maven cds.
+ * La aplicación inicia con todos los beans, se cierra apenas queda lista y la JVM guarda al salir las clases
+ * cargadas en el archivo indicado con -XX:ArchiveClassesAtExit. Las instancias nuevas que arrancan con
+ * -XX:SharedArchiveFile mapean esas clases en lugar de leerlas y verificarlas desde los jars.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "nisum.startup.training-run", havingValue = "true")
+public class StartupTrainingRunConfig {
+
+    /**
+     * Cierra la aplicación cuando terminó de iniciar, con el código de salida de Spring Boot.
+     *
+     * @param event evento de aplicación lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void exitAfterStartup(ApplicationReadyEvent event) {
+        log.info("Ejecución de entrenamiento terminada, cerrando la aplicación para guardar el archivo CDS");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
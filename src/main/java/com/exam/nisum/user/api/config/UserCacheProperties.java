@@ -0,0 +1,25 @@
+package com.exam.nisum.user.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propiedades de configuración del cache de usuarios (prefijo nisum.cache.users).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "nisum.cache.users")
+public class UserCacheProperties {
+
+    // Cantidad máxima de usuarios en cache, por id y por email
+    private long maximumSize = 10000;
+
+    // Tiempo que una entrada permanece en cache desde que se carga
+    private Duration ttl = Duration.ofMinutes(10);
+
+    // Tiempo que se recuerda que un email no está registrado
+    private Duration negativeTtl = Duration.ofMinutes(1);
+}
@@ -0,0 +1,83 @@
+package com.exam.nisum.user.api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo opcional (nisum.threads.virtual=true) que atiende las peticiones HTTP y las respuestas en streaming
+ * con un hilo virtual por tarea, en lugar del pool de 200 hilos de Tomcat. Así una petición bloqueada en JDBC
+ * no ocupa un hilo de plataforma y el límite real de concurrencia pasa a ser el pool de conexiones.
+ * Los hilos virtuales requieren Java 21; en una JVM anterior se mantiene el pool de Tomcat.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "nisum.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    // Executor compartido por Tomcat y por las respuestas asíncronas, vacío si la JVM no tiene hilos virtuales
+    private final Optional<ExecutorService> virtualThreadExecutor = newVirtualThreadExecutor();
+
+    /**
+     * Bean que reemplaza el executor de Tomcat por uno de hilos virtuales.
+     *
+     * @return bean de TomcatProtocolHandlerCustomizer.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> virtualThreadExecutor.ifPresent(protocolHandler::setExecutor);
+    }
+
+    /**
+     * Bean que ejecuta en hilos virtuales las respuestas asíncronas de Spring MVC, como el listado NDJSON.
+     *
+     * @return bean de WebMvcConfigurer.
+     */
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                virtualThreadExecutor
+                        .ifPresent(executor -> configurer.setTaskExecutor(new TaskExecutorAdapter(executor)));
+            }
+        };
+    }
+
+    /**
+     * Detiene el executor al cerrar la aplicación, después de detener Tomcat. Tomcat no detiene un executor
+     * externo, y las tareas que ya se iniciaron terminan antes de que el proceso salga.
+     */
+    @PreDestroy
+    public void shutdown() {
+        virtualThreadExecutor.ifPresent(ExecutorService::shutdown);
+    }
+
+    /**
+     * Crea un executor con un hilo virtual por tarea. Se obtiene por reflexión para que la aplicación
+     * siga compilando y ejecutándose en Java 17.
+     *
+     * @return el executor, o vacío si la JVM no tiene hilos virtuales.
+     */
+    static Optional<ExecutorService> newVirtualThreadExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null));
+        } catch (ReflectiveOperationException e) {
+            log.warn("La JVM {} no tiene hilos virtuales (requiere Java 21), se usa el pool de hilos de Tomcat",
+                    Runtime.version());
+            return Optional.empty();
+        }
+    }
+}
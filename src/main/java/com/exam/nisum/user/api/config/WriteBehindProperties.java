@@ -0,0 +1,25 @@
+package com.exam.nisum.user.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propiedades de configuración de la escritura diferida del último inicio de sesión (prefijo nisum.write-behind).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "nisum.write-behind")
+public class WriteBehindProperties {
+
+    // Tiempo máximo que un inicio de sesión espera en memoria antes de escribirse
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // Cantidad de usuarios pendientes que adelanta el flush sin esperar el intervalo
+    private int maxPending = 10000;
+
+    // Cantidad máxima de filas por batch de UPDATE
+    private int batchSize = 1000;
+}
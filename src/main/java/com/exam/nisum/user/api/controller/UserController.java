@@ -1,13 +1,38 @@
 package com.exam.nisum.user.api.controller;
 
+import com.exam.nisum.user.api.dto.request.UserDeactivateRequestDTO;
+import com.exam.nisum.user.api.dto.request.UserPatchRequestDTO;
 import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.dto.request.UserSearchRequestDTO;
+import com.exam.nisum.user.api.dto.response.BulkImportResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserChangeDTO;
+import com.exam.nisum.user.api.dto.response.UserChangePageResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserDeactivateResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserPageResponseDTO;
 import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.idempotency.IdempotencyStore;
+import com.exam.nisum.user.api.service.UserBulkService;
 import com.exam.nisum.user.api.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 
@@ -15,35 +40,184 @@ import java.util.List;
  * Clase Controlador, es donde se manejan las solicitudes HTTP relacionadas con usuarios.
  */
 @RestController
-@RequestMapping(value = "/nisum/api/users", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/nisum/api/users", produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        UserController.APPLICATION_SMILE_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE})
 public class UserController {
 
+    // Formato binario Smile de Jackson, para clientes internos que lo piden en el header Accept
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    // Header con el token de continuación para pedir la página siguiente
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Esquema del header Authorization con el token del usuario
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private UserService userService;
 
-    public UserController(UserService userService) {
+    private UserBulkService userBulkService;
+
+    private ObjectMapper objectMapper;
+
+    private IdempotencyStore idempotencyStore;
+
+    public UserController(UserService userService, UserBulkService userBulkService, ObjectMapper objectMapper,
+                          IdempotencyStore idempotencyStore) {
         this.userService = userService;
+        this.userBulkService = userBulkService;
+        this.objectMapper = objectMapper;
+        this.idempotencyStore = idempotencyStore;
     }
 
     /**
-     * Solicitud HTTP-GET para obtener todos los usuarios con su lista de telefonos.
+     * Solicitud HTTP-GET para obtener una página de usuarios con su lista de telefonos.
+     * Si existe una página siguiente, su cursor se devuelve en el header X-Next-Cursor.
      *
+     * @param cursor token de continuación de la página anterior (opcional)
+     * @param size   cantidad máxima de usuarios de la página
      * @return una lista de objetos User en el cuerpo de la respuesta HTTP
      */
     @GetMapping
-    public ResponseEntity<List<UserResponseDTO>> getUsers() {
-        return new ResponseEntity<>(userService.getUsers(), HttpStatus.OK);
+    public ResponseEntity<List<UserResponseDTO>> getUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + UserService.DEFAULT_PAGE_SIZE) int size) {
+        return pageResponse(userService.getUsers(cursor, size));
+    }
+
+    /**
+     * Solicitud HTTP-GET para buscar usuarios por prefijo del nombre, dominio del email, estado, rangos de fecha
+     * de creación y modificación, y código de país o ciudad de sus teléfonos. Los filtros que no se envían no se
+     * aplican. Se pagina igual que el listado: si existe una página siguiente, su cursor se devuelve en el header
+     * X-Next-Cursor.
+     *
+     * @param filters filtros de la búsqueda, como parámetros de la URL
+     * @param cursor  token de continuación de la página anterior (opcional)
+     * @param size    cantidad máxima de usuarios de la página
+     * @return una lista de objetos User que cumplen los filtros en el cuerpo de la respuesta HTTP
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<UserResponseDTO>> searchUsers(
+            UserSearchRequestDTO filters,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + UserService.DEFAULT_PAGE_SIZE) int size) {
+        return pageResponse(userService.searchUsers(filters, cursor, size));
     }
 
+    /**
+     * Solicitud HTTP-GET para obtener los cambios de usuarios (creaciones, modificaciones y bajas) publicados
+     * después de un cursor, en orden. El cursor para pedir los siguientes se devuelve en el header X-Next-Cursor,
+     * también cuando no hay cambios nuevos.
+     *
+     * @param since posición del último cambio recibido (opcional, sin él se empieza desde el primero)
+     * @param size  cantidad máxima de cambios
+     * @return una lista de cambios en el cuerpo de la respuesta HTTP
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<List<UserChangeDTO>> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "" + UserService.DEFAULT_PAGE_SIZE) int size) {
+        UserChangePageResponseDTO page = userService.getChanges(since, size);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, page.getNextCursor())
+                .body(page.getChanges());
+    }
+
+    /**
+     * Solicitud HTTP-GET que entrega todos los usuarios en formato NDJSON (un JSON por línea),
+     * escribiendo cada usuario a medida que se lee de la base de datos.
+     * La respuesta se envía por partes (chunked): se vacía después del primer usuario, para que el cliente
+     * reciba los primeros bytes sin esperar la lista completa, y después de cada bloque leído. Si el cliente
+     * envía Accept-Encoding: gzip, Tomcat comprime cada parte a medida que se escribe (server.compression).
+     *
+     * @return cuerpo de la respuesta HTTP escrito en streaming
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        // Sin vaciar el stream por cada usuario, eso lo decide el bucle de escritura
+        ObjectWriter writer = objectMapper.writerFor(UserResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                long[] written = {0};
+                userService.streamUsers(user -> {
+                    try {
+                        writer.writeValue(generator, user);
+                        generator.writeRaw('\n');
+                        if (++written[0] == 1 || written[0] % UserService.STREAM_CHUNK_SIZE == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+
+    /**
+     * Solicitud HTTP-GET para obtener el usuario dueño del token enviado en el header Authorization
+     * (Bearer), por ejemplo para que un gateway valide la sesión sin recorrer la tabla de usuarios.
+     *
+     * @param authorization header Authorization con el token del usuario
+     * @return UserResponseDTO en el cuerpo de la respuesta HTTP, o 401 si el token no es válido
+     */
+    @GetMapping("/me")
+    public ResponseEntity<UserResponseDTO> getCurrentUser(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        UserResponseDTO user = userService.getUserByToken(bearerToken(authorization));
+        return ResponseEntity.ok()
+                .eTag(eTag(user.getVersion()))
+                .body(user);
+    }
+
+    /**
+     * Solicitud HTTP-GET para obtener un usuario por su id.
+     * La respuesta incluye un ETag con la versión del usuario; si el header If-None-Match coincide,
+     * se responde 304 sin cuerpo y sin cargar el usuario ni sus teléfonos.
+     *
+     * @param id      id del usuario
+     * @param request petición, usada para evaluar el header If-None-Match
+     * @return UserResponseDTO en el cuerpo de la respuesta HTTP, o 304 si el cliente ya tiene la versión actual
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<UserResponseDTO> getUser(@PathVariable String id, WebRequest request) {
+        if (request.checkNotModified(eTag(userService.getUserVersion(id)))) {
+            return null;
+        }
+        UserResponseDTO user = userService.getUser(id);
+        return ResponseEntity.ok()
+                .eTag(eTag(user.getVersion()))
+                .body(user);
+    }
 
     /**
      * Solicitud HTTP POST para guardar un nuevo usuario.
+     * Si se envía el header Idempotency-Key, los reintentos con la misma clave reciben la respuesta de la primera
+     * petición, con el header Idempotent-Replayed en true, sin volver a crear el usuario.
      *
+     * @param idempotencyKey clave de idempotencia elegida por el cliente (opcional)
      * @param userRequestDTO contiene la información del usuario a guardar
      * @return UserResponseDTO creado en el cuerpo de la respuesta HTTP
      */
     @PostMapping
-    public ResponseEntity<UserResponseDTO> saveUser(@RequestBody UserRequestDTO userRequestDTO) {
-        return new ResponseEntity<>(userService.saveUser(userRequestDTO.toModel()), HttpStatus.CREATED);
+    public ResponseEntity<UserResponseDTO> saveUser(
+            @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody UserRequestDTO userRequestDTO) {
+        if (idempotencyKey == null) {
+            return new ResponseEntity<>(userService.saveUser(userRequestDTO.toModel()), HttpStatus.CREATED);
+        }
+        IdempotencyStore.Result<UserResponseDTO> result = idempotencyStore.execute(idempotencyKey, userRequestDTO,
+                () -> userService.saveUser(userRequestDTO.toModel()));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IdempotencyStore.REPLAYED_HEADER, String.valueOf(result.isReplayed()))
+                .body(result.getResponse());
     }
 
     /**
@@ -53,7 +227,140 @@ public class UserController {
      * @return UserResponseDTO actualizado en el cuerpo de la respuesta HTTP
      */
     @PutMapping
-    public ResponseEntity<UserResponseDTO> updateUser(@RequestBody UserRequestDTO userRequestDTO) {
+    public ResponseEntity<UserResponseDTO> updateUser(@Valid @RequestBody UserRequestDTO userRequestDTO) {
         return new ResponseEntity<>(userService.updateUser(userRequestDTO.toModel()), HttpStatus.OK);
     }
+
+    /**
+     * Solicitud HTTP PATCH para actualizar solo los campos enviados de un usuario.
+     * Si se envía el header If-Match, la actualización se aplica solo si coincide con la versión actual.
+     *
+     * @param id      id del usuario
+     * @param ifMatch ETag de la versión que el cliente espera modificar (opcional)
+     * @param userPatchRequestDTO campos a modificar
+     * @return UserResponseDTO actualizado en el cuerpo de la respuesta HTTP, con su nuevo ETag
+     */
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserResponseDTO> patchUser(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody UserPatchRequestDTO userPatchRequestDTO) {
+        UserResponseDTO user = userService.patchUser(id, versionOf(ifMatch), userPatchRequestDTO.toModel());
+        return ResponseEntity.ok()
+                .eTag(eTag(user.getVersion()))
+                .body(user);
+    }
+
+    /**
+     * Solicitud HTTP DELETE para dar de baja a un usuario. La baja es lógica: el usuario se conserva con
+     * isActive en false, pero deja de listarse, de poder consultarse y su token deja de ser válido.
+     *
+     * @param id id del usuario
+     * @return respuesta 204 sin cuerpo, también si el usuario ya estaba dado de baja
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteUser(@PathVariable String id) {
+        userService.deleteUser(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Solicitud HTTP POST para dar de baja a varios usuarios, indicados por una lista de ids o por los filtros
+     * de la búsqueda, con sentencias UPDATE sobre la tabla en lugar de cargar cada usuario.
+     *
+     * @param userDeactivateRequestDTO ids o filtros de los usuarios a dar de baja
+     * @return UserDeactivateResponseDTO con la cantidad de usuarios dados de baja en el cuerpo de la respuesta HTTP
+     */
+    @PostMapping(value = "/deactivate", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserDeactivateResponseDTO> deactivateUsers(
+            @RequestBody UserDeactivateRequestDTO userDeactivateRequestDTO) {
+        return new ResponseEntity<>(userService.deactivateUsers(userDeactivateRequestDTO), HttpStatus.OK);
+    }
+
+    /**
+     * Solicitud HTTP POST para importar usuarios de forma masiva.
+     * Acepta un arreglo JSON o un stream NDJSON (un usuario por línea), que se lee a medida que llega.
+     *
+     * @param body cuerpo de la petición con los usuarios a importar
+     * @return BulkImportResponseDTO con el resultado de cada fila en el cuerpo de la respuesta HTTP
+     * @throws IOException si no se puede leer el cuerpo de la petición
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkImportResponseDTO> importUsers(InputStream body) throws IOException {
+        try (MappingIterator<UserRequestDTO> requests = objectMapper.readerFor(UserRequestDTO.class).readValues(body)) {
+            return new ResponseEntity<>(userBulkService.importUsers(requests), HttpStatus.OK);
+        } catch (JsonProcessingException e) {
+            throw invalidImportBody(e);
+        } catch (RuntimeException e) {
+            // MappingIterator envuelve los errores de lectura de cada fila en excepciones no chequeadas
+            if (e instanceof RuntimeJsonMappingException || e.getCause() instanceof JsonProcessingException) {
+                throw invalidImportBody(e);
+            }
+            throw e;
+        }
+    }
+
+    private static ResponseEntity<List<UserResponseDTO>> pageResponse(UserPageResponseDTO page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getUsers());
+    }
+
+    /**
+     * Construye el ETag fuerte de un usuario a partir de su versión.
+     *
+     * @param version versión del usuario
+     * @return valor del header ETag, entre comillas.
+     */
+    static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Obtiene la versión indicada en el header If-Match.
+     *
+     * @param ifMatch valor del header, puede ser null o "*"
+     * @return la versión, o null si el header no exige una versión.
+     * @throws ResponseStatusException 412 si el header no corresponde a un ETag de usuario
+     */
+    static Long versionOf(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            try {
+                return Long.valueOf(value.substring(1, value.length() - 1));
+            } catch (NumberFormatException e) {
+                // Se responde igual que una versión que no coincide
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "El header If-Match no es válido");
+    }
+
+    /**
+     * Obtiene el token de un header Authorization con el esquema Bearer.
+     *
+     * @param authorization valor del header Authorization
+     * @return el token.
+     * @throws ResponseStatusException 401 si el header no existe o no usa el esquema Bearer
+     */
+    static String bearerToken(String authorization) {
+        if (authorization != null && authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            String token = authorization.substring(BEARER_PREFIX.length()).trim();
+            if (!token.isEmpty()) {
+                return token;
+            }
+        }
+        throw new ResponseStatusException(
+                HttpStatus.UNAUTHORIZED,
+                "Se requiere el header Authorization con un token Bearer"
+        );
+    }
+
+    private static ResponseStatusException invalidImportBody(Exception cause) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "El cuerpo de la importación no es válido", cause);
+    }
 }
@@ -0,0 +1,26 @@
+package com.exam.nisum.user.api.dto.request;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Clase DTO, encargada de tener los usuarios a dar de baja: una lista de ids o los mismos filtros de la búsqueda,
+ * pero no ambos.
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UserDeactivateRequestDTO {
+
+    private List<String> ids;
+
+    // Filtros de la búsqueda; isActive se ignora, solo se dan de baja usuarios activos
+    private UserSearchRequestDTO filter;
+}
@@ -0,0 +1,35 @@
+package com.exam.nisum.user.api.dto.request;
+
+
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.model.User;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Clase DTO, encargada de tener la información de una actualización parcial del usuario.
+ * Los campos que no se envían quedan en null y no se modifican; si se envía phones,
+ * reemplaza la lista completa de teléfonos.
+ */
+
+@Data
+public class UserPatchRequestDTO {
+
+    private String name;
+
+    private String email;
+
+    private String password;
+
+    private List<Phone> phones;
+
+    public User toModel() {
+        return User.builder()
+                .name(name)
+                .email(email)
+                .password(password)
+                .phones(phones)
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.exam.nisum.user.api.dto.request;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Clase DTO, encargada de tener los filtros de la búsqueda de usuarios, recibidos como parámetros de la URL.
+ * Los filtros que no se envían quedan en null y no se aplican; los rangos de fechas incluyen ambos extremos.
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UserSearchRequestDTO {
+
+    // Prefijo del nombre, distingue mayúsculas
+    private String name;
+
+    // Dominio del email, sin distinguir mayúsculas
+    private String emailDomain;
+
+    private Boolean isActive;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate createdFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate createdTo;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate modifiedFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate modifiedTo;
+
+    // Código de país y de ciudad de alguno de los teléfonos del usuario
+    private String countryCode;
+
+    private String cityCode;
+}
@@ -0,0 +1,25 @@
+package com.exam.nisum.user.api.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Clase DTO, encargada de tener el reporte de la importación masiva
+ * de usuarios, con el resultado de cada fila.
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class BulkImportResponseDTO {
+
+    private int created;
+    private int rejected;
+    private List<BulkUserResultDTO> results;
+}
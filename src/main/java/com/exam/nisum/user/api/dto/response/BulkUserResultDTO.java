@@ -0,0 +1,36 @@
+package com.exam.nisum.user.api.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Clase DTO, encargada de tener el resultado de una fila
+ * de la importación masiva de usuarios.
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class BulkUserResultDTO {
+
+    /**
+     * Estado final de una fila importada.
+     */
+    public enum Status {
+        CREATED,
+        INVALID,
+        DUPLICATE
+    }
+
+    private int index;
+    private String email;
+    private Status status;
+    private UUID id;
+    private String message;
+}
@@ -1,6 +1,7 @@
 package com.exam.nisum.user.api.dto.response;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,4 +20,8 @@ public class PhoneResponseDTO {
     private String number;
     private String citycode;
     private String countrycode;
+
+    // Usuario al que pertenece el teléfono, usado para agruparlos en el listado; no se entrega en el cuerpo
+    @JsonIgnore
+    private String userId;
 }
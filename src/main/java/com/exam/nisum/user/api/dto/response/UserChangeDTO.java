@@ -0,0 +1,29 @@
+package com.exam.nisum.user.api.dto.response;
+
+
+import com.exam.nisum.user.api.outbox.UserChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clase DTO, encargada de tener un cambio de usuario publicado por el outbox.
+ * Solo identifica al usuario y su versión; los datos se obtienen con GET /nisum/api/users/{id}.
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UserChangeDTO {
+
+    // Posición consecutiva del cambio, es el cursor del feed de cambios
+    private Long position;
+    private UserChangeType type;
+    private String userId;
+    private Long version;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,24 @@
+package com.exam.nisum.user.api.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Clase DTO, encargada de tener una página del feed de cambios de usuarios
+ * junto con el cursor para pedir los cambios siguientes.
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UserChangePageResponseDTO {
+
+    private List<UserChangeDTO> changes;
+    private String nextCursor;
+}
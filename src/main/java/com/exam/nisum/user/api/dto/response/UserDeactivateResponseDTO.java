@@ -0,0 +1,21 @@
+package com.exam.nisum.user.api.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Clase DTO, encargada de tener el resultado de una baja masiva de usuarios.
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UserDeactivateResponseDTO {
+
+    // Usuarios dados de baja; no incluye los que ya estaban inactivos
+    private int deactivated;
+}
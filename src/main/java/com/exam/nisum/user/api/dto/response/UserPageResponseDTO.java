@@ -0,0 +1,24 @@
+package com.exam.nisum.user.api.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Clase DTO, encargada de tener una página de usuarios
+ * junto con el cursor para pedir la página siguiente.
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UserPageResponseDTO {
+
+    private List<UserResponseDTO> users;
+    private String nextCursor;
+}
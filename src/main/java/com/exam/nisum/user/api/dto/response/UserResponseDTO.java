@@ -1,12 +1,14 @@
 package com.exam.nisum.user.api.dto.response;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -31,4 +33,26 @@ public class UserResponseDTO {
     private LocalDate lastLogin;
     private String token;
     private Boolean isActive;
+
+    // Se entrega en el header ETag y no en el cuerpo
+    @JsonIgnore
+    private Long version;
+
+    /**
+     * Constructor usado por las consultas de proyección del listado, que leen solo las columnas de la respuesta
+     * (sin la contraseña). Los teléfonos se agregan después a la lista vacía.
+     */
+    public UserResponseDTO(String id, String name, String email, LocalDate created, LocalDate modified,
+                           LocalDate lastLogin, String token, Boolean isActive, Long version) {
+        this.id = UUID.fromString(id);
+        this.name = name;
+        this.email = email;
+        this.phones = new ArrayList<>();
+        this.created = created;
+        this.modified = modified;
+        this.lastLogin = lastLogin != null ? lastLogin : created;
+        this.token = token;
+        this.isActive = isActive != null && isActive;
+        this.version = version;
+    }
 }
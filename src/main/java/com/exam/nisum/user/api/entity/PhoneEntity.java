@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
 import javax.persistence.*;
+import java.time.LocalDate;
 
 /**
  * Clase que representa la entidad phone en la base de datos.
@@ -19,8 +20,13 @@ import javax.persistence.*;
 public class PhoneEntity {
 
 
+    // Ids que reserva cada valor de phone_seq, igual al INCREMENT BY de la secuencia
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Secuencia con bloques de ids para que Hibernate pueda agrupar los inserts en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "phone_seq")
+    @SequenceGenerator(name = "phone_seq", sequenceName = "phone_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "number")
@@ -35,4 +41,17 @@ public class PhoneEntity {
     @ManyToOne(targetEntity = UserEntity.class)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private UserEntity user;
+
+    // Fecha de creación del usuario, para buscar por país o ciudad en el orden de la paginación
+    @Column(name = "user_created")
+    private LocalDate userCreated;
+
+
+    /**
+     * Copia la fecha de creación del usuario antes de insertar el teléfono; no cambia después.
+     */
+    @PrePersist
+    void syncUserCreated() {
+        userCreated = user != null ? user.getCreated() : null;
+    }
 }
@@ -4,23 +4,36 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Clase que representa la entidad User en la base de datos.
+ * Los UPDATE incluyen solo las columnas modificadas.
  */
 @Getter
 @Setter
 @AllArgsConstructor
 @RequiredArgsConstructor
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+@Table(name = "users", indexes = {
+        @Index(name = UserEntity.EMAIL_UNIQUE_INDEX, columnList = "email_normalized", unique = true),
+        @Index(name = UserEntity.TOKEN_UNIQUE_INDEX, columnList = "token", unique = true)
+})
 public class UserEntity {
 
+    // Índice único que garantiza que un email (sin distinguir mayúsculas) se registre una sola vez
+    public static final String EMAIL_UNIQUE_INDEX = "ux_users_email_normalized";
+
+    // Índice único para buscar un usuario por su token sin recorrer la tabla
+    public static final String TOKEN_UNIQUE_INDEX = "ux_users_token";
+
     @Id
     private String id;
 
@@ -30,6 +43,13 @@ public class UserEntity {
     @Column(name = "email")
     private String email;
 
+    @Column(name = "email_normalized", nullable = false)
+    private String emailNormalized;
+
+    // Parte del email normalizado después de la @, para la búsqueda por dominio
+    @Column(name = "email_domain")
+    private String emailDomain;
+
     @Column(name = "password")
     private String password;
 
@@ -45,10 +65,47 @@ public class UserEntity {
     @Column(name = "token")
     private String token;
 
-    @Column(name = "is_active")
+    // false después de una baja lógica; la fila se conserva pero el usuario deja de listarse
+    @Column(name = "is_active", nullable = false)
     private Boolean isActive;
 
+    // Versión del registro, se incrementa en cada actualización y se usa como ETag del usuario
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PhoneEntity> phones = new ArrayList<>();
 
+
+    /**
+     * Mantiene el email normalizado y su dominio sincronizados con el email antes de insertar o actualizar.
+     */
+    @PrePersist
+    @PreUpdate
+    void syncEmailNormalized() {
+        emailNormalized = normalizeEmail(email);
+        emailDomain = emailDomain(email);
+    }
+
+    /**
+     * Normaliza un email para buscarlo y compararlo sin distinguir mayúsculas.
+     *
+     * @param email email a normalizar
+     * @return email en minúsculas y sin espacios al inicio y al final, o null si es null.
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Obtiene el dominio de un email, normalizado igual que el email.
+     *
+     * @param email email del usuario
+     * @return la parte del email normalizado después de la primera @, o null si es null.
+     */
+    public static String emailDomain(String email) {
+        String normalized = normalizeEmail(email);
+        return normalized == null ? null : normalized.substring(normalized.indexOf('@') + 1);
+    }
 }
@@ -0,0 +1,198 @@
+package com.exam.nisum.user.api.idempotency;
+
+import com.exam.nisum.user.api.config.IdempotencyProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Respuestas recordadas por clave de idempotencia (header Idempotency-Key), en un cache en memoria con
+ * expiración. La primera petición con una clave ejecuta la operación y guarda su respuesta; los
+ * reintentos con la misma clave reciben esa respuesta sin volver a validar, calcular el hash ni insertar,
+ * y los duplicados que llegan mientras la primera sigue en curso esperan su resultado en vez de ejecutarla
+ * otra vez. Si la operación falla la clave se libera, para que el cliente pueda reintentar.
+ * Una clave solo se acepta con el mismo cuerpo de la petición original, que se compara por un hash SHA-256
+ * para no guardar la contraseña en memoria.
+ * Las claves solo se descartan al expirar, nunca por tamaño: un cache acotado por tamaño puede descartar una clave
+ * recién agregada mientras su petición sigue en curso, y su reintento volvería a crear el usuario. Cuando hay
+ * nisum.idempotency.maximum-size claves vigentes, las claves nuevas se rechazan con 503 hasta que expiren otras.
+ */
+@Component
+public class IdempotencyStore {
+
+    // Header con la clave de idempotencia enviada por el cliente
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    // Header que indica que la respuesta es la guardada de una petición anterior
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String REQUESTS_COUNTER = "nisum.idempotency.requests";
+
+    private ObjectMapper objectMapper;
+
+    private IdempotencyProperties properties;
+
+    // Clave de idempotencia -> ejecución en curso o terminada
+    private Cache<String, Execution> executions;
+
+    private Counter executed;
+
+    private Counter replayed;
+
+    private Counter coalesced;
+
+    private Counter conflicts;
+
+    private Counter rejected;
+
+    public IdempotencyStore(ObjectMapper objectMapper, IdempotencyProperties properties, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.executions = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .<String, Execution>build(), "idempotency");
+        this.executed = requestsCounter(meterRegistry, "executed");
+        this.replayed = requestsCounter(meterRegistry, "replayed");
+        this.coalesced = requestsCounter(meterRegistry, "coalesced");
+        this.conflicts = requestsCounter(meterRegistry, "conflict");
+        this.rejected = requestsCounter(meterRegistry, "rejected");
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por clave de idempotencia.
+     *
+     * @param key     valor del header Idempotency-Key
+     * @param request cuerpo de la petición, para verificar que los reintentos envían lo mismo
+     * @param action  operación a ejecutar si la clave es nueva
+     * @return la respuesta de la operación, indicando si es la guardada de una petición anterior.
+     * @throws ResponseStatusException 503 si la clave es nueva y el almacén está lleno
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> execute(String key, Object request, Supplier<T> action) {
+        checkKey(key);
+        Execution execution = new Execution(fingerprint(request));
+        Execution previous = executions.getIfPresent(key);
+        if (previous == null) {
+            checkCapacity();
+            previous = executions.asMap().putIfAbsent(key, execution);
+        }
+        if (previous == null) {
+            executed.increment();
+            return new Result<>(run(key, execution, action), false);
+        }
+
+        if (!previous.fingerprint.equals(execution.fingerprint)) {
+            conflicts.increment();
+            throw new ResponseStatusException(
+                    HttpStatus.UNPROCESSABLE_ENTITY,
+                    "La clave " + IDEMPOTENCY_KEY_HEADER + " ya se usó con otra petición");
+        }
+        (previous.response.isDone() ? replayed : coalesced).increment();
+        try {
+            return new Result<>((T) previous.response.join(), true);
+        } catch (CompletionException e) {
+            // Los duplicados en curso reciben el mismo error que la petición original
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private <T> T run(String key, Execution execution, Supplier<T> action) {
+        try {
+            T response = action.get();
+            execution.response.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            executions.asMap().remove(key, execution);
+            execution.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // El límite es aproximado: peticiones concurrentes pueden superarlo por la cantidad de hilos que atienden
+    private void checkCapacity() {
+        if (executions.estimatedSize() < properties.getMaximumSize()) {
+            return;
+        }
+        // Descarta las claves expiradas antes de rechazar
+        executions.cleanUp();
+        if (executions.estimatedSize() >= properties.getMaximumSize()) {
+            rejected.increment();
+            throw new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    "No se pueden recibir más claves " + IDEMPOTENCY_KEY_HEADER + ", intente nuevamente más tarde");
+        }
+    }
+
+    private void checkKey(String key) {
+        if (key.isBlank() || key.length() > properties.getMaxKeyLength()) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "El header " + IDEMPOTENCY_KEY_HEADER + " debe tener entre 1 y "
+                            + properties.getMaxKeyLength() + " caracteres");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular el hash de la petición", e);
+        }
+    }
+
+    private static Counter requestsCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(REQUESTS_COUNTER)
+                .description("Peticiones con clave de idempotencia: nuevas, respondidas con la respuesta guardada,"
+                        + " que esperaron a la original en curso, que reutilizaron la clave con otra petición o"
+                        + " rechazadas por almacén lleno")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Respuesta de una operación idempotente.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Result<T> {
+
+        private T response;
+
+        // true si la respuesta es la guardada de una petición anterior con la misma clave
+        private boolean replayed;
+    }
+
+    private static class Execution {
+
+        private String fingerprint;
+
+        private CompletableFuture<Object> response = new CompletableFuture<>();
+
+        Execution(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
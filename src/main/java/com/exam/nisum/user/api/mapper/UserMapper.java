@@ -1,11 +1,16 @@
 package com.exam.nisum.user.api.mapper;
 
+import com.exam.nisum.user.api.dto.response.PhoneResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
 import com.exam.nisum.user.api.entity.PhoneEntity;
 import com.exam.nisum.user.api.entity.UserEntity;
 import com.exam.nisum.user.api.model.Phone;
 import com.exam.nisum.user.api.model.User;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -31,17 +36,51 @@ public class UserMapper {
                                 Phone.builder()
                                         .number(phoneEntity.getNumber())
                                         .citycode(phoneEntity.getCityCode())
-                                        .countrycode(phoneEntity.getCityCode()).build())
+                                        .countrycode(phoneEntity.getCountryCode()).build())
                         .collect(Collectors.toList()))
                 .created(userEntity.getCreated())
                 .modified(userEntity.getModified())
                 .lastLogin(userEntity.getLastLogin())
-                .isActive(userEntity.getIsActive() == null ? Boolean.FALSE : Boolean.TRUE)
+                .isActive(Boolean.TRUE.equals(userEntity.getIsActive()))
                 .token(userEntity.getToken())
+                .version(userEntity.getVersion())
                 .build();
 
     }
 
+    /**
+     * Crea una respuesta de usuario a partir del modelo de usuario.
+     *
+     * @param user modelo de usuario
+     * @return UserResponseDTO DTO de respuesta de usuario
+     */
+    public static UserResponseDTO toUserResponse(User user) {
+        List<PhoneResponseDTO> phones = new ArrayList<>();
+        if (user.getPhones() != null) {
+            user.getPhones().forEach(p -> {
+                phones.add(PhoneResponseDTO.builder()
+                        .number(p.getNumber())
+                        .citycode(p.getCitycode())
+                        .countrycode(p.getCountrycode())
+                        .build());
+            });
+        }
+
+        return UserResponseDTO.builder()
+                .id(UUID.fromString(user.getId()))
+                .name(user.getName())
+                .email(user.getEmail())
+                .password(user.getPassword())
+                .phones(phones)
+                .created(user.getCreated())
+                .modified(user.getModified())
+                .lastLogin(user.getLastLogin() != null ? user.getLastLogin() : user.getCreated())
+                .token(user.getToken())
+                .isActive(user.getIsActive() != null && user.getIsActive())
+                .version(user.getVersion())
+                .build();
+    }
+
     /**
      * Convierte un User en un UserEntity
      *
@@ -58,7 +97,9 @@ public class UserMapper {
         userEntity.setModified(user.getModified());
         userEntity.setLastLogin(user.getLastLogin());
         userEntity.setToken(user.getToken());
-        userEntity.setIsActive(user.getIsActive() == null ? Boolean.TRUE : Boolean.FALSE);
+        // Un usuario nuevo queda activo si no se indica otro estado
+        userEntity.setIsActive(user.getIsActive() == null ? Boolean.TRUE : user.getIsActive());
+        userEntity.setVersion(user.getVersion());
         return userEntity;
     }
 
@@ -0,0 +1,90 @@
+package com.exam.nisum.user.api.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener de datasource-proxy que registra la duración de cada sentencia JDBC en el timer
+ * nisum.jdbc.statements, con el tag type (select, insert, update, delete u other), y la suma a las
+ * estadísticas de la petición HTTP en curso (ver JdbcRequestStatistics).
+ * La duración se mide con System.nanoTime, ya que la de datasource-proxy tiene resolución de milisegundos.
+ * Los timers se registran cuando Spring Boot vincula el listener al registro de métricas (MeterBinder),
+ * ya que el registro depende del DataSource; las sentencias ejecutadas antes de eso no se miden.
+ */
+public class JdbcMetricsListener implements QueryExecutionListener, MeterBinder {
+
+    public static final String STATEMENT_TIMER = "nisum.jdbc.statements";
+
+    private static final String START_NANOS = JdbcMetricsListener.class.getName() + ".start";
+
+    // Timers por tipo de sentencia, null hasta que el listener se vincula al registro de métricas
+    private volatile Map<QueryType, Timer> timers;
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Map<QueryType, Timer> typeTimers = new EnumMap<>(QueryType.class);
+        for (QueryType type : QueryType.values()) {
+            typeTimers.put(type, Timer.builder(STATEMENT_TIMER)
+                    .description("Tiempo de ejecución de las sentencias JDBC")
+                    .tag("type", type.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.timers = typeTimers;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Map<QueryType, Timer> typeTimers = timers;
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (typeTimers == null || start == null) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        // Un batch de Statement puede mezclar sentencias de distinto tipo
+        QueryType type = queryInfoList.size() == 1 ? queryType(queryInfoList.get(0).getQuery()) : QueryType.OTHER;
+        typeTimers.get(type).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        JdbcRequestStatistics.record(elapsedNanos);
+    }
+
+    /**
+     * Obtiene el tipo de la sentencia por su primera palabra. Reemplaza a QueryUtils.getQueryType, que quita
+     * los comentarios con expresiones regulares en cada sentencia; Hibernate no agrega comentarios por defecto.
+     *
+     * @param query sentencia SQL
+     * @return tipo de la sentencia, u OTHER si no empieza con select, insert, update o delete.
+     */
+    static QueryType queryType(String query) {
+        int start = 0;
+        while (start < query.length() && Character.isWhitespace(query.charAt(start))) {
+            start++;
+        }
+        if (query.regionMatches(true, start, "select", 0, 6)) {
+            return QueryType.SELECT;
+        }
+        if (query.regionMatches(true, start, "insert", 0, 6)) {
+            return QueryType.INSERT;
+        }
+        if (query.regionMatches(true, start, "update", 0, 6)) {
+            return QueryType.UPDATE;
+        }
+        if (query.regionMatches(true, start, "delete", 0, 6)) {
+            return QueryType.DELETE;
+        }
+        return QueryType.OTHER;
+    }
+}
@@ -0,0 +1,61 @@
+package com.exam.nisum.user.api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtro que registra, por cada petición HTTP, la cantidad de sentencias JDBC
+ * (nisum.jdbc.request.statements) y su tiempo total (nisum.jdbc.request.time), con los tags method y uri
+ * (el patrón del endpoint, igual que http.server.requests). Las peticiones a /actuator no se miden.
+ */
+public class JdbcRequestMetricsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_SUMMARY = "nisum.jdbc.request.statements";
+    public static final String TIME_TIMER = "nisum.jdbc.request.time";
+
+    private MeterRegistry meterRegistry;
+
+    public JdbcRequestMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        JdbcRequestStatistics statistics = JdbcRequestStatistics.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            JdbcRequestStatistics.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder(STATEMENTS_SUMMARY)
+                    .description("Sentencias JDBC ejecutadas por petición")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statistics.getStatements());
+            Timer.builder(TIME_TIMER)
+                    .description("Tiempo total de las sentencias JDBC de una petición")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.exam.nisum.user.api.metrics;
+
+/**
+ * Cantidad y tiempo total de las sentencias JDBC ejecutadas por el hilo actual mientras atiende una petición.
+ * JdbcRequestMetricsFilter abre las estadísticas al iniciar la petición y las cierra al terminar;
+ * las sentencias ejecutadas fuera de una petición (tareas de inicio, streaming asíncrono) no se acumulan.
+ */
+public final class JdbcRequestStatistics {
+
+    private static final ThreadLocal<JdbcRequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+
+    private long nanos;
+
+    private JdbcRequestStatistics() {
+    }
+
+    /**
+     * Abre las estadísticas de la petición atendida por el hilo actual.
+     *
+     * @return estadísticas vacías de la petición.
+     */
+    public static JdbcRequestStatistics start() {
+        JdbcRequestStatistics statistics = new JdbcRequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Cierra las estadísticas del hilo actual; las sentencias siguientes ya no se acumulan.
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Acumula una sentencia en la petición del hilo actual, si hay una.
+     *
+     * @param elapsedNanos duración de la sentencia
+     */
+    static void record(long elapsedNanos) {
+        JdbcRequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+            statistics.nanos += elapsedNanos;
+        }
+    }
+
+    /**
+     * @return cantidad de sentencias ejecutadas.
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return tiempo total de las sentencias, en nanosegundos.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+}
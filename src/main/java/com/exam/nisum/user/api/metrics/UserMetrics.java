@@ -0,0 +1,147 @@
+package com.exam.nisum.user.api.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers de cada etapa de las operaciones de escritura de UserService (nisum.user.stage, con los tags
+ * operation y stage) y contador de emails duplicados rechazados (nisum.user.duplicate.emails, con el tag
+ * source). Los timers se registran una sola vez al crear el componente, así medir una etapa no busca
+ * el meter en el registro.
+ */
+@Component
+public class UserMetrics {
+
+    public static final String STAGE_TIMER = "nisum.user.stage";
+    public static final String DUPLICATE_EMAIL_COUNTER = "nisum.user.duplicate.emails";
+
+    /**
+     * Operaciones de escritura instrumentadas.
+     */
+    public enum Operation {
+        CREATE("create"),
+        UPDATE("update"),
+        PATCH("patch");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Valor del tag operation.
+         *
+         * @return nombre de la operación.
+         */
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    /**
+     * Etapas de una operación de escritura.
+     */
+    public enum Stage {
+        // Reglas de formato de email, contraseña y teléfonos
+        VALIDATION("validation"),
+        // Búsqueda del usuario o verificación de email duplicado
+        LOOKUP("lookup"),
+        PASSWORD_ENCODING("password_encoding"),
+        // Escritura en la base de datos, incluido el flush
+        SAVE("save"),
+        // Conversión entre modelo, entidad y DTO de respuesta
+        MAPPING("mapping");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Valor del tag stage.
+         *
+         * @return nombre de la etapa.
+         */
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    // Timers indexados por [operación][etapa]
+    private Timer[][] timers;
+
+    private Counter duplicateEmailsFromCache;
+
+    private Counter duplicateEmailsFromIndex;
+
+    public UserMetrics(MeterRegistry meterRegistry) {
+        this.timers = new Timer[Operation.values().length][Stage.values().length];
+        for (Operation operation : Operation.values()) {
+            for (Stage stage : Stage.values()) {
+                timers[operation.ordinal()][stage.ordinal()] = Timer.builder(STAGE_TIMER)
+                        .description("Tiempo de cada etapa de las operaciones de escritura de usuarios")
+                        .tag("operation", operation.getTag())
+                        .tag("stage", stage.getTag())
+                        .register(meterRegistry);
+            }
+        }
+        this.duplicateEmailsFromCache = duplicateEmailCounter(meterRegistry, "cache");
+        this.duplicateEmailsFromIndex = duplicateEmailCounter(meterRegistry, "index");
+    }
+
+    /**
+     * Ejecuta una etapa y registra su duración, aunque termine con una excepción.
+     *
+     * @param operation operación a la que pertenece la etapa
+     * @param stage     etapa ejecutada
+     * @param action    código de la etapa
+     * @return el resultado de la etapa.
+     */
+    public <T> T record(Operation operation, Stage stage, Supplier<T> action) {
+        return timer(operation, stage).record(action);
+    }
+
+    /**
+     * Ejecuta una etapa sin resultado y registra su duración, aunque termine con una excepción.
+     *
+     * @param operation operación a la que pertenece la etapa
+     * @param stage     etapa ejecutada
+     * @param action    código de la etapa
+     */
+    public void record(Operation operation, Stage stage, Runnable action) {
+        timer(operation, stage).record(action);
+    }
+
+    /**
+     * Cuenta un email duplicado rechazado al crear un usuario.
+     *
+     * @param fromCache true si lo detectó el cache, false si lo detectó el índice único de la base de datos
+     */
+    public void duplicateEmail(boolean fromCache) {
+        (fromCache ? duplicateEmailsFromCache : duplicateEmailsFromIndex).increment();
+    }
+
+    /**
+     * Timer de una etapa, registrado al crear el componente.
+     *
+     * @param operation operación a la que pertenece la etapa
+     * @param stage     etapa
+     * @return el timer de la etapa.
+     */
+    public Timer timer(Operation operation, Stage stage) {
+        return timers[operation.ordinal()][stage.ordinal()];
+    }
+
+    private static Counter duplicateEmailCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder(DUPLICATE_EMAIL_COUNTER)
+                .description("Emails duplicados rechazados al crear usuarios")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
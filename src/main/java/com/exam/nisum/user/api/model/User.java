@@ -27,4 +27,5 @@ public class User {
     private LocalDate lastLogin;
     private String token;
     private Boolean isActive;
+    private Long version;
 }
@@ -0,0 +1,58 @@
+package com.exam.nisum.user.api.outbox;
+
+import com.exam.nisum.user.api.dto.response.UserChangeDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Publicación en un archivo local, en reemplazo de un broker: agrega cada cambio como una línea JSON (NDJSON)
+ * y fuerza el bloque completo a disco antes de que el relay lo marque como publicado.
+ */
+public class FileUserChangeSink implements UserChangeSink {
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private Path file;
+
+    private ObjectWriter writer;
+
+    public FileUserChangeSink(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.writer = objectMapper.writerFor(UserChangeDTO.class);
+    }
+
+    @Override
+    public void publish(List<UserChangeDTO> changes) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            ByteArrayOutputStream block = new ByteArrayOutputStream(changes.size() * 160);
+            for (UserChangeDTO change : changes) {
+                block.write(writer.writeValueAsBytes(change));
+                block.write(NEW_LINE);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(block.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudieron publicar los cambios en " + file, e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.exam.nisum.user.api.outbox;
+
+import com.exam.nisum.user.api.dto.response.UserChangeDTO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Publicación en memoria, en reemplazo de un broker para desarrollo y pruebas: conserva los últimos cambios
+ * publicados hasta la capacidad indicada.
+ */
+public class InMemoryUserChangeSink implements UserChangeSink {
+
+    private int capacity;
+
+    private Deque<UserChangeDTO> changes = new ArrayDeque<>();
+
+    public InMemoryUserChangeSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<UserChangeDTO> published) {
+        for (UserChangeDTO change : published) {
+            if (changes.size() == capacity) {
+                changes.removeFirst();
+            }
+            changes.addLast(change);
+        }
+    }
+
+    /**
+     * Obtiene los últimos cambios publicados.
+     *
+     * @return copia de los cambios, en el orden de publicación.
+     */
+    public synchronized List<UserChangeDTO> getChanges() {
+        return new ArrayList<>(changes);
+    }
+}
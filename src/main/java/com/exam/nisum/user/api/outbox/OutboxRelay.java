@@ -0,0 +1,189 @@
+package com.exam.nisum.user.api.outbox;
+
+import com.exam.nisum.user.api.config.OutboxProperties;
+import com.exam.nisum.user.api.dto.response.UserChangeDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publica en segundo plano los cambios pendientes del outbox. Cada nisum.outbox.poll-interval lee los cambios
+ * confirmados que aún no se publican, en bloques de nisum.outbox.batch-size, los entrega a UserChangeSink con
+ * posiciones consecutivas y, solo después de publicarlos, los marca con esas posiciones. Si la publicación o la
+ * marca fallan, el bloque se reintenta en la siguiente revisión con las mismas posiciones.
+ * Las posiciones se asignan en un solo hilo y en el orden en que se publican, por eso el feed de cambios no tiene
+ * huecos aunque las transacciones se confirmen en otro orden que el de sus ids. Supone una sola instancia
+ * publicando sobre la misma base de datos.
+ * También elimina cada nisum.outbox.purge-interval los cambios publicados más antiguos que nisum.outbox.retention.
+ */
+@Slf4j
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    /**
+     * Fase menor que la del servidor web: al cerrar, la última publicación se ejecuta cuando ya no se atienden
+     * peticiones y antes de cerrar el DataSource.
+     */
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+    private UserOutbox userOutbox;
+
+    private UserChangeSink userChangeSink;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TaskScheduler taskScheduler;
+
+    private OutboxProperties properties;
+
+    // Evita que la revisión programada y una llamada directa (por ejemplo al detener) publiquen a la vez
+    private ReentrantLock relayLock = new ReentrantLock();
+
+    // Posición del próximo cambio publicado; 0 hasta leer la última posición de la base de datos
+    private long nextPosition;
+
+    private volatile ScheduledFuture<?> scheduledRelay;
+
+    private volatile ScheduledFuture<?> scheduledPurge;
+
+    private Counter published;
+
+    private Counter purged;
+
+    private Timer relayTimer;
+
+    public OutboxRelay(UserOutbox userOutbox, UserChangeSink userChangeSink, TransactionTemplate transactionTemplate,
+                       TaskScheduler taskScheduler, OutboxProperties properties, MeterRegistry meterRegistry) {
+        this.userOutbox = userOutbox;
+        this.userChangeSink = userChangeSink;
+        this.transactionTemplate = transactionTemplate;
+        this.taskScheduler = taskScheduler;
+        this.properties = properties;
+        this.published = Counter.builder("nisum.outbox.published")
+                .description("Cambios de usuarios publicados desde el outbox")
+                .register(meterRegistry);
+        this.purged = Counter.builder("nisum.outbox.purged")
+                .description("Cambios publicados eliminados del outbox por la retención")
+                .register(meterRegistry);
+        this.relayTimer = Timer.builder("nisum.outbox.relay")
+                .description("Tiempo de cada bloque publicado desde el outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publica todos los cambios pendientes, bloque por bloque. Si un bloque falla, se detiene y lo reintenta en
+     * la siguiente revisión.
+     *
+     * @return cantidad de cambios publicados antes de terminar o de que un bloque falle.
+     */
+    public int relay() {
+        relayLock.lock();
+        int total = 0;
+        try {
+            if (nextPosition == 0) {
+                nextPosition = userOutbox.lastPosition() + 1;
+            }
+            while (true) {
+                int count = relayTimer.record(this::relayBatch);
+                total += count;
+                if (count < properties.getBatchSize()) {
+                    return total;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron publicar los cambios de usuarios del outbox", e);
+            return total;
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    private int relayBatch() {
+        List<UserOutbox.Pending> pending = userOutbox.findPending(properties.getBatchSize());
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<UserChangeDTO> changes = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            changes.add(pending.get(i).getChange().toBuilder().position(nextPosition + i).build());
+        }
+        userChangeSink.publish(changes);
+        transactionTemplate.executeWithoutResult(status -> userOutbox.markPublished(pending, nextPosition));
+        nextPosition += pending.size();
+        published.increment(pending.size());
+        return pending.size();
+    }
+
+    /**
+     * Elimina los cambios publicados más antiguos que la retención.
+     *
+     * @return cantidad de cambios eliminados.
+     */
+    public int purge() {
+        relayLock.lock();
+        try {
+            if (nextPosition == 0) {
+                return 0;
+            }
+            int deleted = userOutbox.purgePublishedBefore(LocalDateTime.now().minus(properties.getRetention()),
+                    nextPosition - 1);
+            purged.increment(deleted);
+            if (deleted > 0) {
+                log.info("{} cambios de usuarios eliminados del outbox por la retención", deleted);
+            }
+            return deleted;
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron eliminar los cambios antiguos del outbox", e);
+            return 0;
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    /**
+     * Programa la publicación periódica y la eliminación de cambios antiguos al iniciar la aplicación.
+     */
+    @Override
+    public void start() {
+        scheduledRelay = taskScheduler.scheduleWithFixedDelay(this::relay, properties.getPollInterval());
+        scheduledPurge = taskScheduler.scheduleWithFixedDelay(this::purge, properties.getPurgeInterval());
+    }
+
+    /**
+     * Cancela las tareas programadas y publica los cambios pendientes. Los que no se alcancen a publicar quedan
+     * en la tabla y se publican al volver a iniciar.
+     */
+    @Override
+    public void stop() {
+        for (ScheduledFuture<?> task : new ScheduledFuture<?>[]{scheduledRelay, scheduledPurge}) {
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+        scheduledRelay = null;
+        scheduledPurge = null;
+        int count = relay();
+        log.info("Publicación del outbox detenida, {} cambios publicados al cerrar", count);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduledRelay != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
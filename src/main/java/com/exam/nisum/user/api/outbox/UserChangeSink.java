@@ -0,0 +1,21 @@
+package com.exam.nisum.user.api.outbox;
+
+import com.exam.nisum.user.api.dto.response.UserChangeDTO;
+
+import java.util.List;
+
+/**
+ * Destino de los cambios de usuarios publicados por OutboxRelay, por ejemplo un broker de mensajes.
+ * La entrega es al menos una vez: si la publicación falla o la aplicación se detiene antes de marcar los cambios
+ * como publicados, se vuelven a publicar con las mismas posiciones, así el consumidor puede descartar repetidos.
+ */
+public interface UserChangeSink {
+
+    /**
+     * Publica un bloque de cambios, en el orden de sus posiciones. Si lanza una excepción el bloque completo
+     * se reintenta en la siguiente revisión.
+     *
+     * @param changes cambios a publicar
+     */
+    void publish(List<UserChangeDTO> changes);
+}
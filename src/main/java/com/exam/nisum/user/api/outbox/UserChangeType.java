@@ -0,0 +1,11 @@
+package com.exam.nisum.user.api.outbox;
+
+/**
+ * Tipos de cambio de un usuario que se publican desde el outbox.
+ */
+public enum UserChangeType {
+    CREATED,
+    UPDATED,
+    // Baja lógica, el usuario se conserva con is_active en false
+    DEACTIVATED
+}
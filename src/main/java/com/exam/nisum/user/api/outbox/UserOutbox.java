@@ -0,0 +1,180 @@
+package com.exam.nisum.user.api.outbox;
+
+import com.exam.nisum.user.api.dto.response.UserChangeDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Tabla user_outbox: los servicios agregan un cambio en la misma transacción en que modifican al usuario,
+ * así un cambio se publica si y solo si la transacción se confirma. OutboxRelay publica los pendientes y les
+ * asigna su posición, y el feed de cambios lee los publicados por posición.
+ */
+@Component
+public class UserOutbox {
+
+    private static final String INSERT_SQL = "insert into user_outbox"
+            + " (user_id, change_type, user_version, occurred_at) values (?, ?, ?, ?)";
+
+    private static final String PENDING_SQL = "select id, user_id, change_type, user_version, occurred_at"
+            + " from user_outbox where position is null order by id limit ?";
+
+    private static final String MARK_PUBLISHED_SQL = "update user_outbox set position = ? where id = ?";
+
+    private static final String PUBLISHED_AFTER_SQL = "select position, user_id, change_type, user_version,"
+            + " occurred_at from user_outbox where position > ? order by position limit ?";
+
+    private JdbcTemplate jdbcTemplate;
+
+    public UserOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Agrega el cambio de un usuario. Debe llamarse dentro de la transacción que modifica al usuario.
+     *
+     * @param type    tipo de cambio
+     * @param userId  id del usuario
+     * @param version versión del usuario después del cambio
+     */
+    public void record(UserChangeType type, String userId, Long version) {
+        jdbcTemplate.update(INSERT_SQL, userId, type.name(), version, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Agrega el mismo tipo de cambio para varios usuarios con un solo lote JDBC, por ejemplo los creados
+     * en una importación masiva. Debe llamarse dentro de la transacción que modifica a los usuarios.
+     *
+     * @param type    tipo de cambio
+     * @param userIds ids de los usuarios
+     * @param version versión de los usuarios después del cambio
+     */
+    public void recordAll(UserChangeType type, Collection<String> userIds, long version) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, userIds.stream()
+                .map(userId -> new Object[]{userId, type.name(), version, now})
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Agrega el mismo tipo de cambio para varios usuarios con su versión actual, con una sola sentencia
+     * INSERT ... SELECT, por ejemplo después de modificarlos con un UPDATE masivo. Debe llamarse dentro
+     * de la transacción que modifica a los usuarios.
+     *
+     * @param type    tipo de cambio
+     * @param userIds ids de los usuarios modificados
+     */
+    public void recordCurrentVersions(UserChangeType type, Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String sql = "insert into user_outbox (user_id, change_type, user_version, occurred_at)"
+                + " select id, ?, version, ? from users where id in ("
+                + String.join(", ", Collections.nCopies(userIds.size(), "?")) + ")";
+        List<Object> args = new ArrayList<>(userIds.size() + 2);
+        args.add(type.name());
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.addAll(userIds);
+        jdbcTemplate.update(sql, args.toArray());
+    }
+
+    /**
+     * Obtiene los cambios confirmados que aún no se publican, en el orden en que se agregaron.
+     *
+     * @param limit cantidad máxima de cambios
+     * @return cambios pendientes, sin posición.
+     */
+    public List<Pending> findPending(int limit) {
+        return jdbcTemplate.query(PENDING_SQL, (rs, rowNum) -> new Pending(rs.getLong("id"), UserChangeDTO.builder()
+                .type(UserChangeType.valueOf(rs.getString("change_type")))
+                .userId(rs.getString("user_id"))
+                .version(rs.getLong("user_version"))
+                .occurredAt(rs.getTimestamp("occurred_at").toLocalDateTime())
+                .build()), limit);
+    }
+
+    /**
+     * Marca los cambios como publicados con posiciones consecutivas.
+     *
+     * @param pending       cambios publicados, en el orden de publicación
+     * @param firstPosition posición del primer cambio
+     */
+    public void markPublished(List<Pending> pending, long firstPosition) {
+        List<Object[]> args = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            args.add(new Object[]{firstPosition + i, pending.get(i).getId()});
+        }
+        jdbcTemplate.batchUpdate(MARK_PUBLISHED_SQL, args);
+    }
+
+    /**
+     * Obtiene los cambios publicados después de una posición.
+     *
+     * @param position última posición que ya tiene el consumidor
+     * @param limit    cantidad máxima de cambios
+     * @return cambios con posición mayor, en orden de posición.
+     */
+    public List<UserChangeDTO> findPublishedAfter(long position, int limit) {
+        return jdbcTemplate.query(PUBLISHED_AFTER_SQL, (rs, rowNum) -> UserChangeDTO.builder()
+                .position(rs.getLong("position"))
+                .type(UserChangeType.valueOf(rs.getString("change_type")))
+                .userId(rs.getString("user_id"))
+                .version(rs.getLong("user_version"))
+                .occurredAt(rs.getTimestamp("occurred_at").toLocalDateTime())
+                .build(), position, limit);
+    }
+
+    /**
+     * Obtiene la primera posición que se conserva, las anteriores se eliminaron por la retención.
+     *
+     * @return la menor posición publicada, o vacío si no hay cambios publicados.
+     */
+    public Optional<Long> firstPosition() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject("select min(position) from user_outbox", Long.class));
+    }
+
+    /**
+     * Obtiene la última posición asignada.
+     *
+     * @return la mayor posición publicada, o 0 si no hay cambios publicados.
+     */
+    public long lastPosition() {
+        Long position = jdbcTemplate.queryForObject("select max(position) from user_outbox", Long.class);
+        return position != null ? position : 0;
+    }
+
+    /**
+     * Elimina los cambios publicados antes de la fecha indicada. El último cambio publicado se conserva siempre,
+     * para que las posiciones sigan desde la última asignada aunque no haya cambios recientes.
+     *
+     * @param before       fecha límite de los cambios a eliminar
+     * @param lastPosition última posición asignada, no se elimina
+     * @return cantidad de cambios eliminados.
+     */
+    public int purgePublishedBefore(LocalDateTime before, long lastPosition) {
+        return jdbcTemplate.update("delete from user_outbox where position < ? and occurred_at < ?",
+                lastPosition, Timestamp.valueOf(before));
+    }
+
+    /**
+     * Cambio pendiente de publicar, con el id de su fila.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Pending {
+
+        private long id;
+
+        private UserChangeDTO change;
+    }
+}
@@ -0,0 +1,98 @@
+package com.exam.nisum.user.api.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtro que aplica los límites de peticiones por cliente antes de que Spring MVC lea el cuerpo de la
+ * petición, así un cliente que envía demasiadas creaciones no consume CPU encriptando contraseñas.
+ * Las peticiones rechazadas reciben 429 con el header Retry-After (en segundos) y se cuentan en
+ * nisum.rate.limit.rejected, con los tags limit y client.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String REJECTED_COUNTER = "nisum.rate.limit.rejected";
+
+    private List<RateLimiter> rateLimiters;
+
+    private String clientHeader;
+
+    private MeterRegistry meterRegistry;
+
+    public RateLimitFilter(List<RateLimiter> rateLimiters, String clientHeader, MeterRegistry meterRegistry) {
+        this.rateLimiters = rateLimiters;
+        this.clientHeader = clientHeader;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = null;
+        for (RateLimiter rateLimiter : rateLimiters) {
+            if (!rateLimiter.appliesTo(request.getMethod())) {
+                continue;
+            }
+            // Ruta ya decodificada y normalizada por el contenedor, sin el context path
+            if (path == null) {
+                path = request.getPathInfo() == null ? request.getServletPath()
+                        : request.getServletPath() + request.getPathInfo();
+            }
+            if (!rateLimiter.matches(path)) {
+                continue;
+            }
+            String client = clientOf(request);
+            long waitNanos = rateLimiter.tryAcquire(client);
+            if (waitNanos > 0) {
+                Counter.builder(REJECTED_COUNTER)
+                        .description("Peticiones rechazadas por superar el límite del cliente")
+                        .tag("limit", rateLimiter.getName())
+                        .tag("client", client)
+                        .register(meterRegistry)
+                        .increment();
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds(waitNanos)));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Demasiadas peticiones, reintente más tarde");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Convierte la espera a los segundos enteros del header Retry-After, redondeando hacia arriba.
+     *
+     * @param waitNanos nanosegundos que el cliente debe esperar
+     * @return segundos a esperar, al menos 1.
+     */
+    static long retryAfterSeconds(long waitNanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return Math.max(1, (waitNanos + second - 1) / second);
+    }
+
+    /**
+     * Obtiene la clave del cliente: el header configurado si viene en la petición, o la IP.
+     *
+     * @param request petición HTTP
+     * @return clave del cliente.
+     */
+    private String clientOf(HttpServletRequest request) {
+        if (!clientHeader.isEmpty()) {
+            String client = request.getHeader(clientHeader);
+            if (client != null && !client.isEmpty()) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,175 @@
+package com.exam.nisum.user.api.ratelimit;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Límite de peticiones por cliente para un endpoint, con un token bucket por cliente.
+ * Cada bucket se guarda en un solo AtomicLong con el instante en que el bucket vuelve a estar lleno
+ * (algoritmo GCRA, equivalente a un token bucket), así una petición se admite o rechaza con un
+ * compareAndSet, sin locks y sin un hilo que recargue los buckets.
+ * Cuando se alcanza la cantidad máxima de clientes se descartan los buckets que ya se llenaron, que equivalen
+ * a un cliente nuevo; si todos siguen activos, los clientes nuevos comparten un mismo bucket.
+ */
+public class RateLimiter {
+
+    // Clave del bucket compartido por los clientes nuevos cuando no caben más
+    static final String OVERFLOW_CLIENT = "*";
+
+    private String name;
+
+    private Set<String> methods;
+
+    // Segmentos de la ruta; null en los segmentos variables ({id} o *)
+    private String[] pathSegments;
+
+    // Nanosegundos que tarda en recuperarse una petición
+    private long intervalNanos;
+
+    // Nanosegundos que tarda en recuperarse la capacidad completa
+    private long capacityNanos;
+
+    private long maxClients;
+
+    private LongSupplier clock;
+
+    // Cliente -> instante (System.nanoTime) en que su bucket vuelve a estar lleno
+    private Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    // Instante de la última limpieza de buckets llenos, para no recorrer el mapa en cada cliente nuevo
+    private AtomicLong lastSweep;
+
+    public RateLimiter(String name, Set<String> methods, String path, int capacity, double refillPerSecond,
+                       long maxClients) {
+        this(name, methods, path, capacity, refillPerSecond, maxClients, System::nanoTime);
+    }
+
+    RateLimiter(String name, Set<String> methods, String path, int capacity, double refillPerSecond,
+                long maxClients, LongSupplier clock) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("El límite " + name + " debe tener capacity y refill-per-second"
+                    + " mayores a 0");
+        }
+        this.name = name;
+        this.methods = methods;
+        this.pathSegments = compile(path);
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.capacityNanos = intervalNanos * capacity;
+        this.maxClients = maxClients;
+        this.clock = clock;
+        this.lastSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Indica si el límite se aplica al método HTTP.
+     *
+     * @param method método HTTP de la petición
+     * @return true si el límite incluye el método.
+     */
+    public boolean appliesTo(String method) {
+        return methods.contains(method);
+    }
+
+    /**
+     * Indica si el límite se aplica a la ruta. Se compara segmento por segmento sin crear objetos, porque se
+     * evalúa en cada petición; igual que Spring MVC, se acepta una barra final.
+     *
+     * @param path ruta de la petición, sin el context path
+     * @return true si la ruta corresponde al patrón del límite.
+     */
+    public boolean matches(String path) {
+        int length = path.endsWith("/") && path.length() > 1 ? path.length() - 1 : path.length();
+        if (length == 0 || path.charAt(0) != '/') {
+            return false;
+        }
+        int start = 1;
+        for (int i = 0; i < pathSegments.length; i++) {
+            if (start > length) {
+                return false;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            String segment = pathSegments[i];
+            if (segment == null ? end == start
+                    : segment.length() != end - start || !path.startsWith(segment, start)) {
+                return false;
+            }
+            start = end + 1;
+        }
+        return start > length;
+    }
+
+    /**
+     * Consume una petición del bucket del cliente.
+     *
+     * @param client clave del cliente
+     * @return 0 si la petición se admite, o los nanosegundos que el cliente debe esperar para reintentar.
+     */
+    public long tryAcquire(String client) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = newBucket(client, now);
+        }
+        while (true) {
+            long full = bucket.get();
+            // Un bucket que se llenó en el pasado parte desde ahora; se compara por diferencia porque
+            // System.nanoTime puede ser negativo
+            long next = (full - now < 0 ? now : full) + intervalNanos;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Crea el bucket de un cliente nuevo, lleno. Si se alcanzó la cantidad máxima de clientes, primero descarta
+     * los buckets que ya se llenaron (como mucho una vez por cada recarga completa).
+     *
+     * @param client clave del cliente
+     * @param now    instante actual
+     * @return bucket del cliente, o el compartido si no caben más clientes.
+     */
+    private AtomicLong newBucket(String client, long now) {
+        if (buckets.size() >= maxClients) {
+            long sweep = lastSweep.get();
+            if (now - sweep >= capacityNanos && lastSweep.compareAndSet(sweep, now)) {
+                buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+            }
+            if (buckets.size() >= maxClients) {
+                return buckets.computeIfAbsent(OVERFLOW_CLIENT, key -> new AtomicLong(now));
+            }
+        }
+        return buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+    }
+
+    /**
+     * Separa el patrón de la ruta en segmentos, dejando en null los variables.
+     *
+     * @param path patrón de la ruta, por ejemplo /nisum/api/users/{id}
+     * @return segmentos del patrón.
+     */
+    private static String[] compile(String path) {
+        String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i].equals("*") || segments[i].startsWith("{")) {
+                segments[i] = null;
+            }
+        }
+        return segments;
+    }
+}
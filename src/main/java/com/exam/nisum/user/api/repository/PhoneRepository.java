@@ -1,10 +1,28 @@
 package com.exam.nisum.user.api.repository;
 
+import com.exam.nisum.user.api.dto.response.PhoneResponseDTO;
 import com.exam.nisum.user.api.entity.PhoneEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repositorio para gestionar la entidad PhoneEntity en la base de datos.
  */
 public interface PhoneRepository extends JpaRepository<PhoneEntity, Long> {
+
+    /**
+     * Obtiene, en una sola consulta, los teléfonos de varios usuarios directamente como DTO de respuesta,
+     * sin cargar entidades.
+     *
+     * @param userIds ids de los usuarios
+     * @return teléfonos de los usuarios con su userId, en orden de creación.
+     */
+    @Query("select new com.exam.nisum.user.api.dto.response.PhoneResponseDTO("
+            + "p.number, p.cityCode, p.countryCode, p.user.id)"
+            + " from PhoneEntity p where p.user.id in :userIds order by p.id asc")
+    List<PhoneResponseDTO> findResponsesByUserIdIn(@Param("userIds") Collection<String> userIds);
 }
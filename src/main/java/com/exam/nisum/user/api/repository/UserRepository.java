@@ -1,20 +1,190 @@
 package com.exam.nisum.user.api.repository;
 
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
 import com.exam.nisum.user.api.entity.UserEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
 
 /**
  * Repositorio para gestionar la entidad UserEntity en la base de datos.
  */
-public interface UserRepository extends JpaRepository<UserEntity, Long> {
+public interface UserRepository extends JpaRepository<UserEntity, String>, UserSearchRepository {
+
+    // Columnas de la respuesta del listado, leídas directamente en UserResponseDTO
+    String RESPONSE_PROJECTION = "new com.exam.nisum.user.api.dto.response.UserResponseDTO("
+            + "u.id, u.name, u.email, u.created, u.modified, u.lastLogin, u.token, u.isActive, u.version)";
+
+    // Orden del listado de usuarios activos; incluye isActive para que H2 recorra ix_users_active_created_id
+    // en ese orden sin volver a ordenar las filas
+    String ACTIVE_ORDER = " order by u.isActive asc, u.created asc, u.id asc";
 
     /**
-     * Busca un usuario por su email.
+     * Busca un usuario por su email normalizado, usando el índice único de email.
      *
-     * @param email la dirección de correo electrónico del usuario a buscar
+     * @param emailNormalized el email del usuario a buscar, normalizado con UserEntity.normalizeEmail
      * @return Optional<UserEntity> un Optional que contiene el UserEntity correspondiente.
      */
-    Optional<UserEntity> findByEmail(String email);
+    Optional<UserEntity> findByEmailNormalized(String emailNormalized);
+
+    /**
+     * Obtiene solo el id del usuario con el email normalizado, activo o dado de baja, usando el índice único de email.
+     *
+     * @param emailNormalized el email del usuario, normalizado con UserEntity.normalizeEmail
+     * @return Optional<String> el id del usuario, vacío si el email no está registrado.
+     */
+    @Query("select u.id from UserEntity u where u.emailNormalized = :email")
+    Optional<String> findIdByEmailNormalized(@Param("email") String emailNormalized);
+
+    /**
+     * Obtiene solo la versión de un usuario activo, sin cargar la entidad ni sus teléfonos.
+     *
+     * @param id id del usuario
+     * @return Optional<Long> la versión del usuario, vacío si no existe o está dado de baja.
+     */
+    @Query("select u.version from UserEntity u where u.id = :id and u.isActive = true")
+    Optional<Long> findVersionById(@Param("id") String id);
+
+    /**
+     * Busca un usuario por su id, cargando sus teléfonos en la misma consulta.
+     *
+     * @param id id del usuario
+     * @return Optional<UserEntity> un Optional que contiene el UserEntity con sus teléfonos.
+     */
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("select distinct u from UserEntity u left join fetch u.phones where u.id = :id")
+    Optional<UserEntity> findWithPhonesById(@Param("id") String id);
+
+    /**
+     * Busca un usuario por su email normalizado, cargando sus teléfonos en la misma consulta.
+     *
+     * @param emailNormalized el email del usuario a buscar, normalizado con UserEntity.normalizeEmail
+     * @return Optional<UserEntity> un Optional que contiene el UserEntity con sus teléfonos.
+     */
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("select distinct u from UserEntity u left join fetch u.phones where u.emailNormalized = :email")
+    Optional<UserEntity> findWithPhonesByEmail(@Param("email") String emailNormalized);
+
+    /**
+     * Obtiene la primera página de usuarios activos ordenada por (created, id), directamente como DTO de
+     * respuesta: solo se leen las columnas de la respuesta, sin la contraseña y sin cargar entidades.
+     * Recorre el índice (is_active, created, id), así los usuarios dados de baja no se leen.
+     *
+     * @param pageable tamaño de la página (el offset siempre es 0)
+     * @return usuarios de la primera página, sin sus teléfonos.
+     */
+    @Query("select " + RESPONSE_PROJECTION + " from UserEntity u where u.isActive = true" + ACTIVE_ORDER)
+    List<UserResponseDTO> findFirstPage(Pageable pageable);
+
+    /**
+     * Obtiene la página de usuarios activos posterior a la clave (created, id) indicada, directamente como DTO
+     * de respuesta, sin usar offset: created >= :created permite empezar a leer el índice (is_active, created, id)
+     * desde la clave, para que el costo no crezca con la posición.
+     *
+     * @param created fecha de creación del último usuario de la página anterior
+     * @param id      id del último usuario de la página anterior
+     * @param pageable tamaño de la página (el offset siempre es 0)
+     * @return usuarios de la página siguiente, sin sus teléfonos.
+     */
+    @Query("select " + RESPONSE_PROJECTION + " from UserEntity u"
+            + " where u.isActive = true and u.created >= :created and (u.created > :created or u.id > :id)"
+            + ACTIVE_ORDER)
+    List<UserResponseDTO> findPageAfter(@Param("created") LocalDate created, @Param("id") String id,
+                                        Pageable pageable);
+
+    /**
+     * Recorre todos los usuarios activos con un cursor de base de datos, en el mismo orden que la paginación,
+     * directamente como DTO de respuesta. Al no cargar entidades, el contexto de persistencia no crece
+     * con la tabla. Debe consumirse dentro de una transacción y cerrarse al terminar.
+     *
+     * @return Stream de usuarios, sin sus teléfonos.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select " + RESPONSE_PROJECTION + " from UserEntity u where u.isActive = true" + ACTIVE_ORDER)
+    Stream<UserResponseDTO> streamAll();
+
+    /**
+     * Carga los usuarios indicados junto con sus teléfonos en una sola consulta (fetch join),
+     * evitando una consulta adicional por cada usuario al recorrer sus teléfonos.
+     *
+     * @param ids ids de los usuarios a cargar
+     * @return usuarios con sus teléfonos inicializados, sin un orden garantizado.
+     */
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("select distinct u from UserEntity u left join fetch u.phones where u.id in :ids")
+    List<UserEntity> findWithPhonesByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Obtiene, en una sola consulta, cuáles de los emails normalizados indicados ya están registrados.
+     *
+     * @param emails emails normalizados a verificar
+     * @return emails normalizados que ya existen en la base de datos.
+     */
+    @Query("select u.emailNormalized from UserEntity u where u.emailNormalized in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Busca el id del usuario activo dueño de un token, usando el índice único de token.
+     *
+     * @param token token del usuario
+     * @return Optional con el id del usuario, vacío si no existe o está dado de baja.
+     */
+    @Query("select u.id from UserEntity u where u.token = :token and u.isActive = true")
+    Optional<String> findIdByToken(@Param("token") String token);
+
+    /**
+     * Recorre los tokens de todos los usuarios activos con su id, sin cargar entidades.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     *
+     * @return Stream de pares token/id.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.token as token, u.id as id from UserEntity u where u.isActive = true")
+    Stream<TokenOwner> streamTokens();
+
+    /**
+     * Obtiene los usuarios activos entre los ids indicados, directamente como DTO de respuesta, sin cargar
+     * entidades ni teléfonos.
+     *
+     * @param ids ids de los usuarios
+     * @return usuarios activos, sin un orden garantizado.
+     */
+    @Query("select " + RESPONSE_PROJECTION + " from UserEntity u where u.id in :ids and u.isActive = true")
+    List<UserResponseDTO> findActiveByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Da de baja a los usuarios activos indicados con una sola sentencia UPDATE, sin cargar entidades.
+     * Aumenta la versión igual que una actualización, para que los ETag y el bloqueo optimista la detecten.
+     *
+     * @param ids      ids de los usuarios
+     * @param modified fecha de modificación
+     * @return cantidad de usuarios dados de baja.
+     */
+    @Modifying
+    @Query("update UserEntity u set u.isActive = false, u.modified = :modified, u.version = u.version + 1"
+            + " where u.id in :ids and u.isActive = true")
+    int deactivateByIdIn(@Param("ids") Collection<String> ids, @Param("modified") LocalDate modified);
+
+    /**
+     * Token de un usuario junto con su id.
+     */
+    interface TokenOwner {
+
+        String getToken();
+
+        String getId();
+    }
 }
@@ -0,0 +1,39 @@
+package com.exam.nisum.user.api.repository;
+
+import com.exam.nisum.user.api.dto.request.UserSearchRequestDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Búsqueda de usuarios con filtros dinámicos, que se agrega a UserRepository.
+ */
+public interface UserSearchRepository {
+
+    /**
+     * Obtiene los usuarios que cumplen los filtros, ordenados por (created, id) y posteriores a la clave indicada,
+     * directamente como DTO de respuesta: solo se leen las columnas de la respuesta, sin la contraseña y sin
+     * cargar entidades.
+     *
+     * @param filters      filtros de la búsqueda, los vacíos no se aplican
+     * @param afterCreated fecha de creación del último usuario de la página anterior, o null para la primera página
+     * @param afterId      id del último usuario de la página anterior, o null para la primera página
+     * @param limit        cantidad máxima de usuarios
+     * @return usuarios que cumplen los filtros, sin sus teléfonos.
+     */
+    List<UserResponseDTO> search(UserSearchRequestDTO filters, LocalDate afterCreated, String afterId, int limit);
+
+    /**
+     * Obtiene los usuarios que cumplen los filtros, con un prefijo de nombre, ordenados por (name, id) y
+     * posteriores a la clave indicada. El índice ix_users_name_id entrega las coincidencias del prefijo en ese orden,
+     * así se lee solo una página en lugar de ordenar todas las coincidencias por (created, id).
+     *
+     * @param filters   filtros de la búsqueda, con name; los vacíos no se aplican
+     * @param afterName nombre del último usuario de la página anterior, o null para la primera página
+     * @param afterId   id del último usuario de la página anterior, o null para la primera página
+     * @param limit     cantidad máxima de usuarios
+     * @return usuarios que cumplen los filtros, sin sus teléfonos.
+     */
+    List<UserResponseDTO> searchByName(UserSearchRequestDTO filters, String afterName, String afterId, int limit);
+}
@@ -0,0 +1,208 @@
+package com.exam.nisum.user.api.repository;
+
+import com.exam.nisum.user.api.dto.request.UserSearchRequestDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.entity.PhoneEntity;
+import com.exam.nisum.user.api.entity.UserEntity;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementación con Criteria de la búsqueda de usuarios.
+ * El ORDER BY empieza con las columnas que el filtro fija con una igualdad, para que la base recorra el índice
+ * compuesto del filtro en el orden de la paginación y se detenga al completar la página, en lugar de leer y
+ * ordenar todas las coincidencias. Con prefijo de nombre el orden es (name, id), el del índice ix_users_name_id,
+ * porque un rango de nombres no entrega las filas ordenadas por (created, id).
+ * Con filtro de teléfono no se hace un join: H2 puede elegir empezar por users cuando el filtro de usuario
+ * parece selectivo, y recorrer los teléfonos del país por cada usuario. Se leen las claves (created, id) de
+ * los teléfonos en el orden de su índice, y después los usuarios de esas claves que cumplen el resto de los
+ * filtros, por la clave primaria, hasta completar la página.
+ */
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    // Máximo de claves de teléfonos leídas por consulta cuando el filtro de usuario descarta la mayoría
+    private static final int MAX_PHONE_BATCH = 500;
+
+    private EntityManager entityManager;
+
+    public UserSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<UserResponseDTO> search(UserSearchRequestDTO filters, LocalDate afterCreated, String afterId,
+                                        int limit) {
+        if (StringUtils.hasText(filters.getCountryCode())) {
+            return searchByPhone(filters, afterCreated, afterId, limit);
+        }
+        return entityManager.createQuery(userQuery(filters, afterCreated, afterId))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<UserResponseDTO> searchByName(UserSearchRequestDTO filters, String afterName, String afterId,
+                                              int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserResponseDTO> query = builder.createQuery(UserResponseDTO.class);
+        Root<UserEntity> user = query.from(UserEntity.class);
+        selectResponse(builder, query, user);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate userFilters = UserSpecifications.matching(filters).toPredicate(user, query, builder);
+        if (userFilters != null) {
+            predicates.add(userFilters);
+        }
+        Path<String> name = user.get("name");
+        Path<String> id = user.get("id");
+        if (afterName != null) {
+            predicates.add(builder.and(
+                    builder.greaterThanOrEqualTo(name, afterName),
+                    builder.or(builder.greaterThan(name, afterName), builder.greaterThan(id, afterId))));
+        }
+        query.where(predicates.toArray(new Predicate[0])).orderBy(builder.asc(name), builder.asc(id));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private List<UserResponseDTO> searchByPhone(UserSearchRequestDTO filters, LocalDate afterCreated,
+                                                String afterId, int limit) {
+        List<UserResponseDTO> users = new ArrayList<>(limit);
+        LocalDate created = afterCreated;
+        String id = afterId;
+        int batch = limit;
+        while (users.size() < limit) {
+            List<Tuple> keys = entityManager.createQuery(phoneKeysQuery(filters, created, id))
+                    .setMaxResults(batch)
+                    .getResultList();
+            if (keys.isEmpty()) {
+                break;
+            }
+            // Un usuario con varios teléfonos que cumplen el filtro aparece en claves seguidas
+            Set<String> ids = new LinkedHashSet<>();
+            keys.forEach(key -> ids.add(key.get(1, String.class)));
+            Map<String, UserResponseDTO> found = new HashMap<>();
+            entityManager.createQuery(usersByIdQuery(filters, ids)).getResultList()
+                    .forEach(user -> found.put(user.getId().toString(), user));
+            for (String userId : ids) {
+                UserResponseDTO user = found.get(userId);
+                if (user != null && users.size() < limit) {
+                    users.add(user);
+                }
+            }
+            if (keys.size() < batch) {
+                break;
+            }
+            Tuple last = keys.get(keys.size() - 1);
+            created = last.get(0, LocalDate.class);
+            id = last.get(1, String.class);
+            batch = Math.min(batch * 2, Math.max(limit, MAX_PHONE_BATCH));
+        }
+        return users;
+    }
+
+    // Usuarios ordenados por (created, id), por el índice del filtro de igualdad si lo hay
+    private CriteriaQuery<UserResponseDTO> userQuery(UserSearchRequestDTO filters, LocalDate afterCreated,
+                                                     String afterId) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserResponseDTO> query = builder.createQuery(UserResponseDTO.class);
+        Root<UserEntity> user = query.from(UserEntity.class);
+        selectResponse(builder, query, user);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate userFilters = UserSpecifications.matching(filters).toPredicate(user, query, builder);
+        if (userFilters != null) {
+            predicates.add(userFilters);
+        }
+        List<Order> order = new ArrayList<>(3);
+        if (StringUtils.hasText(filters.getEmailDomain())) {
+            order.add(builder.asc(user.get("emailDomain")));
+        } else if (filters.getIsActive() != null) {
+            order.add(builder.asc(user.get("isActive")));
+        }
+        after(builder, predicates, order, user.get("created"), user.get("id"), afterCreated, afterId);
+
+        return query.where(predicates.toArray(new Predicate[0])).orderBy(order);
+    }
+
+    // Claves (created, id) de los usuarios con un teléfono del país (y ciudad), por ix_phone_country_city_created_user
+    private CriteriaQuery<Tuple> phoneKeysQuery(UserSearchRequestDTO filters, LocalDate afterCreated,
+                                                String afterId) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<PhoneEntity> phone = query.from(PhoneEntity.class);
+        Path<LocalDate> created = phone.get("userCreated");
+        // user.id es la columna user_id del teléfono, sin join con users
+        Path<String> id = phone.get("user").get("id");
+        query.multiselect(created, id);
+
+        List<Predicate> predicates = new ArrayList<>();
+        List<Order> order = new ArrayList<>(4);
+        predicates.add(builder.equal(phone.get("countryCode"), filters.getCountryCode()));
+        order.add(builder.asc(phone.get("countryCode")));
+        if (StringUtils.hasText(filters.getCityCode())) {
+            predicates.add(builder.equal(phone.get("cityCode"), filters.getCityCode()));
+            order.add(builder.asc(phone.get("cityCode")));
+        }
+        // Fecha de creación del usuario copiada en el teléfono, para no recorrer las claves fuera del rango
+        Specification<PhoneEntity> createdRange = UserSpecifications.dateBetween("userCreated",
+                filters.getCreatedFrom(), filters.getCreatedTo());
+        if (createdRange != null) {
+            predicates.add(createdRange.toPredicate(phone, query, builder));
+        }
+        after(builder, predicates, order, created, id, afterCreated, afterId);
+
+        return query.where(predicates.toArray(new Predicate[0])).orderBy(order);
+    }
+
+    // Usuarios de los ids indicados que cumplen los filtros de usuario, sin orden
+    private CriteriaQuery<UserResponseDTO> usersByIdQuery(UserSearchRequestDTO filters, Collection<String> ids) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserResponseDTO> query = builder.createQuery(UserResponseDTO.class);
+        Root<UserEntity> user = query.from(UserEntity.class);
+        selectResponse(builder, query, user);
+
+        Predicate byId = user.get("id").in(ids);
+        Predicate userFilters = UserSpecifications.matching(filters).toPredicate(user, query, builder);
+        return query.where(userFilters != null ? builder.and(byId, userFilters) : byId);
+    }
+
+    // Mismas columnas que UserRepository.RESPONSE_PROJECTION
+    private static void selectResponse(CriteriaBuilder builder, CriteriaQuery<UserResponseDTO> query,
+                                       Root<UserEntity> user) {
+        query.select(builder.construct(UserResponseDTO.class,
+                user.get("id"), user.get("name"), user.get("email"), user.get("created"), user.get("modified"),
+                user.get("lastLogin"), user.get("token"), user.get("isActive"), user.get("version")));
+    }
+
+    // Continúa después de la clave (created, id) y termina el orden de la paginación
+    private static void after(CriteriaBuilder builder, List<Predicate> predicates, List<Order> order,
+                              Path<LocalDate> created, Path<String> id, LocalDate afterCreated, String afterId) {
+        if (afterCreated != null) {
+            // created >= :created permite empezar a leer el índice desde la clave en lugar de recorrerlo desde el inicio
+            predicates.add(builder.and(
+                    builder.greaterThanOrEqualTo(created, afterCreated),
+                    builder.or(builder.greaterThan(created, afterCreated), builder.greaterThan(id, afterId))));
+        }
+        order.add(builder.asc(created));
+        order.add(builder.asc(id));
+    }
+}
@@ -0,0 +1,107 @@
+package com.exam.nisum.user.api.repository;
+
+import com.exam.nisum.user.api.dto.request.UserSearchRequestDTO;
+import com.exam.nisum.user.api.entity.UserEntity;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros de la búsqueda de usuarios sobre las columnas de users, cada uno con un índice de la migración V2.
+ */
+public final class UserSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Combina los filtros enviados sobre las columnas de users; los filtros de teléfono se aplican en
+     * UserSearchRepositoryImpl.
+     *
+     * @param filters filtros de la búsqueda, los vacíos no se aplican
+     * @return Specification con todos los filtros enviados.
+     */
+    public static Specification<UserEntity> matching(UserSearchRequestDTO filters) {
+        Specification<UserEntity> specification = Specification.where(null);
+        if (StringUtils.hasText(filters.getName())) {
+            specification = specification.and(nameStartsWith(filters.getName()));
+        }
+        if (StringUtils.hasText(filters.getEmailDomain())) {
+            specification = specification.and(emailDomain(filters.getEmailDomain()));
+        }
+        if (filters.getIsActive() != null) {
+            specification = specification.and(isActive(filters.getIsActive()));
+        }
+        return specification
+                .and(dateBetween("created", filters.getCreatedFrom(), filters.getCreatedTo()))
+                .and(dateBetween("modified", filters.getModifiedFrom(), filters.getModifiedTo()));
+    }
+
+    /**
+     * Usuarios cuyo nombre empieza con el prefijo indicado (índice ix_users_name_id).
+     *
+     * @param prefix prefijo del nombre, los caracteres % y _ se buscan literalmente
+     * @return Specification del filtro.
+     */
+    public static Specification<UserEntity> nameStartsWith(String prefix) {
+        return (user, query, builder) -> builder.like(user.get("name"), escapeLike(prefix) + "%", LIKE_ESCAPE);
+    }
+
+    /**
+     * Usuarios con un email del dominio indicado (índice ix_users_email_domain_created_id).
+     *
+     * @param domain dominio del email, sin distinguir mayúsculas
+     * @return Specification del filtro.
+     */
+    public static Specification<UserEntity> emailDomain(String domain) {
+        return (user, query, builder) -> builder.equal(user.get("emailDomain"), UserEntity.normalizeEmail(domain));
+    }
+
+    /**
+     * Usuarios activos o inactivos (índice ix_users_active_created_id).
+     *
+     * @param isActive estado del usuario
+     * @return Specification del filtro.
+     */
+    public static Specification<UserEntity> isActive(boolean isActive) {
+        return (user, query, builder) -> builder.equal(user.get("isActive"), isActive);
+    }
+
+    /**
+     * Usuarios con una fecha entre los extremos indicados, ambos incluidos.
+     *
+     * @param attribute atributo de fecha (created o modified de UserEntity, userCreated de PhoneEntity)
+     * @param from      fecha mínima, o null para no acotar
+     * @param to        fecha máxima, o null para no acotar
+     * @return Specification del filtro, o null si no hay extremos.
+     */
+    public static <T> Specification<T> dateBetween(String attribute, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, builder) -> {
+            if (from == null) {
+                return builder.lessThanOrEqualTo(root.get(attribute), to);
+            }
+            if (to == null) {
+                return builder.greaterThanOrEqualTo(root.get(attribute), from);
+            }
+            return builder.between(root.get(attribute), from, to);
+        };
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,230 @@
+package com.exam.nisum.user.api.service;
+
+import com.exam.nisum.user.api.cache.UserCache;
+import com.exam.nisum.user.api.config.WriteBehindProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura diferida (write-behind) del último inicio de sesión de los usuarios. Los inicios de sesión se
+ * acumulan en memoria, varios del mismo usuario quedan en uno solo, y se escriben con un batch de UPDATE
+ * por bloque de usuarios cada nisum.write-behind.flush-interval, o antes si hay nisum.write-behind.max-pending
+ * usuarios pendientes. Si un bloque falla se reintenta en el siguiente flush, y al detener la aplicación
+ * se escriben los pendientes antes de cerrar el DataSource.
+ * Las métricas nisum.write.behind.* muestran cuántos inicios de sesión se registraron, cuántas filas y
+ * sentencias se escribieron y cuántos pendientes hay.
+ */
+@Slf4j
+@Component
+public class LastLoginRecorder implements SmartLifecycle {
+
+    /**
+     * Fase menor que la del servidor web (WebServerStartStopLifecycle, Integer.MAX_VALUE - 1): las fases mayores
+     * se detienen primero, así el flush final se ejecuta cuando ya no se atienden peticiones.
+     */
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+    // No cambia la versión: el ETag y el If-Match de los clientes siguen vigentes y el outbox no pierde versiones
+    private static final String UPDATE_LAST_LOGIN_SQL = "update users"
+            + " set last_login = ?"
+            + " where id = ? and is_active = true and (last_login is null or last_login < ?)";
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private UserCache userCache;
+
+    private TaskScheduler taskScheduler;
+
+    private WriteBehindProperties properties;
+
+    // Id del usuario -> fecha del último inicio de sesión pendiente de escribir
+    private Map<String, LocalDate> pending = new ConcurrentHashMap<>();
+
+    // Evita que un flush programado y uno adelantado por tamaño se ejecuten a la vez
+    private ReentrantLock flushLock = new ReentrantLock();
+
+    private AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private volatile ScheduledFuture<?> scheduledFlush;
+
+    private Counter touches;
+
+    private Counter coalesced;
+
+    private Counter rowsWritten;
+
+    private Counter statements;
+
+    private Timer flushTimer;
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, UserCache userCache,
+                             TaskScheduler taskScheduler, WriteBehindProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userCache = userCache;
+        this.taskScheduler = taskScheduler;
+        this.properties = properties;
+        this.touches = Counter.builder("nisum.write.behind.touches")
+                .description("Inicios de sesión registrados para escritura diferida")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("nisum.write.behind.coalesced")
+                .description("Inicios de sesión unidos a uno pendiente del mismo usuario")
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder("nisum.write.behind.rows")
+                .description("Filas modificadas por la escritura diferida")
+                .register(meterRegistry);
+        this.statements = Counter.builder("nisum.write.behind.statements")
+                .description("Batches de UPDATE ejecutados por la escritura diferida")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("nisum.write.behind.flush")
+                .description("Tiempo de cada flush de la escritura diferida")
+                .register(meterRegistry);
+        Gauge.builder("nisum.write.behind.pending", pending, Map::size)
+                .description("Usuarios con un inicio de sesión pendiente de escribir")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra un inicio de sesión, que se escribirá en el próximo flush.
+     *
+     * @param id   id del usuario
+     * @param date fecha del inicio de sesión
+     */
+    public void record(String id, LocalDate date) {
+        touches.increment();
+        if (!addPending(id, date)) {
+            coalesced.increment();
+        }
+        if (pending.size() >= properties.getMaxPending() && flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    /**
+     * Escribe los inicios de sesión pendientes con un batch de UPDATE por bloque, e invalida del cache a los
+     * usuarios modificados. Los inicios de sesión registrados durante el flush quedan para el siguiente.
+     *
+     * @return cantidad de usuarios modificados.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            return flushTimer.record(this::writePending);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int writePending() {
+        List<Map.Entry<String, LocalDate>> entries = new ArrayList<>(pending.size());
+        for (Map.Entry<String, LocalDate> entry : pending.entrySet()) {
+            // Solo se retira la entrada si no cambió mientras se recorría el mapa
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                entries.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        int updated = 0;
+        for (int from = 0; from < entries.size(); from += properties.getBatchSize()) {
+            List<Map.Entry<String, LocalDate>> chunk =
+                    entries.subList(from, Math.min(from + properties.getBatchSize(), entries.size()));
+            List<Object[]> args = new ArrayList<>(chunk.size());
+            chunk.forEach(entry -> args.add(new Object[]{entry.getValue(), entry.getKey(), entry.getValue()}));
+            try {
+                int[] counts = transactionTemplate.execute(status ->
+                        jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN_SQL, args));
+                statements.increment();
+                int rows = 0;
+                for (int count : counts == null ? new int[0] : counts) {
+                    // Los drivers que no informan la cantidad devuelven un valor negativo
+                    rows += Math.max(count, 0);
+                }
+                rowsWritten.increment(rows);
+                updated += rows;
+                chunk.forEach(entry -> userCache.evict(entry.getKey()));
+            } catch (RuntimeException e) {
+                // Se reintentan en el siguiente flush
+                log.warn("No se pudo registrar el último inicio de sesión de {} usuarios", chunk.size(), e);
+                chunk.forEach(entry -> addPending(entry.getKey(), entry.getValue()));
+            }
+        }
+        if (updated > 0) {
+            log.debug("Último inicio de sesión registrado para {} usuarios", updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Agrega un inicio de sesión pendiente, conservando la fecha más reciente si el usuario ya tenía uno.
+     *
+     * @param id   id del usuario
+     * @param date fecha del inicio de sesión
+     * @return true si el usuario no tenía un inicio de sesión pendiente.
+     */
+    private boolean addPending(String id, LocalDate date) {
+        LocalDate previous = pending.putIfAbsent(id, date);
+        if (previous == null) {
+            return true;
+        }
+        pending.merge(id, date, (current, next) -> next.isAfter(current) ? next : current);
+        return false;
+    }
+
+    /**
+     * Programa el flush periódico al iniciar la aplicación.
+     */
+    @Override
+    public void start() {
+        scheduledFlush = taskScheduler.scheduleWithFixedDelay(this::flush, properties.getFlushInterval());
+    }
+
+    /**
+     * Cancela el flush periódico y escribe los pendientes. Por su fase se ejecuta después de detener el servidor
+     * web y antes de cerrar el DataSource.
+     */
+    @Override
+    public void stop() {
+        ScheduledFuture<?> flushTask = scheduledFlush;
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            scheduledFlush = null;
+        }
+        int updated = flush();
+        log.info("Escritura diferida detenida, {} inicios de sesión escritos al cerrar", updated);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduledFlush != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,196 @@
+package com.exam.nisum.user.api.service;
+
+
+import com.exam.nisum.user.api.config.PasswordProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio encargado de encriptar y validar contraseñas en un pool de hilos dedicado y acotado,
+ * para que el costo del hash no se ejecute con una conexión de base de datos tomada
+ * y para limitar el trabajo de CPU concurrente a la cantidad de hilos configurada.
+ */
+@Service
+public class PasswordHashingService {
+
+    // Contraseñas de una importación masiva en el pool por cada hilo, el resto espera en quien llama
+    static final int BULK_IN_FLIGHT_PER_THREAD = 2;
+
+    private PasswordEncoder passwordEncoder;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer queueWaitTimer;
+
+    private Timer hashTimer;
+
+    private Counter rejectedCounter;
+
+    private Counter callerRunsCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, PasswordProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hash-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("nisum.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("Contraseñas esperando a ser procesadas")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("nisum.password.hash.wait")
+                .description("Tiempo de espera en la cola del pool de hash")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("nisum.password.hash")
+                .description("Tiempo de cálculo de cada hash")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("nisum.password.hash.rejected")
+                .description("Contraseñas rechazadas por cola llena")
+                .register(meterRegistry);
+        this.callerRunsCounter = Counter.builder("nisum.password.hash.caller.runs")
+                .description("Contraseñas de importaciones masivas encriptadas en quien llama por cola llena")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encripta una contraseña.
+     *
+     * @param rawPassword contraseña en texto plano
+     * @return hash de la contraseña.
+     */
+    public String encode(String rawPassword) {
+        return await(submit(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Encripta varias contraseñas en paralelo, con a lo sumo BULK_IN_FLIGHT_PER_THREAD contraseñas por hilo del pool
+     * a la vez: las siguientes se envían a medida que terminan las anteriores, así un bloque de una importación
+     * masiva no ocupa la cola que comparten las peticiones individuales. Si aun así la cola está llena, la
+     * contraseña se encripta en el hilo de quien llama en lugar de rechazar la importación a mitad de camino.
+     *
+     * @param rawPasswords contraseñas en texto plano
+     * @return hashes en el mismo orden recibido.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        int maxInFlight = executor.getMaximumPoolSize() * BULK_IN_FLIGHT_PER_THREAD;
+        Deque<Future<String>> inFlight = new ArrayDeque<>(maxInFlight);
+        List<String> hashes = new ArrayList<>(rawPasswords.size());
+        try {
+            for (String rawPassword : rawPasswords) {
+                if (inFlight.size() == maxInFlight) {
+                    hashes.add(await(inFlight.poll()));
+                }
+                inFlight.add(submitOrRunHere(() -> passwordEncoder.encode(rawPassword)));
+            }
+            while (!inFlight.isEmpty()) {
+                hashes.add(await(inFlight.poll()));
+            }
+        } catch (RuntimeException e) {
+            inFlight.forEach(future -> future.cancel(false));
+            throw e;
+        }
+        return hashes;
+    }
+
+    /**
+     * Obtiene el hash a guardar para una contraseña recibida, reutilizando el hash actual cuando
+     * la contraseña no cambió y re-encriptándola si el hash usa un algoritmo o costo anterior.
+     * El costo se compara con el que guarda cada hash: el de BCrypt y la memoria e iteraciones de Argon2 se
+     * detectan; PBKDF2 no guarda sus iteraciones en el hash, por eso un cambio de nisum.password.pbkdf2-iterations
+     * no se detecta (y los hashes anteriores dejarían de validarse).
+     *
+     * @param rawPassword     contraseña en texto plano
+     * @param encodedPassword hash guardado actualmente
+     * @return hash a guardar.
+     */
+    public String rehashIfNeeded(String rawPassword, String encodedPassword) {
+        return await(submit(() -> {
+            if (encodedPassword != null && passwordEncoder.matches(rawPassword, encodedPassword)
+                    && !passwordEncoder.upgradeEncoding(encodedPassword)) {
+                return encodedPassword;
+            }
+            return passwordEncoder.encode(rawPassword);
+        }));
+    }
+
+    /**
+     * Detiene el pool de hilos al cerrar la aplicación.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return enqueue(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    "El servicio está ocupado, intente nuevamente",
+                    e
+            );
+        }
+    }
+
+    private <T> Future<T> enqueue(Callable<T> task) {
+        long enqueued = System.nanoTime();
+        return executor.submit(() -> {
+            queueWaitTimer.record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+            return hashTimer.recordCallable(task);
+        });
+    }
+
+    // Encripta en el hilo de quien llama si la cola está llena, para no rechazar un bloque ya iniciado
+    private <T> Future<T> submitOrRunHere(Callable<T> task) {
+        try {
+            return enqueue(task);
+        } catch (RejectedExecutionException e) {
+            callerRunsCounter.increment();
+            try {
+                return CompletableFuture.completedFuture(hashTimer.recordCallable(task));
+            } catch (Exception hashFailure) {
+                return CompletableFuture.failedFuture(hashFailure);
+            }
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "La solicitud fue interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.exam.nisum.user.api.service;
+
+
+import com.exam.nisum.user.api.cache.TokenIndex;
+import com.exam.nisum.user.api.cache.UserCache;
+import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.dto.response.BulkImportResponseDTO;
+import com.exam.nisum.user.api.dto.response.BulkUserResultDTO;
+import com.exam.nisum.user.api.entity.PhoneEntity;
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.outbox.UserChangeType;
+import com.exam.nisum.user.api.outbox.UserOutbox;
+import com.exam.nisum.user.api.repository.UserRepository;
+import com.exam.nisum.user.api.validation.UserValidator;
+import com.exam.nisum.user.api.validation.Violation;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio encargado de la importación masiva de usuarios.
+ * Procesa las filas por bloques: valida, descarta emails repetidos con una consulta por bloque
+ * e inserta usuarios y teléfonos con lotes JDBC.
+ */
+@Service
+public class UserBulkService {
+
+    // Cantidad de filas que se validan e insertan en cada transacción
+    public static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_USER_SQL = "insert into users"
+            + " (id, name, email, email_normalized, email_domain, password, created, modified, last_login, token,"
+            + " is_active, version)"
+            + " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String INSERT_PHONE_SQL = "insert into phone"
+            + " (id, number, city_code, country_code, user_id, user_created)"
+            + " values (?, ?, ?, ?, ?, ?)";
+
+    // Un valor de phone_seq por fila, cada uno reserva un bloque de PhoneEntity.ID_ALLOCATION_SIZE ids
+    private static final String NEXT_PHONE_ID_BLOCKS_SQL = "select next value for phone_seq from system_range(1, ?)";
+
+    private UserRepository userRepository;
+
+    private PasswordHashingService passwordHashingService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private UserValidator userValidator;
+
+    private UserCache userCache;
+
+    private TokenIndex tokenIndex;
+
+    private UserOutbox userOutbox;
+
+    public UserBulkService(UserRepository userRepository, PasswordHashingService passwordHashingService,
+                           JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           UserValidator userValidator, UserCache userCache, TokenIndex tokenIndex,
+                           UserOutbox userOutbox) {
+        this.userRepository = userRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userValidator = userValidator;
+        this.userCache = userCache;
+        this.tokenIndex = tokenIndex;
+        this.userOutbox = userOutbox;
+    }
+
+    /**
+     * Importa los usuarios recibidos, leyéndolos por bloques a medida que llegan.
+     *
+     * @param requests usuarios a importar, en el orden de la petición
+     * @return BulkImportResponseDTO reporte con el resultado de cada fila.
+     */
+    public BulkImportResponseDTO importUsers(Iterator<UserRequestDTO> requests) {
+        List<BulkUserResultDTO> results = new ArrayList<>();
+        // Emails aceptados en bloques anteriores de esta misma importación
+        Set<String> importedEmails = new HashSet<>();
+        List<UserRequestDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+
+        while (requests.hasNext()) {
+            chunk.add(requests.next());
+            if (chunk.size() == CHUNK_SIZE) {
+                results.addAll(importChunk(chunk, index, importedEmails));
+                index += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(chunk, index, importedEmails));
+        }
+
+        int created = (int) results.stream()
+                .filter(result -> result.getStatus() == BulkUserResultDTO.Status.CREATED)
+                .count();
+        return BulkImportResponseDTO.builder()
+                .created(created)
+                .rejected(results.size() - created)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Valida, descarta repetidos e inserta un bloque de usuarios en una sola transacción.
+     *
+     * @param chunk          filas del bloque
+     * @param firstIndex     posición de la primera fila del bloque dentro de la petición
+     * @param importedEmails emails normalizados aceptados en bloques anteriores, se actualiza con los del bloque
+     * @return resultado de cada fila del bloque.
+     */
+    private List<BulkUserResultDTO> importChunk(List<UserRequestDTO> chunk, int firstIndex, Set<String> importedEmails) {
+        BulkUserResultDTO[] results = new BulkUserResultDTO[chunk.size()];
+
+        // Primera pasada: formato de cada fila
+        List<Integer> validRows = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = validate(chunk.get(i));
+            if (error != null) {
+                results[i] = rejected(firstIndex + i, chunk.get(i).getEmail(), BulkUserResultDTO.Status.INVALID, error);
+            } else {
+                validRows.add(i);
+            }
+        }
+
+        // Una sola consulta para los emails del bloque que ya están registrados
+        Set<String> existingEmails = findExistingEmails(validRows.stream()
+                .map(i -> chunk.get(i).getEmail())
+                .collect(Collectors.toList()));
+
+        List<User> users = new ArrayList<>();
+        List<Integer> userRows = new ArrayList<>();
+        for (Integer i : validRows) {
+            UserRequestDTO request = chunk.get(i);
+            String email = UserEntity.normalizeEmail(request.getEmail());
+            if (existingEmails.contains(email)) {
+                results[i] = alreadyRegistered(firstIndex + i, request.getEmail());
+            } else if (!importedEmails.add(email)) {
+                results[i] = rejected(firstIndex + i, request.getEmail(), BulkUserResultDTO.Status.DUPLICATE,
+                        "El correo " + request.getEmail() + " está repetido en la importación");
+            } else {
+                User user = newUser(request);
+                users.add(user);
+                userRows.add(i);
+                results[i] = BulkUserResultDTO.builder()
+                        .index(firstIndex + i)
+                        .email(user.getEmail())
+                        .status(BulkUserResultDTO.Status.CREATED)
+                        .id(UUID.fromString(user.getId()))
+                        .build();
+            }
+        }
+
+        if (!users.isEmpty()) {
+            // Las contraseñas del bloque se encriptan en paralelo antes de abrir la transacción
+            List<String> hashes = passwordHashingService.encodeAll(users.stream()
+                    .map(User::getPassword)
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < users.size(); i++) {
+                users.get(i).setPassword(hashes.get(i));
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(users));
+            } catch (DataIntegrityViolationException e) {
+                if (!UserService.isDuplicateEmail(e)) {
+                    throw e;
+                }
+                // Otra petición registró alguno de los emails después de la consulta: se marcan
+                // como duplicados y se reintenta el bloque una sola vez con el resto
+                Set<String> registered = findExistingEmails(users.stream()
+                        .map(User::getEmail)
+                        .collect(Collectors.toList()));
+                for (int i = users.size() - 1; i >= 0; i--) {
+                    if (registered.contains(UserEntity.normalizeEmail(users.get(i).getEmail()))) {
+                        int row = userRows.get(i);
+                        results[row] = alreadyRegistered(firstIndex + row, users.get(i).getEmail());
+                        users.remove(i);
+                        userRows.remove(i);
+                    }
+                }
+                if (!users.isEmpty()) {
+                    transactionTemplate.executeWithoutResult(status -> insert(users));
+                }
+            }
+            // Los emails creados dejan de estar en el cache de emails no registrados
+            userCache.evictEmails(users.stream().map(User::getEmail).collect(Collectors.toList()));
+            users.forEach(user -> tokenIndex.put(user.getToken(), user.getId()));
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Obtiene con una sola consulta cuáles de los emails ya están registrados.
+     *
+     * @param emails emails a verificar
+     * @return emails normalizados que ya existen en la base de datos.
+     */
+    private Set<String> findExistingEmails(List<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(userRepository.findExistingEmails(emails.stream()
+                .map(UserEntity::normalizeEmail)
+                .collect(Collectors.toSet())));
+    }
+
+    /**
+     * Inserta usuarios, teléfonos y sus cambios del outbox con tres sentencias JDBC en lote, más una consulta
+     * para reservar los ids de los teléfonos.
+     *
+     * @param users usuarios ya validados y con la contraseña encriptada
+     */
+    private void insert(List<User> users) {
+        jdbcTemplate.batchUpdate(INSERT_USER_SQL, users.stream()
+                .map(user -> new Object[]{
+                        user.getId(), user.getName(), user.getEmail(), UserEntity.normalizeEmail(user.getEmail()),
+                        UserEntity.emailDomain(user.getEmail()), user.getPassword(), user.getCreated(),
+                        user.getModified(), user.getLastLogin(), user.getToken(), user.getIsActive()})
+                .collect(Collectors.toList()));
+
+        int phoneCount = users.stream().mapToInt(user -> user.getPhones().size()).sum();
+        if (phoneCount > 0) {
+            long[] phoneIds = allocatePhoneIds(phoneCount);
+            List<Object[]> phones = new ArrayList<>(phoneCount);
+            users.forEach(user -> user.getPhones().forEach(phone -> phones.add(new Object[]{
+                    phoneIds[phones.size()], phone.getNumber(), phone.getCitycode(), phone.getCountrycode(),
+                    user.getId(), user.getCreated()})));
+            jdbcTemplate.batchUpdate(INSERT_PHONE_SQL, phones);
+        }
+        userOutbox.recordAll(UserChangeType.CREATED, users.stream().map(User::getId).collect(Collectors.toList()), 0);
+    }
+
+    /**
+     * Reserva ids de teléfonos con una sola consulta, tomando un valor de phone_seq por cada bloque de
+     * PhoneEntity.ID_ALLOCATION_SIZE ids en lugar de uno por teléfono. Igual que el optimizador pooled de
+     * Hibernate, el valor v reserva los ids v - ID_ALLOCATION_SIZE + 1 a v, así no se repiten con los que asigna
+     * Hibernate a los teléfonos de la creación individual. Los ids que sobran del último bloque no se usan.
+     *
+     * @param count cantidad de ids
+     * @return ids reservados.
+     */
+    private long[] allocatePhoneIds(int count) {
+        long[] ids = new long[count];
+        int allocated = 0;
+        while (allocated < count) {
+            int blocks = (count - allocated + PhoneEntity.ID_ALLOCATION_SIZE - 1) / PhoneEntity.ID_ALLOCATION_SIZE;
+            for (Long hi : jdbcTemplate.queryForList(NEXT_PHONE_ID_BLOCKS_SQL, Long.class, blocks)) {
+                // El valor inicial de la secuencia (1) solo reserva el id 1, Hibernate sigue desde el 2
+                for (long id = Math.max(1, hi - PhoneEntity.ID_ALLOCATION_SIZE + 1); id <= hi && allocated < count;
+                     id++) {
+                    ids[allocated++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Construye el usuario a insertar con los mismos valores por defecto que la creación individual.
+     * La contraseña queda en texto plano hasta que se encripta el bloque completo.
+     *
+     * @param request fila válida de la petición
+     * @return User modelo de usuario listo para insertar.
+     */
+    private User newUser(UserRequestDTO request) {
+        User user = request.toModel();
+        user.setId(UUID.randomUUID().toString());
+        user.setCreated(LocalDate.now());
+        user.setLastLogin(user.getCreated());
+        user.setToken(UUID.randomUUID().toString());
+        user.setIsActive(Boolean.TRUE);
+        return user;
+    }
+
+    /**
+     * Valida una fila de la importación.
+     *
+     * @param request fila a validar
+     * @return los mensajes de error, o null si la fila es válida.
+     */
+    private String validate(UserRequestDTO request) {
+        List<Violation> violations = userValidator.validate(request.toModel());
+        return violations.isEmpty() ? null : UserValidator.toMessage(violations);
+    }
+
+    private static BulkUserResultDTO alreadyRegistered(int index, String email) {
+        return rejected(index, email, BulkUserResultDTO.Status.DUPLICATE, "El correo " + email + " ya  registrado");
+    }
+
+    private static BulkUserResultDTO rejected(int index, String email, BulkUserResultDTO.Status status, String message) {
+        return BulkUserResultDTO.builder()
+                .index(index)
+                .email(email)
+                .status(status)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.exam.nisum.user.api.service;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Token de continuación opaco para la paginación por clave (keyset) de usuarios.
+ * Guarda la clave (created, id) del último usuario entregado, o la clave (name, id) en las búsquedas por prefijo
+ * de nombre.
+ */
+@Getter
+public final class UserCursor {
+
+    private static final char SEPARATOR = '|';
+
+    // Marca de los cursores por nombre, que no se confunde con una fecha
+    private static final String NAME_MARK = "n" + SEPARATOR;
+
+    private final LocalDate created;
+    private final String name;
+    private final String id;
+
+    public UserCursor(LocalDate created, String id) {
+        this(created, null, id);
+    }
+
+    private UserCursor(LocalDate created, String name, String id) {
+        this.created = created;
+        this.name = name;
+        this.id = id;
+    }
+
+    /**
+     * Crea un cursor por la clave (name, id).
+     *
+     * @param name nombre del último usuario entregado
+     * @param id   id del último usuario entregado
+     * @return el cursor.
+     */
+    public static UserCursor byName(String name, String id) {
+        return new UserCursor(null, name, id);
+    }
+
+    /**
+     * Indica si el cursor es por la clave (name, id).
+     *
+     * @return true si el cursor guarda el nombre en lugar de la fecha de creación.
+     */
+    public boolean isByName() {
+        return name != null;
+    }
+
+    /**
+     * Codifica el cursor como un token opaco seguro para URL.
+     *
+     * @return token de continuación.
+     */
+    public String encode() {
+        // El nombre va al final porque puede contener el separador
+        String raw = isByName() ? NAME_MARK + id + SEPARATOR + name : created + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token de continuación recibido del cliente.
+     *
+     * @param token token de continuación
+     * @return el cursor correspondiente
+     * @throws ResponseStatusException si el token no es válido
+     */
+    public static UserCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (raw.startsWith(NAME_MARK)) {
+                int separator = raw.indexOf(SEPARATOR, NAME_MARK.length());
+                if (separator <= NAME_MARK.length() || separator == raw.length() - 1) {
+                    throw invalid();
+                }
+                return byName(raw.substring(separator + 1), raw.substring(NAME_MARK.length(), separator));
+            }
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw invalid();
+            }
+            return new UserCursor(LocalDate.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw invalid();
+        }
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "El cursor de paginación no es válido");
+    }
+}
@@ -1,66 +1,322 @@
 package com.exam.nisum.user.api.service;
 
 
-import com.exam.nisum.user.api.dto.response.PhoneResponseDTO;
+import com.exam.nisum.user.api.cache.TokenIndex;
+import com.exam.nisum.user.api.cache.UserCache;
+import com.exam.nisum.user.api.dto.request.UserDeactivateRequestDTO;
+import com.exam.nisum.user.api.dto.request.UserSearchRequestDTO;
+import com.exam.nisum.user.api.dto.response.UserChangeDTO;
+import com.exam.nisum.user.api.dto.response.UserChangePageResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserDeactivateResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserPageResponseDTO;
 import com.exam.nisum.user.api.dto.response.UserResponseDTO;
 import com.exam.nisum.user.api.entity.PhoneEntity;
 import com.exam.nisum.user.api.entity.UserEntity;
 import com.exam.nisum.user.api.mapper.UserMapper;
+import com.exam.nisum.user.api.metrics.UserMetrics;
+import com.exam.nisum.user.api.metrics.UserMetrics.Operation;
+import com.exam.nisum.user.api.metrics.UserMetrics.Stage;
+import com.exam.nisum.user.api.model.Phone;
 import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.outbox.UserChangeType;
+import com.exam.nisum.user.api.outbox.UserOutbox;
 import com.exam.nisum.user.api.repository.PhoneRepository;
 import com.exam.nisum.user.api.repository.UserRepository;
+import com.exam.nisum.user.api.validation.UserValidator;
+import com.exam.nisum.user.api.validation.Violation;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.exam.nisum.user.api.metrics.UserMetrics.Operation.CREATE;
+import static com.exam.nisum.user.api.metrics.UserMetrics.Operation.PATCH;
+import static com.exam.nisum.user.api.metrics.UserMetrics.Operation.UPDATE;
 
 /**
  * Servicio encargado de la lógica de negocio respecto a los usuarios.
+ * Las escrituras abren su transacción solo después de encriptar la contraseña, para no mantener
+ * tomada una conexión de base de datos mientras se calcula el hash.
  */
 @Service
-@Transactional
 public class UserService {
-    //El formato del email debe ser (aaaaaaa@dominio.cl)
-    public static final String EMAIL_REGEX = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
+    // Tamaño de página por defecto y máximo para el listado paginado de usuarios
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // Cantidad de usuarios cuyos teléfonos se cargan juntos al recorrer la tabla en streaming
+    public static final int STREAM_CHUNK_SIZE = 500;
 
-    // la contraseña debe tener minimo 8 y maximo 16 caracteres, números,
-    // letras minúsculas y mayúsculas (123Acb1234*)
-    public static final String PWD_REGEX = "^(?=.*\\d)(?=.*[a-z])(?=.*[A-Z]).{8,16}$";
+    // Cantidad máxima de ids de una baja masiva, y de usuarios dados de baja por transacción en una baja por filtros
+    public static final int DEACTIVATE_CHUNK_SIZE = 1000;
 
     private UserRepository userRepository;
 
     private PhoneRepository phoneRepository;
 
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private UserValidator userValidator;
+
+    private UserCache userCache;
+
+    private UserMetrics userMetrics;
 
-    public UserService(UserRepository userRepository, PhoneRepository phoneRepository, PasswordEncoder passwordEncoder) {
+    private TokenIndex tokenIndex;
+
+    private LastLoginRecorder lastLoginRecorder;
+
+    private UserOutbox userOutbox;
+
+    public UserService(UserRepository userRepository, PhoneRepository phoneRepository,
+                       PasswordHashingService passwordHashingService, TransactionTemplate transactionTemplate,
+                       UserValidator userValidator, UserCache userCache, UserMetrics userMetrics,
+                       TokenIndex tokenIndex, LastLoginRecorder lastLoginRecorder, UserOutbox userOutbox) {
         this.userRepository = userRepository;
         this.phoneRepository = phoneRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.transactionTemplate = transactionTemplate;
+        this.userValidator = userValidator;
+        this.userCache = userCache;
+        this.userMetrics = userMetrics;
+        this.tokenIndex = tokenIndex;
+        this.lastLoginRecorder = lastLoginRecorder;
+        this.userOutbox = userOutbox;
     }
 
     /**
-     * Se obtiene la lista de todos los usuarios.
+     * Se obtiene una página de usuarios usando paginación por clave (created, id).
      *
-     * @return Lista de usuarios.
+     * @param cursor token de continuación devuelto por la página anterior, o null para la primera página
+     * @param size   cantidad máxima de usuarios de la página
+     * @return página de usuarios con el cursor de la página siguiente (null si no hay más).
      */
-    public List<UserResponseDTO> getUsers() {
-        List<UserEntity> userEntityList = userRepository.findAll();
+    @Transactional
+    public UserPageResponseDTO getUsers(String cursor, int size) {
+        checkPageSize(size);
+
+        // Se pide un registro adicional para saber si existe una página siguiente
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<UserResponseDTO> users;
+        if (cursor == null || cursor.isEmpty()) {
+            users = userRepository.findFirstPage(limit);
+        } else {
+            UserCursor after = UserCursor.decode(cursor);
+            users = userRepository.findPageAfter(after.getCreated(), after.getId(), limit);
+        }
+        return toPage(users, size);
+    }
 
-        return userEntityList.stream()
-                .map(UserMapper::toUserModel)
-                .map(this::setResponse)
-                .collect(Collectors.toList());
+    /**
+     * Busca usuarios con los filtros indicados, en el mismo orden y con el mismo cursor que el listado.
+     * Cada filtro se resuelve con un índice, para que la consulta no recorra la tabla completa. Con prefijo de
+     * nombre y sin filtro de teléfono se ordena por (name, id), el orden del índice del nombre, con un cursor
+     * por esa clave.
+     *
+     * @param filters filtros de la búsqueda, los que están en null no se aplican
+     * @param cursor  token de continuación devuelto por la página anterior, o null para la primera página
+     * @param size    cantidad máxima de usuarios de la página
+     * @return página de usuarios que cumplen los filtros con el cursor de la página siguiente (null si no hay más).
+     * @throws ResponseStatusException 400 si el tamaño de página, un rango de fechas o el cursor no son válidos,
+     *                                 o si se envía cityCode sin countryCode
+     */
+    @Transactional
+    public UserPageResponseDTO searchUsers(UserSearchRequestDTO filters, String cursor, int size) {
+        checkPageSize(size);
+        checkFilters(filters);
+
+        // Se pide un registro adicional para saber si existe una página siguiente
+        boolean byName = StringUtils.hasText(filters.getName()) && !StringUtils.hasText(filters.getCountryCode());
+        UserCursor after = cursor == null || cursor.isEmpty() ? null : UserCursor.decode(cursor);
+        if (after != null && after.isByName() != byName) {
+            // Cursor de una búsqueda con otro orden
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El cursor de paginación no es válido");
+        }
+        if (byName) {
+            List<UserResponseDTO> users = userRepository.searchByName(filters,
+                    after != null ? after.getName() : null, after != null ? after.getId() : null, size + 1);
+            return toPage(users, size, last -> UserCursor.byName(last.getName(), last.getId().toString()));
+        }
+        List<UserResponseDTO> users = userRepository.search(filters,
+                after != null ? after.getCreated() : null, after != null ? after.getId() : null, size + 1);
+        return toPage(users, size);
+    }
+
+    /**
+     * Obtiene los cambios de usuarios publicados después del cursor indicado, para que un consumidor se
+     * sincronice de forma incremental sin recorrer el listado.
+     *
+     * @param since posición del último cambio que ya tiene el consumidor, o null para empezar desde el primero
+     * @param size  cantidad máxima de cambios
+     * @return página de cambios en orden de posición, con el cursor para pedir los siguientes.
+     * @throws ResponseStatusException 400 si el tamaño o el cursor no son válidos, 410 si los cambios posteriores
+     *                                 al cursor ya se eliminaron por la retención
+     */
+    public UserChangePageResponseDTO getChanges(String since, int size) {
+        checkPageSize(size);
+        long after = changePosition(since);
+        List<UserChangeDTO> changes = userOutbox.findPublishedAfter(after, size);
+
+        // Las posiciones son consecutivas, un hueco después del cursor significa que se eliminaron cambios
+        if (after > 0 && (changes.isEmpty() || changes.get(0).getPosition() != after + 1)) {
+            Optional<Long> first = userOutbox.firstPosition();
+            if (first.isPresent() && first.get() > after + 1) {
+                throw new ResponseStatusException(
+                        HttpStatus.GONE,
+                        "Los cambios posteriores a " + after + " ya no están disponibles, se debe volver a"
+                                + " sincronizar con el listado de usuarios"
+                );
+            }
+        }
+
+        long last = changes.isEmpty() ? after : changes.get(changes.size() - 1).getPosition();
+        return UserChangePageResponseDTO.builder()
+                .changes(changes)
+                .nextCursor(String.valueOf(last))
+                .build();
+    }
+
+    private static long changePosition(String since) {
+        if (since == null || since.isEmpty()) {
+            return 0;
+        }
+        try {
+            long position = Long.parseLong(since);
+            if (position >= 0) {
+                return position;
+            }
+        } catch (NumberFormatException e) {
+            // Se responde igual que un cursor negativo
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El cursor de cambios no es válido");
+    }
+
+    private static void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE
+            );
+        }
+    }
+
+    private static void checkFilters(UserSearchRequestDTO filters) {
+        checkRange("created", filters.getCreatedFrom(), filters.getCreatedTo());
+        checkRange("modified", filters.getModifiedFrom(), filters.getModifiedTo());
+        // Los códigos de ciudad se repiten entre países
+        if (StringUtils.hasText(filters.getCityCode()) && !StringUtils.hasText(filters.getCountryCode())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El filtro cityCode requiere countryCode");
+        }
+    }
+
+    private static void checkRange(String field, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "El rango de " + field + " no es válido: " + from + " es posterior a " + to
+            );
+        }
+    }
+
+    // Página con el cursor por (created, id)
+    private UserPageResponseDTO toPage(List<UserResponseDTO> users, int size) {
+        return toPage(users, size, last -> new UserCursor(last.getCreated(), last.getId().toString()));
+    }
+
+    /**
+     * Arma la página a partir de los usuarios leídos con un registro adicional, agregando sus teléfonos.
+     *
+     * @param users    usuarios leídos, hasta size + 1
+     * @param size     cantidad máxima de usuarios de la página
+     * @param cursorOf cursor con la clave del último usuario de la página, en el orden de la consulta
+     * @return página de usuarios con el cursor de la página siguiente (null si no hay más).
+     */
+    private UserPageResponseDTO toPage(List<UserResponseDTO> users, int size,
+                                       Function<UserResponseDTO, UserCursor> cursorOf) {
+        String nextCursor = null;
+        if (users.size() > size) {
+            users = users.subList(0, size);
+            nextCursor = cursorOf.apply(users.get(size - 1)).encode();
+        }
+
+        return UserPageResponseDTO.builder()
+                .users(withPhones(users))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Recorre todos los usuarios desde la base de datos y los entrega uno a uno,
+     * sin materializar la lista completa en memoria.
+     *
+     * @param consumer recibe cada usuario en el orden de la paginación
+     */
+    @Transactional
+    public void streamUsers(Consumer<UserResponseDTO> consumer) {
+        List<UserResponseDTO> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        try (Stream<UserResponseDTO> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                chunk.add(user);
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    writeChunk(chunk, consumer);
+                }
+            });
+        }
+        writeChunk(chunk, consumer);
+    }
+
+    /**
+     * Entrega un bloque de usuarios leídos en streaming, cargando sus teléfonos en una sola consulta.
+     *
+     * @param chunk    bloque de usuarios, queda vacío al terminar
+     * @param consumer recibe cada usuario del bloque
+     */
+    private void writeChunk(List<UserResponseDTO> chunk, Consumer<UserResponseDTO> consumer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        withPhones(chunk).forEach(consumer);
+        chunk.clear();
+    }
+
+    /**
+     * Agrega a un grupo de usuarios sus teléfonos, leídos con una sola consulta en lugar de una por usuario.
+     *
+     * @param users usuarios leídos con la proyección de respuesta
+     * @return los mismos usuarios, en el mismo orden, con sus teléfonos.
+     */
+    private List<UserResponseDTO> withPhones(List<UserResponseDTO> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<String, UserResponseDTO> byId = new HashMap<>(users.size() * 2);
+        users.forEach(user -> byId.put(user.getId().toString(), user));
+        phoneRepository.findResponsesByUserIdIn(byId.keySet())
+                .forEach(phone -> byId.get(phone.getUserId()).getPhones().add(phone));
+        return users;
     }
 
 
@@ -71,34 +327,52 @@ public class UserService {
      * @return UserResponseDTO DTO de respuesta con información del usuario guardado.
      */
     public UserResponseDTO saveUser(User user) {
-        //Se valida que el email y contraseña cumplan con los formatos establecidos
-        validateFormatEmail(user.getEmail());
-        validatePassword(user.getPassword());
+        //Se valida que el email, contraseña y teléfonos cumplan con los formatos establecidos
+        userMetrics.record(CREATE, Stage.VALIDATION, () -> userValidator.validateOrThrow(user));
+        // Un email registrado se rechaza antes de encriptar; el cache recuerda también los emails libres, y si
+        // alguno quedó desactualizado el índice único de email detecta el duplicado al insertar
+        if (userMetrics.record(CREATE, Stage.LOOKUP, () -> userCache.isRegistered(user.getEmail()))) {
+            userMetrics.duplicateEmail(true);
+            throw emailAlreadyRegistered(user.getEmail());
+        }
 
         // Guarda en User los campos que faltan por guardan
         user.setId(UUID.randomUUID().toString());
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(userMetrics.record(CREATE, Stage.PASSWORD_ENCODING,
+                () -> passwordHashingService.encode(user.getPassword())));
         user.setCreated(LocalDate.now());
         user.setLastLogin(user.getLastLogin() != null ? user.getLastLogin() : user.getCreated());
         user.setToken(UUID.randomUUID().toString());
 
         //Convertir el User(Modelo de usuario) a UserEntity para guardarlo en base de datos
-        UserEntity userEntity = UserMapper.toUserEntity(user);
-        userEntity.setPhones(user.getPhones().stream().map(phone -> {
-                    PhoneEntity phoneEntity = UserMapper.toPhoneEntity(phone);
-                    phoneEntity.setUser(userEntity);
-                    return phoneEntity;
-                }
-        ).collect(Collectors.toList()));
-
-        //Llama el metodo para guardar el UserEntity y devolver un userEntity
-        UserEntity createdUser = userRepository.save(userEntity);
-
-        //Convertir el UserEntity en User(Modelo de usuario)
-        User createdUserResponse = UserMapper.toUserModel(createdUser);
+        UserEntity userEntity = userMetrics.record(CREATE, Stage.MAPPING, () -> toNewUserEntity(user));
+
+        UserResponseDTO response;
+        try {
+            response = transactionTemplate.execute(status -> {
+                //Llama el metodo para guardar el UserEntity y devolver un userEntity
+                UserEntity createdUser = userMetrics.record(CREATE, Stage.SAVE,
+                        () -> userRepository.saveAndFlush(userEntity));
+                userOutbox.record(UserChangeType.CREATED, createdUser.getId(), createdUser.getVersion());
+
+                //Convertir el UserEntity en User(Modelo de usuario) y luego en la respuesta
+                return userMetrics.record(CREATE, Stage.MAPPING,
+                        () -> UserMapper.toUserResponse(UserMapper.toUserModel(createdUser)));
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                userMetrics.duplicateEmail(false);
+                // El cache tenía el email como no registrado
+                userCache.evict(null, user.getEmail());
+                throw emailAlreadyRegistered(user.getEmail());
+            }
+            throw e;
+        }
 
-        //Retorna una respuesta de User luego de invocar el metodo SetResponse
-        return setResponse(createdUserResponse);
+        // El email deja de estar en el cache de emails no registrados
+        userCache.evict(user.getId(), user.getEmail());
+        tokenIndex.put(user.getToken(), user.getId());
+        return response;
     }
 
     /**
@@ -110,112 +384,373 @@ public class UserService {
     public UserResponseDTO updateUser(User user) {
 
         //Se busca el usuario por email a ver si existe
-        Optional<UserEntity> searchUser = userRepository.findByEmail(user.getEmail());
+        Optional<User> searchUser = userMetrics.record(UPDATE, Stage.LOOKUP,
+                () -> userCache.findByEmail(user.getEmail()).filter(UserService::isActive));
 
         if (searchUser.isEmpty()) {
             throw new IllegalArgumentException("No se encontro ningún usuario con el email" + user.getEmail());
         }
 
-        // Actualiza los datos del usuario
-        user.setId(searchUser.get().getId());
-        user.setName(user.getName());
-        user.setEmail(user.getEmail());
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        user.setPhones(user.getPhones());
-        user.setCreated(searchUser.get().getCreated());
-        user.setModified(LocalDate.now());
-        user.setLastLogin(searchUser.get().getLastLogin());
-        user.setToken(searchUser.get().getToken());
+        // Se reutiliza el hash si la contraseña no cambió, salvo que use un algoritmo o costo anterior
+        User changes = User.builder()
+                .name(user.getName())
+                .email(user.getEmail())
+                .password(userMetrics.record(UPDATE, Stage.PASSWORD_ENCODING,
+                        () -> passwordHashingService.rehashIfNeeded(user.getPassword(), searchUser.get().getPassword())))
+                .phones(user.getPhones())
+                .build();
 
+        return applyChanges(UPDATE, searchUser.get(), changes);
+    }
+
+    /**
+     * Actualiza solo los campos enviados de un usuario existente.
+     *
+     * @param id              id del usuario
+     * @param expectedVersion versión que el cliente espera modificar (header If-Match), o null para no exigirla
+     * @param patch           campos a modificar, los campos en null no se modifican
+     * @return UserResponseDTO DTO de respuesta con información del usuario actualizado.
+     * @throws ResponseStatusException 404 si el usuario no existe, 412 si la versión no coincide,
+     *                                 400 si los datos no son válidos y 409 si hay una modificación concurrente
+     */
+    public UserResponseDTO patchUser(String id, Long expectedVersion, User patch) {
+        User current = userMetrics.record(PATCH, Stage.LOOKUP, () -> findActiveUser(id))
+                .orElseThrow(() -> userNotFound(id));
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new ResponseStatusException(
+                    HttpStatus.PRECONDITION_FAILED,
+                    "La versión del usuario " + id + " no coincide con If-Match"
+            );
+        }
+
+        // Se valida el usuario como quedaría; la contraseña guardada es un hash, solo se valida si se envía
+        User patched = current.toBuilder()
+                .name(patch.getName() != null ? patch.getName() : current.getName())
+                .email(patch.getEmail() != null ? patch.getEmail() : current.getEmail())
+                .password(patch.getPassword())
+                .phones(patch.getPhones() != null ? patch.getPhones() : current.getPhones())
+                .build();
+        List<Violation> violations = userMetrics.record(PATCH, Stage.VALIDATION, () -> userValidator.validate(patched));
+        if (patch.getPassword() == null) {
+            violations.removeIf(violation -> "password".equals(violation.getField()));
+        }
+        if (!violations.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, UserValidator.toMessage(violations));
+        }
+
+        User changes = patch.toBuilder()
+                .password(patch.getPassword() == null ? null
+                        : userMetrics.record(PATCH, Stage.PASSWORD_ENCODING,
+                        () -> passwordHashingService.rehashIfNeeded(patch.getPassword(), current.getPassword())))
+                .build();
+
+        return applyChanges(PATCH, current, changes);
+    }
+
+    /**
+     * Aplica los cambios sobre la entidad administrada del usuario, de modo que Hibernate solo actualiza
+     * las columnas modificadas y solo inserta o elimina los teléfonos que cambiaron.
+     * Si otra petición modificó al usuario después de leerlo, se responde 409.
+     *
+     * @param operation operación que aplica los cambios, para las métricas
+     * @param current usuario leído antes de encriptar la contraseña
+     * @param changes campos nuevos, con la contraseña ya encriptada; los campos en null no se modifican
+     * @return UserResponseDTO DTO de respuesta con información del usuario actualizado.
+     */
+    private UserResponseDTO applyChanges(Operation operation, User current, User changes) {
+        try {
+            return transactionTemplate.execute(status -> {
+                UserEntity userEntity = userMetrics.record(operation, Stage.LOOKUP,
+                                () -> userRepository.findWithPhonesById(current.getId()))
+                        .orElseThrow(() -> userNotFound(current.getId()));
+                if (!Objects.equals(userEntity.getVersion(), current.getVersion())) {
+                    throw concurrentModification(current.getId(), null);
+                }
+
+                boolean modified = false;
+                if (changes.getName() != null && !changes.getName().equals(userEntity.getName())) {
+                    userEntity.setName(changes.getName());
+                    modified = true;
+                }
+                if (changes.getEmail() != null && !changes.getEmail().equals(userEntity.getEmail())) {
+                    userEntity.setEmail(changes.getEmail());
+                    modified = true;
+                }
+                if (changes.getPassword() != null && !changes.getPassword().equals(userEntity.getPassword())) {
+                    userEntity.setPassword(changes.getPassword());
+                    modified = true;
+                }
+                if (changes.getPhones() != null) {
+                    modified |= applyPhones(userEntity, changes.getPhones());
+                }
+                if (modified) {
+                    userEntity.setModified(LocalDate.now());
+                }
+
+                // Si nada cambió, Hibernate no ejecuta ningún UPDATE y la versión se mantiene
+                UserEntity modifiedUser = userMetrics.record(operation, Stage.SAVE,
+                        () -> userRepository.saveAndFlush(userEntity));
+                if (modified) {
+                    userOutbox.record(UserChangeType.UPDATED, modifiedUser.getId(), modifiedUser.getVersion());
+                }
+                return userMetrics.record(operation, Stage.MAPPING,
+                        () -> UserMapper.toUserResponse(UserMapper.toUserModel(modifiedUser)));
+            });
+        } catch (OptimisticLockingFailureException e) {
+            throw concurrentModification(current.getId(), e);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw emailAlreadyRegistered(changes.getEmail());
+            }
+            throw e;
+        } finally {
+            userCache.evict(current.getId(), current.getEmail(), changes.getEmail());
+        }
+    }
+
+    /**
+     * Convierte un usuario nuevo a UserEntity junto con sus teléfonos.
+     *
+     * @param user usuario nuevo, con la contraseña ya encriptada
+     * @return UserEntity listo para guardarse.
+     */
+    private static UserEntity toNewUserEntity(User user) {
         UserEntity userEntity = UserMapper.toUserEntity(user);
-        userEntity.setPhones(user.getPhones().stream().map(p -> {
-            PhoneEntity phoneEntity = UserMapper.toPhoneEntity(p);
+        userEntity.setPhones(user.getPhones().stream().map(phone -> {
+                    PhoneEntity phoneEntity = UserMapper.toPhoneEntity(phone);
+                    phoneEntity.setUser(userEntity);
+                    return phoneEntity;
+                }
+        ).collect(Collectors.toList()));
+        return userEntity;
+    }
+
+    /**
+     * Deja en el usuario exactamente los teléfonos indicados, comparándolos por (number, citycode, countrycode):
+     * los teléfonos que no cambian se conservan, solo se eliminan los que sobran y se agregan los nuevos.
+     *
+     * @param userEntity usuario administrado con sus teléfonos cargados
+     * @param phones     teléfonos que debe tener el usuario
+     * @return true si se agregó o eliminó algún teléfono.
+     */
+    static boolean applyPhones(UserEntity userEntity, List<Phone> phones) {
+        List<Phone> pending = new ArrayList<>(phones);
+        boolean modified = false;
+        Iterator<PhoneEntity> existing = userEntity.getPhones().iterator();
+        while (existing.hasNext()) {
+            PhoneEntity phoneEntity = existing.next();
+            Optional<Phone> same = pending.stream().filter(phone -> isSamePhone(phoneEntity, phone)).findFirst();
+            if (same.isPresent()) {
+                pending.remove(same.get());
+            } else {
+                // orphanRemoval elimina la fila del teléfono
+                existing.remove();
+                modified = true;
+            }
+        }
+        for (Phone phone : pending) {
+            PhoneEntity phoneEntity = UserMapper.toPhoneEntity(phone);
             phoneEntity.setUser(userEntity);
-            return phoneEntity;
-        }).collect(Collectors.toList()));
+            userEntity.getPhones().add(phoneEntity);
+            modified = true;
+        }
+        return modified;
+    }
 
-        // Guarda el usuario en la base de datos
-        UserEntity modifiedUser = userRepository.save(userEntity);
+    private static boolean isSamePhone(PhoneEntity phoneEntity, Phone phone) {
+        return Objects.equals(phoneEntity.getNumber(), phone.getNumber())
+                && Objects.equals(phoneEntity.getCityCode(), phone.getCitycode())
+                && Objects.equals(phoneEntity.getCountryCode(), phone.getCountrycode());
+    }
 
-        // Convierte el UserEntity a un User para poder retornarlo en el response
-        User updatedUser = UserMapper.toUserModel(modifiedUser);
+    /**
+     * Obtiene un usuario por su id.
+     *
+     * @param id id del usuario
+     * @return UserResponseDTO DTO de respuesta con información del usuario.
+     * @throws ResponseStatusException si el usuario no existe o está dado de baja
+     */
+    public UserResponseDTO getUser(String id) {
+        return findActiveUser(id)
+                .map(UserMapper::toUserResponse)
+                .orElseThrow(() -> userNotFound(id));
+    }
 
-        // Arma y devuelve la respuesta
-        return setResponse(updatedUser);
+    /**
+     * Obtiene el usuario dueño de un token, sin consultar la base de datos si el token y el usuario están
+     * en memoria. El último inicio de sesión se registra en segundo plano (ver LastLoginRecorder), como máximo
+     * una vez al día por usuario, así que la respuesta muestra el valor anterior a esta petición.
+     *
+     * @param token token del usuario
+     * @return UserResponseDTO DTO de respuesta con información del usuario.
+     * @throws ResponseStatusException 401 si el token no corresponde a ningún usuario
+     */
+    public UserResponseDTO getUserByToken(String token) {
+        User user = tokenIndex.findUserId(token)
+                .flatMap(this::findActiveUser)
+                .orElseThrow(UserService::invalidToken);
+        LocalDate today = LocalDate.now();
+        if (user.getLastLogin() == null || user.getLastLogin().isBefore(today)) {
+            lastLoginRecorder.record(user.getId(), today);
+        }
+        return UserMapper.toUserResponse(user);
+    }
 
+    /**
+     * Obtiene la versión actual de un usuario sin cargar sus teléfonos,
+     * para responder peticiones condicionales con una consulta mínima.
+     *
+     * @param id id del usuario
+     * @return la versión del usuario.
+     * @throws ResponseStatusException si el usuario no existe o está dado de baja
+     */
+    public long getUserVersion(String id) {
+        return userRepository.findVersionById(id)
+                .orElseThrow(() -> userNotFound(id));
+    }
 
+    /**
+     * Da de baja a un usuario: se conserva con isActive en false, deja de listarse y de poder consultarse,
+     * y su token deja de ser válido. Dar de baja a un usuario que ya está inactivo no hace nada.
+     *
+     * @param id id del usuario
+     * @throws ResponseStatusException 404 si el usuario no existe
+     */
+    public void deleteUser(String id) {
+        List<UserResponseDTO> users = userRepository.findActiveByIdIn(List.of(id));
+        if (users.isEmpty() && !userRepository.existsById(id)) {
+            throw userNotFound(id);
+        }
+        deactivate(users);
     }
 
     /**
-     * Valida que el email tenga el formato correcto y no esté registrado previamente.
+     * Da de baja a varios usuarios, indicados por sus ids o por los filtros de la búsqueda, sin cargar entidades:
+     * cada bloque se da de baja con una sola sentencia UPDATE. Los ids que no existen o que ya están inactivos
+     * se ignoran. Con filtros, los usuarios se recorren por el índice de la búsqueda y se dan de baja en bloques
+     * de DEACTIVATE_CHUNK_SIZE, cada uno en su propia transacción.
      *
-     * @param email correo electrónico a validar
-     * @throws ResponseStatusException si el email tiene un formato incorrecto o ya está registrado
+     * @param request ids o filtros de los usuarios a dar de baja
+     * @return cantidad de usuarios dados de baja.
+     * @throws ResponseStatusException 400 si no se envían ids ni filtros, si se envían ambos, si hay demasiados ids
+     *                                 o si los filtros no son válidos o están vacíos
      */
-    private void validateFormatEmail(String email) {
-        Pattern pattern = Pattern.compile(EMAIL_REGEX);
-        Matcher matcher = pattern.matcher(email);
-        if (!matcher.matches()) {
+    public UserDeactivateResponseDTO deactivateUsers(UserDeactivateRequestDTO request) {
+        boolean byIds = request.getIds() != null;
+        if (byIds == (request.getFilter() != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Se debe enviar ids o filter, pero no ambos");
+        }
+        int deactivated = byIds ? deactivateByIds(request.getIds()) : deactivateByFilter(request.getFilter());
+        return UserDeactivateResponseDTO.builder()
+                .deactivated(deactivated)
+                .build();
+    }
+
+    private int deactivateByIds(List<String> ids) {
+        if (ids.size() > DEACTIVATE_CHUNK_SIZE) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST,
-                    "El formato del correo no es el indicado"
+                    "Se pueden dar de baja como máximo " + DEACTIVATE_CHUNK_SIZE + " ids por petición"
             );
         }
-        if (userRepository.findByEmail(email).isPresent()) {
+        return ids.isEmpty() ? 0 : deactivate(userRepository.findActiveByIdIn(new HashSet<>(ids)));
+    }
+
+    private int deactivateByFilter(UserSearchRequestDTO filter) {
+        checkFilters(filter);
+        // Sin ningún filtro se darían de baja todos los usuarios
+        if (!StringUtils.hasText(filter.getName()) && !StringUtils.hasText(filter.getEmailDomain())
+                && filter.getCreatedFrom() == null && filter.getCreatedTo() == null
+                && filter.getModifiedFrom() == null && filter.getModifiedTo() == null
+                && !StringUtils.hasText(filter.getCountryCode())) {
             throw new ResponseStatusException(
-                    HttpStatus.CONFLICT,
-                    "El correo " + email + " ya  registrado"
+                    HttpStatus.BAD_REQUEST,
+                    "La baja por filtros requiere al menos un filtro además de isActive"
             );
         }
+
+        UserSearchRequestDTO active = filter.toBuilder().isActive(true).build();
+        int deactivated = 0;
+        List<UserResponseDTO> users = userRepository.search(active, null, null, DEACTIVATE_CHUNK_SIZE);
+        while (!users.isEmpty()) {
+            deactivated += deactivate(users);
+            if (users.size() < DEACTIVATE_CHUNK_SIZE) {
+                break;
+            }
+            // Se continúa después del último bloque, aunque otra petición haya modificado alguno de sus usuarios
+            UserResponseDTO last = users.get(users.size() - 1);
+            users = userRepository.search(active, last.getCreated(), last.getId().toString(), DEACTIVATE_CHUNK_SIZE);
+        }
+        return deactivated;
     }
 
     /**
-     * Valida que la contraseña tenga el formato correcto.
+     * Da de baja a los usuarios indicados con un UPDATE y registra sus cambios en el outbox con un
+     * INSERT ... SELECT, en una sola transacción. Después de confirmarla, quita sus entradas del cache
+     * y sus tokens del índice.
      *
-     * @param password contraseña a validar
-     * @throws ResponseStatusException si la contraseña tiene un formato incorrecto
+     * @param users usuarios leídos con la proyección de respuesta
+     * @return cantidad de usuarios dados de baja.
      */
-    private void validatePassword(String password) {
-        Pattern pattern = Pattern.compile(PWD_REGEX);
-        Matcher matcher = pattern.matcher(password);
-        if (!matcher.matches()) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    "La contraseña tiene un formato incorrecto"
-            );
+    private int deactivate(List<UserResponseDTO> users) {
+        if (users.isEmpty()) {
+            return 0;
         }
+        List<String> ids = users.stream().map(user -> user.getId().toString()).collect(Collectors.toList());
+        Integer deactivated = transactionTemplate.execute(status -> {
+            int count = userRepository.deactivateByIdIn(ids, LocalDate.now());
+            userOutbox.recordCurrentVersions(UserChangeType.DEACTIVATED, ids);
+            return count;
+        });
+        users.forEach(user -> {
+            userCache.evict(user.getId().toString(), user.getEmail());
+            tokenIndex.remove(user.getToken());
+        });
+        return deactivated != null ? deactivated : 0;
+    }
+
+    private Optional<User> findActiveUser(String id) {
+        return userCache.findById(id).filter(UserService::isActive);
+    }
+
+    private static boolean isActive(User user) {
+        return Boolean.TRUE.equals(user.getIsActive());
     }
 
     /**
-     * Crea una respuesta de usuario a partir del modelo de usuario.
+     * Indica si el error de integridad corresponde al índice único de email.
      *
-     * @param user modelo de usuario
-     * @return UserResponseDTO DTO de respuesta de usuario
+     * @param e error lanzado al insertar
+     * @return true si el email ya estaba registrado.
      */
-    private UserResponseDTO setResponse(User user) {
-        List<PhoneResponseDTO> phones = new ArrayList<>();
-        if (user.getPhones() != null) {
-            user.getPhones().forEach(p -> {
-                phones.add(PhoneResponseDTO.builder()
-                        .number(p.getNumber())
-                        .citycode(p.getCitycode())
-                        .countrycode(p.getCountrycode())
-                        .build());
-            });
-        }
+    static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(UserEntity.EMAIL_UNIQUE_INDEX);
+    }
 
-        return UserResponseDTO.builder()
-                .id(UUID.fromString(user.getId()))
-                .name(user.getName())
-                .email(user.getEmail())
-                .password(user.getPassword())
-                .phones(phones)
-                .created(user.getCreated())
-                .modified(user.getModified())
-                .lastLogin(user.getLastLogin() != null ? user.getLastLogin() : user.getCreated())
-                .token(user.getToken())
-                .isActive(user.getIsActive() != null && user.getIsActive())
-                .build();
+    private static ResponseStatusException userNotFound(String id) {
+        return new ResponseStatusException(
+                HttpStatus.NOT_FOUND,
+                "No se encontro ningún usuario con el id " + id
+        );
     }
 
+    static ResponseStatusException invalidToken() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "El token no es válido");
+    }
+
+    private static ResponseStatusException concurrentModification(String id, Exception cause) {
+        return new ResponseStatusException(
+                HttpStatus.CONFLICT,
+                "El usuario " + id + " fue modificado por otra petición",
+                cause
+        );
+    }
+
+    private static ResponseStatusException emailAlreadyRegistered(String email) {
+        return new ResponseStatusException(
+                HttpStatus.CONFLICT,
+                "El correo " + email + " ya  registrado"
+        );
+    }
 }
@@ -0,0 +1,74 @@
+package com.exam.nisum.user.api.validation;
+
+import com.exam.nisum.user.api.model.User;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Valida el formato del email recorriéndolo una sola vez, sin expresiones regulares.
+ * Acepta lo mismo que ^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\.[a-zA-Z]{2,}$ (aaaaaaa@dominio.cl).
+ */
+@Component
+@Order(10)
+public class EmailFormatRule implements ValidationRule {
+
+    public static final String MESSAGE = "El formato del correo no es el indicado";
+
+    @Override
+    public void validate(User user, List<Violation> violations) {
+        String email = user.getEmail();
+        if (email != null && !email.isEmpty() && !isValid(email)) {
+            violations.add(new Violation("email", MESSAGE));
+        }
+    }
+
+    /**
+     * Indica si el email tiene el formato correcto.
+     *
+     * @param email email a validar
+     * @return true si el formato es correcto.
+     */
+    public static boolean isValid(String email) {
+        int length = email.length();
+        int at = -1;
+        int lastDot = -1;
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                // Un solo @, con al menos un caracter antes
+                if (at >= 0 || i == 0) {
+                    return false;
+                }
+                at = i;
+            } else if (at < 0) {
+                if (!isAsciiLetterOrDigit(c) && c != '.' && c != '_' && c != '%' && c != '+' && c != '-') {
+                    return false;
+                }
+            } else if (c == '.') {
+                lastDot = i;
+            } else if (!isAsciiLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        // El dominio necesita al menos un caracter antes del último punto y dos letras después
+        if (at < 0 || lastDot < at + 2 || length - lastDot - 1 < 2) {
+            return false;
+        }
+        for (int i = lastDot + 1; i < length; i++) {
+            if (!isAsciiLetter(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+}
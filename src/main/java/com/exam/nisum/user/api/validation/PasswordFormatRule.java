@@ -0,0 +1,69 @@
+package com.exam.nisum.user.api.validation;
+
+import com.exam.nisum.user.api.model.User;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Valida el formato de la contraseña recorriéndola una sola vez, sin expresiones regulares.
+ * La contraseña debe tener mínimo 8 y máximo 16 caracteres, números,
+ * letras minúsculas y mayúsculas (123Acb1234*).
+ */
+@Component
+@Order(20)
+public class PasswordFormatRule implements ValidationRule {
+
+    public static final String MESSAGE = "La contraseña tiene un formato incorrecto";
+
+    public static final int MIN_LENGTH = 8;
+    public static final int MAX_LENGTH = 16;
+
+    @Override
+    public void validate(User user, List<Violation> violations) {
+        String password = user.getPassword();
+        if (password != null && !password.isEmpty() && !isValid(password)) {
+            violations.add(new Violation("password", MESSAGE));
+        }
+    }
+
+    /**
+     * Indica si la contraseña tiene el formato correcto.
+     *
+     * @param password contraseña a validar
+     * @return true si el formato es correcto.
+     */
+    public static boolean isValid(String password) {
+        // Se cuentan code points, igual que el "." de una expresión regular
+        int characters = 0;
+        boolean digit = false;
+        boolean lower = false;
+        boolean upper = false;
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            if (isLineTerminator(c)) {
+                return false;
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < password.length()
+                    && Character.isLowSurrogate(password.charAt(i + 1))) {
+                i++;
+            } else if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c >= 'a' && c <= 'z') {
+                lower = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                upper = true;
+            }
+            if (++characters > MAX_LENGTH) {
+                return false;
+            }
+        }
+        return characters >= MIN_LENGTH && digit && lower && upper;
+    }
+
+    // Caracteres que el "." de una expresión regular no acepta
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == (char) 0x85 || c == (char) 0x2028 || c == (char) 0x2029;
+    }
+}
@@ -0,0 +1,65 @@
+package com.exam.nisum.user.api.validation;
+
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.model.User;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Valida los teléfonos: el número es obligatorio y tanto el número como los códigos
+ * de ciudad y país solo pueden tener dígitos.
+ */
+@Component
+@Order(30)
+public class PhoneFormatRule implements ValidationRule {
+
+    public static final int MAX_NUMBER_LENGTH = 20;
+    public static final int MAX_CODE_LENGTH = 5;
+
+    @Override
+    public void validate(User user, List<Violation> violations) {
+        if (user.getPhones() == null) {
+            return;
+        }
+        for (int i = 0; i < user.getPhones().size(); i++) {
+            Phone phone = user.getPhones().get(i);
+            String field = "phones[" + i + "]";
+            if (phone == null || phone.getNumber() == null || phone.getNumber().isEmpty()) {
+                violations.add(new Violation(field + ".number", "El número de teléfono es obligatorio"));
+                continue;
+            }
+            if (!isDigits(phone.getNumber(), MAX_NUMBER_LENGTH)) {
+                violations.add(new Violation(field + ".number", "El número de teléfono solo puede tener dígitos"));
+            }
+            if (phone.getCitycode() != null && !isDigits(phone.getCitycode(), MAX_CODE_LENGTH)) {
+                violations.add(new Violation(field + ".citycode", "El código de ciudad solo puede tener dígitos"));
+            }
+            if (phone.getCountrycode() != null && !isDigits(phone.getCountrycode(), MAX_CODE_LENGTH)) {
+                violations.add(new Violation(field + ".countrycode", "El código de país solo puede tener dígitos"));
+            }
+        }
+    }
+
+    /**
+     * Indica si el valor tiene entre 1 y maxLength dígitos.
+     *
+     * @param value     valor a validar
+     * @param maxLength largo máximo
+     * @return true si solo tiene dígitos.
+     */
+    public static boolean isDigits(String value, int maxLength) {
+        int length = value.length();
+        if (length == 0 || length > maxLength) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,31 @@
+package com.exam.nisum.user.api.validation;
+
+import com.exam.nisum.user.api.model.User;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Valida que los campos obligatorios del usuario estén presentes.
+ */
+@Component
+@Order(0)
+public class RequiredFieldsRule implements ValidationRule {
+
+    @Override
+    public void validate(User user, List<Violation> violations) {
+        required("name", user.getName(), violations);
+        required("email", user.getEmail(), violations);
+        required("password", user.getPassword(), violations);
+        if (user.getPhones() == null || user.getPhones().isEmpty()) {
+            violations.add(new Violation("phones", "El campo phones es obligatorio"));
+        }
+    }
+
+    private static void required(String field, String value, List<Violation> violations) {
+        if (value == null || value.isEmpty()) {
+            violations.add(new Violation(field, "El campo " + field + " es obligatorio"));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.exam.nisum.user.api.validation;
+
+import com.exam.nisum.user.api.model.User;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Componente que aplica todas las reglas de validación registradas sobre un usuario
+ * y reúne sus errores en una sola pasada.
+ */
+@Component
+public class UserValidator {
+
+    private final List<ValidationRule> rules;
+
+    public UserValidator(List<ValidationRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    /**
+     * Valida el usuario con todas las reglas.
+     *
+     * @param user usuario a validar
+     * @return lista con todos los errores encontrados, vacía si el usuario es válido.
+     */
+    public List<Violation> validate(User user) {
+        List<Violation> violations = new ArrayList<>(0);
+        for (ValidationRule rule : rules) {
+            rule.validate(user, violations);
+        }
+        return violations;
+    }
+
+    /**
+     * Valida el usuario con todas las reglas.
+     *
+     * @param user usuario a validar
+     * @throws ResponseStatusException con todos los errores si el usuario no es válido
+     */
+    public void validateOrThrow(User user) {
+        List<Violation> violations = validate(user);
+        if (!violations.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, toMessage(violations));
+        }
+    }
+
+    /**
+     * Une los mensajes de los errores en un solo texto.
+     *
+     * @param violations errores encontrados
+     * @return mensajes separados por "; ".
+     */
+    public static String toMessage(List<Violation> violations) {
+        return violations.stream().map(Violation::getMessage).collect(Collectors.joining("; "));
+    }
+}
@@ -0,0 +1,21 @@
+package com.exam.nisum.user.api.validation;
+
+import com.exam.nisum.user.api.model.User;
+
+import java.util.List;
+
+/**
+ * Regla de validación sobre un usuario. Cada regla agrega sus errores a la lista recibida
+ * en lugar de lanzar una excepción, para reportar todos los errores en una sola pasada.
+ * Las reglas registradas como beans se aplican automáticamente en el orden de @Order.
+ */
+public interface ValidationRule {
+
+    /**
+     * Valida el usuario.
+     *
+     * @param user       usuario a validar
+     * @param violations lista donde se agregan los errores encontrados
+     */
+    void validate(User user, List<Violation> violations);
+}
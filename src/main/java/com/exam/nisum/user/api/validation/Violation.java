@@ -0,0 +1,15 @@
+package com.exam.nisum.user.api.validation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Clase que representa un error de validación sobre un campo del usuario.
+ */
+@Data
+@AllArgsConstructor
+public class Violation {
+
+    private String field;
+    private String message;
+}
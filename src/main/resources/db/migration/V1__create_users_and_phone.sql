@@ -0,0 +1,35 @@
+-- Esquema inicial de UserEntity y PhoneEntity, con los índices de las consultas de la API
+CREATE SEQUENCE phone_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users(
+    id VARCHAR(36) NOT NULL,
+    name VARCHAR(255),
+    email VARCHAR(255),
+    email_normalized VARCHAR(255) NOT NULL,
+    password VARCHAR(255),
+    created DATE,
+    modified DATE,
+    last_login DATE,
+    token VARCHAR(255),
+    is_active BOOLEAN,
+    version BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX ux_users_email_normalized ON users(email_normalized);
+CREATE UNIQUE INDEX ux_users_token ON users(token);
+-- Paginación por clave (created, id) del listado
+CREATE INDEX ix_users_created_id ON users(created, id);
+
+CREATE TABLE phone(
+    id BIGINT NOT NULL,
+    number VARCHAR(255),
+    city_code VARCHAR(255),
+    country_code VARCHAR(255),
+    user_id VARCHAR(36),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_phone_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+-- Carga de los teléfonos de un bloque de usuarios
+CREATE INDEX ix_phone_user_id ON phone(user_id);
@@ -0,0 +1,20 @@
+-- Búsqueda de usuarios: un índice por filtro, que entrega las filas en el orden de la paginación (created, id)
+-- para leer solo una página de las coincidencias en lugar de ordenarlas todas.
+ALTER TABLE users ADD COLUMN email_domain VARCHAR(255);
+
+UPDATE users SET email_domain = SUBSTRING(email_normalized, LOCATE('@', email_normalized) + 1);
+
+CREATE INDEX ix_users_email_domain_created_id ON users(email_domain, created, id);
+CREATE INDEX ix_users_active_created_id ON users(is_active, created, id);
+-- Prefijo del nombre (LIKE 'prefijo%') y rango de fechas de modificación; las coincidencias se ordenan
+CREATE INDEX ix_users_name ON users(name);
+CREATE INDEX ix_users_modified ON users(modified);
+
+-- Fecha de creación del usuario copiada en sus teléfonos (no cambia), para recorrer los usuarios con un teléfono
+-- de un país o ciudad en el orden de la paginación sin pasar por la tabla users
+ALTER TABLE phone ADD COLUMN user_created DATE;
+
+UPDATE phone p SET user_created = (SELECT u.created FROM users u WHERE u.id = p.user_id);
+
+CREATE INDEX ix_phone_country_created_user ON phone(country_code, user_created, user_id);
+CREATE INDEX ix_phone_country_city_created_user ON phone(country_code, city_code, user_created, user_id);
@@ -0,0 +1,15 @@
+-- Outbox de cambios de usuarios: cada creación o modificación agrega una fila en la misma transacción que el cambio.
+-- El relay publica las filas pendientes (position en null) en orden de id y les asigna una posición consecutiva,
+-- que es el cursor del feed de cambios.
+CREATE TABLE user_outbox(
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id VARCHAR(36) NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    user_version BIGINT NOT NULL,
+    occurred_at TIMESTAMP NOT NULL,
+    position BIGINT,
+    PRIMARY KEY (id)
+);
+
+-- Filas pendientes del relay (position en null) y feed de cambios posteriores a un cursor
+CREATE UNIQUE INDEX ux_user_outbox_position ON user_outbox(position);
@@ -0,0 +1,5 @@
+-- Baja lógica de usuarios: is_active pasa a ser obligatorio y los usuarios sin estado quedan activos
+UPDATE users SET is_active = TRUE WHERE is_active IS NULL;
+
+ALTER TABLE users ALTER COLUMN is_active SET DEFAULT TRUE;
+ALTER TABLE users ALTER COLUMN is_active SET NOT NULL;
@@ -0,0 +1,4 @@
+-- Búsqueda por prefijo de nombre: se pagina por (name, id), así el índice entrega las coincidencias del prefijo
+-- en el orden de la paginación y la búsqueda lee solo una página en lugar de ordenar todas por (created, id).
+CREATE INDEX ix_users_name_id ON users(name, id);
+DROP INDEX ix_users_name;
@@ -0,0 +1,104 @@
+package com.exam.nisum.user.api.cache;
+
+import com.exam.nisum.user.api.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenIndexTest {
+
+    private static final String ID = "bb5d5031-4d64-4ff7-8164-1654002f7611";
+    private static final String TOKEN = "a83f6972-4201-49b2-9ff1-a2586c7df84e";
+
+    @Mock
+    private UserRepository mockedUserRepository;
+
+    @Mock
+    private TransactionTemplate mockedTransactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TokenIndex tokenIndex;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenIndex = new TokenIndex(mockedUserRepository, mockedTransactionTemplate, meterRegistry);
+    }
+
+    @Test
+    void warmUp_loadsAllTokensWithoutLookups() {
+        //given
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(mockedTransactionTemplate).executeWithoutResult(any());
+        when(mockedUserRepository.streamTokens()).thenReturn(Stream.of(owner(TOKEN, ID)));
+
+        //when
+        tokenIndex.warmUp();
+
+        //then
+        assertEquals(Optional.of(ID), tokenIndex.findUserId(TOKEN));
+        assertEquals(1.0, meterRegistry.get("nisum.users.tokens").gauge().value());
+        verify(mockedUserRepository, never()).findIdByToken(anyString());
+    }
+
+    @Test
+    void findUserId_missingToken_fallsBackToRepositoryOnce() {
+        when(mockedUserRepository.findIdByToken(TOKEN)).thenReturn(Optional.of(ID));
+
+        assertEquals(Optional.of(ID), tokenIndex.findUserId(TOKEN));
+        assertEquals(Optional.of(ID), tokenIndex.findUserId(TOKEN));
+
+        verify(mockedUserRepository, times(1)).findIdByToken(TOKEN);
+    }
+
+    @Test
+    void findUserId_malformedToken_skipsRepository() {
+        assertEquals(Optional.empty(), tokenIndex.findUserId("not-a-token"));
+
+        verify(mockedUserRepository, never()).findIdByToken(anyString());
+    }
+
+    @Test
+    void remove_dropsToken() {
+        tokenIndex.put(TOKEN, ID);
+        tokenIndex.remove(TOKEN);
+        when(mockedUserRepository.findIdByToken(TOKEN)).thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), tokenIndex.findUserId(TOKEN));
+    }
+
+    private static UserRepository.TokenOwner owner(String token, String id) {
+        return new UserRepository.TokenOwner() {
+            @Override
+            public String getToken() {
+                return token;
+            }
+
+            @Override
+            public String getId() {
+                return id;
+            }
+        };
+    }
+}
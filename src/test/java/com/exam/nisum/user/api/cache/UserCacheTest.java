@@ -0,0 +1,198 @@
+package com.exam.nisum.user.api.cache;
+
+import com.exam.nisum.user.api.config.UserCacheProperties;
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserCacheTest {
+
+    private static final String ID = "bb5d5031-4d64-4ff7-8164-1654002f7611";
+    private static final String EMAIL = "test@nisum.cl";
+
+    @Mock
+    private UserRepository mockedUserRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserCache userCache;
+
+    private UserEntity userEntity;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new UserCache(mockedUserRepository, new UserCacheProperties(), meterRegistry);
+
+        userEntity = new UserEntity();
+        userEntity.setId(ID);
+        userEntity.setEmail(EMAIL);
+        userEntity.setName("Test User Nisum");
+    }
+
+    @Test
+    void findByEmail_loadsOnceAndServesByIdFromCache() {
+        when(mockedUserRepository.findWithPhonesByEmail(EMAIL)).thenReturn(Optional.of(userEntity));
+        when(mockedUserRepository.findWithPhonesByIdIn(List.of(ID))).thenReturn(List.of(userEntity));
+
+        assertEquals(ID, userCache.findByEmail(EMAIL).get().getId());
+        assertEquals(ID, userCache.findByEmail(EMAIL).get().getId());
+        assertEquals(EMAIL, userCache.findById(ID).get().getEmail());
+
+        verify(mockedUserRepository, times(1)).findWithPhonesByEmail(EMAIL);
+        verify(mockedUserRepository, times(1)).findWithPhonesByIdIn(List.of(ID));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users.byId").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void findByEmail_remembersMissingEmail() {
+        when(mockedUserRepository.findWithPhonesByEmail(EMAIL)).thenReturn(Optional.empty());
+
+        assertFalse(userCache.findByEmail(EMAIL).isPresent());
+        assertFalse(userCache.findByEmail(EMAIL).isPresent());
+
+        verify(mockedUserRepository, times(1)).findWithPhonesByEmail(EMAIL);
+    }
+
+    @Test
+    void isRegistered_remembersFreeEmailUntilEvicted() {
+        //given
+        when(mockedUserRepository.findIdByEmailNormalized(EMAIL))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(ID));
+
+        //when
+        boolean first = userCache.isRegistered(EMAIL);
+        boolean cached = userCache.isRegistered("Test@Nisum.cl");
+        userCache.evict(ID, EMAIL);
+        boolean afterWrite = userCache.isRegistered(EMAIL);
+
+        //then
+        assertFalse(first);
+        assertFalse(cached);
+        assertTrue(afterWrite);
+        assertTrue(userCache.isRegistered(EMAIL));
+        verify(mockedUserRepository, times(2)).findIdByEmailNormalized(EMAIL);
+    }
+
+    @Test
+    void evict_reloadsAfterWrite() {
+        when(mockedUserRepository.findWithPhonesByEmail(EMAIL))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(userEntity));
+
+        assertFalse(userCache.findByEmail(EMAIL).isPresent());
+        userCache.evict(ID, EMAIL);
+
+        assertTrue(userCache.findByEmail(EMAIL).isPresent());
+    }
+
+    @Test
+    void findById_returnsCopies() {
+        when(mockedUserRepository.findWithPhonesByIdIn(List.of(ID))).thenReturn(List.of(userEntity));
+
+        userCache.findById(ID).get().setName("Modificado");
+
+        assertEquals("Test User Nisum", userCache.findById(ID).get().getName());
+    }
+
+    @Test
+    void evict_duringEmailLoad_discardsLoadedEntry() throws Exception {
+        //given
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        when(mockedUserRepository.findWithPhonesByEmail(EMAIL))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    // La consulta termina después de que otra petición confirmó la creación e invalidó el email
+                    evicted.await(5, TimeUnit.SECONDS);
+                    return Optional.empty();
+                })
+                .thenReturn(Optional.of(userEntity));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            //when
+            Future<Optional<User>> stale = executor.submit(() -> userCache.findByEmail(EMAIL));
+            loading.await();
+            Thread evicting = new Thread(() -> userCache.evict(ID, EMAIL));
+            evicting.start();
+            awaitBlockedOrTerminated(evicting);
+            evicted.countDown();
+            evicting.join();
+
+            //then
+            assertFalse(stale.get().isPresent());
+            assertTrue(userCache.findByEmail(EMAIL).isPresent());
+            verify(mockedUserRepository, times(2)).findWithPhonesByEmail(EMAIL);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void evict_duringIdLoad_discardsLoadedEntry() throws Exception {
+        //given
+        UserEntity updated = new UserEntity();
+        updated.setId(ID);
+        updated.setEmail(EMAIL);
+        updated.setName("Nombre Nuevo");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        when(mockedUserRepository.findWithPhonesByIdIn(List.of(ID)))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    evicted.await(5, TimeUnit.SECONDS);
+                    return List.of(userEntity);
+                })
+                .thenReturn(List.of(updated));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            //when
+            Future<Optional<User>> stale = executor.submit(() -> userCache.findById(ID));
+            loading.await();
+            Thread evicting = new Thread(() -> userCache.evict(ID, EMAIL));
+            evicting.start();
+            awaitBlockedOrTerminated(evicting);
+            evicted.countDown();
+            evicting.join();
+
+            //then
+            assertEquals("Test User Nisum", stale.get().get().getName());
+            assertEquals("Nombre Nuevo", userCache.findById(ID).get().getName());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Espera a que la invalidación quede bloqueada por la carga en curso, o a que termine si no se bloquea
+    private static void awaitBlockedOrTerminated(Thread thread) {
+        while (thread.getState() == Thread.State.NEW || thread.getState() == Thread.State.RUNNABLE) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.exam.nisum.user.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica que las migraciones de Flyway crean el esquema que esperan las entidades (ddl-auto=validate)
+ * y que el pool de conexiones se dimensiona con la cantidad de CPUs.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:nisumexam-schema;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=validate"})
+public class DatabaseSchemaTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void migrations_matchEntities() {
+        assertEquals(0, flyway.info().pending().length);
+        assertEquals("5", flyway.info().current().getVersion().getVersion());
+    }
+
+    @Test
+    void poolSize_followsCpuCount() throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+
+        assertEquals(DataSourcePoolConfig.poolSize(Runtime.getRuntime().availableProcessors()),
+                hikari.getMaximumPoolSize());
+    }
+}
@@ -0,0 +1,64 @@
+package com.exam.nisum.user.api.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Verifica los dos caminos de nisum.threads.virtual: en Java 17 se mantiene el pool de Tomcat y en Java 21 se usa
+ * un executor de hilos virtuales que se detiene al cerrar la aplicación. Solo se ejecuta el caso de la JVM actual.
+ */
+public class VirtualThreadConfigTest {
+
+    private static final boolean VIRTUAL_THREADS = Runtime.version().feature() >= 21;
+
+    @Test
+    void withoutVirtualThreads_keepsTomcatPool() {
+        assumeTrue(!VIRTUAL_THREADS);
+        //given
+        VirtualThreadConfig config = new VirtualThreadConfig();
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+        AsyncSupportConfigurer asyncSupport = mock(AsyncSupportConfigurer.class);
+
+        //when
+        customizer(config).customize(protocolHandler);
+        config.virtualThreadAsyncConfigurer().configureAsyncSupport(asyncSupport);
+        config.shutdown();
+
+        //then
+        verifyNoInteractions(protocolHandler, asyncSupport);
+    }
+
+    @Test
+    void withVirtualThreads_setsExecutorAndShutsItDown() {
+        assumeTrue(VIRTUAL_THREADS);
+        //given
+        VirtualThreadConfig config = new VirtualThreadConfig();
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+
+        //when
+        customizer(config).customize(protocolHandler);
+        config.shutdown();
+
+        //then
+        ArgumentCaptor<Executor> executor = ArgumentCaptor.forClass(Executor.class);
+        verify(protocolHandler).setExecutor(executor.capture());
+        assertTrue(((ExecutorService) executor.getValue()).isShutdown());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TomcatProtocolHandlerCustomizer<ProtocolHandler> customizer(VirtualThreadConfig config) {
+        return (TomcatProtocolHandlerCustomizer<ProtocolHandler>) config.virtualThreadProtocolHandlerCustomizer();
+    }
+}
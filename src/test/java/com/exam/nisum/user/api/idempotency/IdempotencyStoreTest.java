@@ -0,0 +1,148 @@
+package com.exam.nisum.user.api.idempotency;
+
+import com.exam.nisum.user.api.config.IdempotencyProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdempotencyStoreTest {
+
+    private static final String KEY = "9f2c6a1e-retry";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyStore = new IdempotencyStore(new ObjectMapper(), new IdempotencyProperties(), meterRegistry);
+    }
+
+    @Test
+    void execute_retry_returnsStoredResponseWithoutRunningAgain() {
+        //given
+        AtomicInteger runs = new AtomicInteger();
+
+        //when
+        IdempotencyStore.Result<String> first =
+                idempotencyStore.execute(KEY, Map.of("email", "a@b.cl"), () -> "user-" + runs.incrementAndGet());
+        IdempotencyStore.Result<String> retry =
+                idempotencyStore.execute(KEY, Map.of("email", "a@b.cl"), () -> "user-" + runs.incrementAndGet());
+
+        //then
+        assertEquals(1, runs.get());
+        assertFalse(first.isReplayed());
+        assertTrue(retry.isReplayed());
+        assertSame(first.getResponse(), retry.getResponse());
+        assertEquals(1, meterRegistry.get("nisum.idempotency.requests").tag("result", "replayed").counter().count());
+    }
+
+    @Test
+    void execute_concurrentDuplicate_waitsForInFlightExecution() throws Exception {
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<IdempotencyStore.Result<Integer>> original = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute(KEY, "body", () -> {
+                    started.countDown();
+                    await(release);
+                    return runs.incrementAndGet();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        //when
+        CompletableFuture<IdempotencyStore.Result<Integer>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute(KEY, "body", runs::incrementAndGet));
+        Thread.sleep(50);
+        release.countDown();
+
+        //then
+        assertEquals(1, original.get(5, TimeUnit.SECONDS).getResponse());
+        assertEquals(1, duplicate.get(5, TimeUnit.SECONDS).getResponse());
+        assertTrue(duplicate.get().isReplayed());
+        assertEquals(1, runs.get());
+        assertEquals(1, meterRegistry.get("nisum.idempotency.requests").tag("result", "coalesced").counter().count());
+    }
+
+    @Test
+    void execute_failure_releasesKey() {
+        assertThrows(ResponseStatusException.class, () -> idempotencyStore.execute(KEY, "body", () -> {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "El email ya está registrado");
+        }));
+
+        IdempotencyStore.Result<String> retry = idempotencyStore.execute(KEY, "body", () -> "created");
+
+        assertEquals("created", retry.getResponse());
+        assertFalse(retry.isReplayed());
+    }
+
+    @Test
+    void execute_sameKeyWithOtherRequest_throwsUnprocessableEntity() {
+        idempotencyStore.execute(KEY, Map.of("email", "a@b.cl"), () -> "created");
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                idempotencyStore.execute(KEY, Map.of("email", "otro@b.cl"), () -> "created"));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus());
+    }
+
+    @Test
+    void execute_storeFull_replaysRetriesAndRejectsNewKeys() {
+        //given
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setMaximumSize(3);
+        idempotencyStore = new IdempotencyStore(new ObjectMapper(), properties, meterRegistry);
+        for (int i = 0; i < 3; i++) {
+            idempotencyStore.execute(KEY + i, "body", () -> "created");
+        }
+
+        //when
+        IdempotencyStore.Result<String> retry = idempotencyStore.execute(KEY + 0, "body", () -> "again");
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                idempotencyStore.execute(KEY, "body", () -> "created"));
+
+        //then
+        assertTrue(retry.isReplayed());
+        assertEquals("created", retry.getResponse());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals(1, meterRegistry.get("nisum.idempotency.requests").tag("result", "rejected").counter().count());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(idempotencyStore.execute(KEY + i, "body", () -> "again").isReplayed());
+        }
+    }
+
+    @Test
+    void execute_keyTooLong_throwsBadRequest() {
+        String key = "k".repeat(256);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                idempotencyStore.execute(key, "body", () -> "created"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
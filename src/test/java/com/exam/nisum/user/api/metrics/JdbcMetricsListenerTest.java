@@ -0,0 +1,80 @@
+package com.exam.nisum.user.api.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JdbcMetricsListenerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JdbcMetricsListener listener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new JdbcMetricsListener();
+        listener.bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcRequestStatistics.stop();
+    }
+
+    @Test
+    void afterQuery_recordsStatementByTypeAndRequest() {
+        //given
+        JdbcRequestStatistics statistics = JdbcRequestStatistics.start();
+
+        //when
+        execute("select u.id from users u where u.id = ?");
+        execute("update users set name = ? where id = ?");
+
+        //then
+        assertEquals(1, meterRegistry.get(JdbcMetricsListener.STATEMENT_TIMER).tag("type", "select").timer().count());
+        assertEquals(1, meterRegistry.get(JdbcMetricsListener.STATEMENT_TIMER).tag("type", "update").timer().count());
+        assertEquals(2, statistics.getStatements());
+    }
+
+    @Test
+    void afterQuery_outsideRequest_onlyRecordsTimer() {
+        //given
+        JdbcRequestStatistics statistics = JdbcRequestStatistics.start();
+        JdbcRequestStatistics.stop();
+
+        //when
+        execute("insert into phones (number) values (?)");
+
+        //then
+        assertEquals(1, meterRegistry.get(JdbcMetricsListener.STATEMENT_TIMER).tag("type", "insert").timer().count());
+        assertEquals(0, statistics.getStatements());
+    }
+
+    @Test
+    void afterQuery_beforeBinding_isIgnored() {
+        JdbcMetricsListener unbound = new JdbcMetricsListener();
+        ExecutionInfo execInfo = new ExecutionInfo();
+        List<QueryInfo> queries = List.of(new QueryInfo("select 1"));
+
+        unbound.beforeQuery(execInfo, queries);
+        unbound.afterQuery(execInfo, queries);
+
+        assertEquals(0, meterRegistry.find(JdbcMetricsListener.STATEMENT_TIMER).timers().stream()
+                .mapToLong(timer -> timer.count()).sum());
+    }
+
+    private void execute(String query) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        List<QueryInfo> queries = List.of(new QueryInfo(query));
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+    }
+}
@@ -0,0 +1,139 @@
+package com.exam.nisum.user.api.outbox;
+
+import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.dto.response.UserChangeDTO;
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.repository.UserRepository;
+import com.exam.nisum.user.api.service.UserBulkService;
+import com.exam.nisum.user.api.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que los cambios de usuarios se agregan al outbox en la misma transacción y que el relay los publica
+ * con posiciones consecutivas, que son las del feed de cambios.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:nisumexam-outbox;DB_CLOSE_ON_EXIT=FALSE",
+        "nisum.outbox.poll-interval=1h"})
+public class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private UserChangeSink userChangeSink;
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        outboxRelay.relay();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void relay_publishesCommittedChangesInOrder() {
+        //given
+        outboxRelay.relay();
+        List<String> ids = importUsers("uno@nisum.cl", "dos@nisum.cl");
+        userService.patchUser(ids.get(0), null, User.builder().name("Otro Nombre").build());
+
+        //when
+        int published = outboxRelay.relay();
+
+        //then
+        assertEquals(3, published);
+        List<UserChangeDTO> changes = lastPublished(3);
+        long first = changes.get(0).getPosition();
+        assertEquals(List.of(first, first + 1, first + 2),
+                changes.stream().map(UserChangeDTO::getPosition).collect(Collectors.toList()));
+        assertEquals(List.of(UserChangeType.CREATED, UserChangeType.CREATED, UserChangeType.UPDATED),
+                changes.stream().map(UserChangeDTO::getType).collect(Collectors.toList()));
+        assertEquals(List.of(ids.get(0), ids.get(1), ids.get(0)),
+                changes.stream().map(UserChangeDTO::getUserId).collect(Collectors.toList()));
+        assertEquals(1L, changes.get(2).getVersion());
+
+        assertEquals(changes, userService.getChanges(String.valueOf(first - 1), 10).getChanges());
+        assertTrue(userService.getChanges(String.valueOf(first + 2), 10).getChanges().isEmpty());
+        assertEquals(0, outboxRelay.relay());
+    }
+
+    @Test
+    void saveUser_duplicateEmail_doesNotRecordChange() {
+        importUsers("repetido@nisum.cl");
+        outboxRelay.relay();
+        User duplicate = User.builder()
+                .name("Test Nisum")
+                .email("repetido@nisum.cl")
+                .password("Nisum1234")
+                .phones(List.of(new Phone("3223605348", "1", "57", null)))
+                .build();
+
+        assertThrows(ResponseStatusException.class, () -> userService.saveUser(duplicate));
+
+        assertEquals(0, outboxRelay.relay());
+    }
+
+    @Test
+    void getChanges_cursorBeforeRetention_throwsGone() {
+        //given
+        outboxRelay.relay();
+        importUsers("tres@nisum.cl", "cuatro@nisum.cl", "cinco@nisum.cl");
+        outboxRelay.relay();
+        long first = lastPublished(3).get(0).getPosition();
+        jdbcTemplate.update("update user_outbox set occurred_at = dateadd(day, -30, occurred_at)");
+
+        //when
+        outboxRelay.purge();
+
+        //then
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.getChanges(String.valueOf(first), 10));
+        assertEquals(HttpStatus.GONE, exception.getStatus());
+        // El último cambio se conserva para que las posiciones continúen
+        assertEquals(1, userService.getChanges(String.valueOf(first + 1), 10).getChanges().size());
+    }
+
+    private List<String> importUsers(String... emails) {
+        List<UserRequestDTO> requests = List.of(emails).stream().map(email -> {
+            UserRequestDTO request = new UserRequestDTO();
+            request.setName("Test Nisum");
+            request.setEmail(email);
+            request.setPassword("Nisum1234");
+            request.setPhones(List.of(new Phone("3223605348", "1", "57", null)));
+            return request;
+        }).collect(Collectors.toList());
+        return userBulkService.importUsers(requests.iterator()).getResults().stream()
+                .map(result -> result.getId().toString())
+                .collect(Collectors.toList());
+    }
+
+    private List<UserChangeDTO> lastPublished(int count) {
+        List<UserChangeDTO> changes = ((InMemoryUserChangeSink) userChangeSink).getChanges();
+        return changes.subList(changes.size() - count, changes.size());
+    }
+}
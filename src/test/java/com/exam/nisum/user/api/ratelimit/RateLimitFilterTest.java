@@ -0,0 +1,73 @@
+package com.exam.nisum.user.api.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        RateLimiter create = new RateLimiter("create", Set.of("POST"), "/nisum/api/users", 1, 0.5, 100);
+        rateLimitFilter = new RateLimitFilter(List.of(create), "X-Client-Id", meterRegistry);
+    }
+
+    @Test
+    void doFilter_overLimit_ReturnTooManyRequestsWithRetryAfter() throws Exception {
+        //given
+        MockHttpServletResponse first = filter("POST", "/nisum/api/users", "cliente-a");
+
+        //when
+        MockHttpServletResponse second = filter("POST", "/nisum/api/users", "cliente-a");
+
+        //then
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertEquals("2", second.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.get(RateLimitFilter.REJECTED_COUNTER)
+                .tag("limit", "create").tag("client", "cliente-a").counter().count());
+    }
+
+    @Test
+    void doFilter_otherMethodOrClient_NotLimited() throws Exception {
+        filter("POST", "/nisum/api/users", "cliente-a");
+
+        assertEquals(200, filter("GET", "/nisum/api/users", "cliente-a").getStatus());
+        assertEquals(200, filter("POST", "/nisum/api/users", "cliente-b").getStatus());
+        assertNull(meterRegistry.find(RateLimitFilter.REJECTED_COUNTER).counter());
+    }
+
+    @Test
+    void retryAfterSeconds_roundsUp() {
+        assertEquals(1, RateLimitFilter.retryAfterSeconds(1));
+        assertEquals(2, RateLimitFilter.retryAfterSeconds(1_000_000_001L));
+    }
+
+    private MockHttpServletResponse filter(String method, String uri, String client) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setServletPath(uri);
+        request.addHeader("X-Client-Id", client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        rateLimitFilter.doFilter(request, response, chain);
+        if (response.getStatus() == 200) {
+            assertNotNull(chain.getRequest());
+        }
+        return response;
+    }
+}
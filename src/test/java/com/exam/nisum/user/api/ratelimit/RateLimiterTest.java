@@ -0,0 +1,93 @@
+package com.exam.nisum.user.api.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTest {
+
+    // Parte en un valor negativo porque System.nanoTime puede serlo
+    private AtomicLong now = new AtomicLong(-TimeUnit.SECONDS.toNanos(100));
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RateLimiter("create", Set.of("POST"), "/nisum/api/users", 3, 2, 100, now::get);
+    }
+
+    @Test
+    void tryAcquire_burstUpToCapacity_thenRejectsWithWait() {
+        assertEquals(0, rateLimiter.tryAcquire("a"));
+        assertEquals(0, rateLimiter.tryAcquire("a"));
+        assertEquals(0, rateLimiter.tryAcquire("a"));
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), rateLimiter.tryAcquire("a"));
+    }
+
+    @Test
+    void tryAcquire_refillsOverTime() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("a");
+        }
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertEquals(0, rateLimiter.tryAcquire("a"));
+        assertTrue(rateLimiter.tryAcquire("a") > 0);
+    }
+
+    @Test
+    void tryAcquire_clientsHaveSeparateBuckets() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("a");
+        }
+
+        assertTrue(rateLimiter.tryAcquire("a") > 0);
+        assertEquals(0, rateLimiter.tryAcquire("b"));
+    }
+
+    @Test
+    void tryAcquire_maxClients_dropsFullBucketsAndSharesOverflow() {
+        RateLimiter limited = new RateLimiter("create", Set.of("POST"), "/nisum/api/users", 1, 1, 2, now::get);
+        limited.tryAcquire("a");
+        limited.tryAcquire("b");
+
+        // a y b siguen vacíos: c y d comparten el bucket de desborde
+        assertEquals(0, limited.tryAcquire("c"));
+        assertTrue(limited.tryAcquire("d") > 0);
+
+        // Después de una recarga completa, los buckets llenos se descartan y c tiene el suyo
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, limited.tryAcquire("c"));
+        assertTrue(limited.tryAcquire("c") > 0);
+    }
+
+    @Test
+    void matches_methodAndPath() {
+        assertTrue(rateLimiter.appliesTo("POST"));
+        assertFalse(rateLimiter.appliesTo("GET"));
+        assertTrue(rateLimiter.matches("/nisum/api/users"));
+        assertTrue(rateLimiter.matches("/nisum/api/users/"));
+        assertFalse(rateLimiter.matches("/nisum/api/users/bulk"));
+        assertFalse(rateLimiter.matches("/nisum/api/user"));
+        assertFalse(rateLimiter.matches("/nisum/api"));
+    }
+
+    @Test
+    void matches_variableSegment() {
+        RateLimiter patch = new RateLimiter("patch", Set.of("PATCH"), "/nisum/api/users/{id}", 1, 1, 100, now::get);
+
+        assertTrue(patch.matches("/nisum/api/users/bb5d5031-4d64-4ff7-8164-1654002f7611"));
+        assertFalse(patch.matches("/nisum/api/users"));
+        assertFalse(patch.matches("/nisum/api/users//"));
+        assertFalse(patch.matches("/nisum/api/users/1/phones"));
+    }
+}
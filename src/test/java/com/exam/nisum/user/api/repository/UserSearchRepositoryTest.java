@@ -0,0 +1,127 @@
+package com.exam.nisum.user.api.repository;
+
+import com.exam.nisum.user.api.dto.request.UserSearchRequestDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.entity.PhoneEntity;
+import com.exam.nisum.user.api.entity.UserEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica los filtros de la búsqueda de usuarios contra el esquema de las migraciones.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:nisumexam-search;DB_CLOSE_ON_EXIT=FALSE")
+public class UserSearchRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2023, 5, 1);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        saveUser("Juan", "juan@Nisum.cl", DAY, true, "57", "1");
+        saveUser("Julia", "julia@gmail.com", DAY.plusDays(1), false, "56", "2");
+        saveUser("Pedro", "pedro@nisum.cl", DAY.plusDays(2), true, "57", "2", "57", "1");
+        saveUser("Ju_an", "ju_an@nisum.cl", DAY.plusDays(3), true, "57", "1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void search_filtersByEachCriterion() {
+        assertEquals(List.of("Juan", "Julia", "Pedro", "Ju_an"), names(UserSearchRequestDTO.builder().build()));
+        assertEquals(List.of("Juan", "Julia", "Ju_an"), names(UserSearchRequestDTO.builder().name("Ju").build()));
+        assertEquals(List.of("Ju_an"), names(UserSearchRequestDTO.builder().name("Ju_").build()));
+        assertEquals(List.of("Juan", "Pedro", "Ju_an"),
+                names(UserSearchRequestDTO.builder().emailDomain("NISUM.cl").build()));
+        assertEquals(List.of("Julia"), names(UserSearchRequestDTO.builder().isActive(false).build()));
+        assertEquals(List.of("Julia", "Pedro"), names(UserSearchRequestDTO.builder()
+                .createdFrom(DAY.plusDays(1)).createdTo(DAY.plusDays(2)).build()));
+        assertEquals(List.of("Pedro", "Ju_an"),
+                names(UserSearchRequestDTO.builder().createdFrom(DAY.plusDays(2)).build()));
+        assertEquals(List.of("Juan", "Pedro", "Ju_an"),
+                names(UserSearchRequestDTO.builder().countryCode("57").cityCode("1").build()));
+        assertEquals(List.of("Juan", "Ju_an"),
+                names(UserSearchRequestDTO.builder().countryCode("57").name("Ju").build()));
+    }
+
+    @Test
+    void search_pagesByKeyWithoutRepeatingUsers() {
+        //given
+        UserSearchRequestDTO inColombia = UserSearchRequestDTO.builder().countryCode("57").isActive(true).build();
+
+        //when
+        List<UserResponseDTO> firstPage = userRepository.search(inColombia, null, null, 2);
+        UserResponseDTO last = firstPage.get(1);
+        List<UserResponseDTO> secondPage =
+                userRepository.search(inColombia, last.getCreated(), last.getId().toString(), 2);
+
+        //then
+        assertEquals(List.of("Juan", "Pedro"), names(firstPage));
+        assertEquals(List.of("Ju_an"), names(secondPage));
+        // Pedro tiene dos teléfonos de Colombia: la página se completa con el usuario siguiente
+        assertEquals(List.of("Juan", "Pedro", "Ju_an"), names(userRepository.search(
+                UserSearchRequestDTO.builder().countryCode("57").build(), null, null, 3)));
+    }
+
+    @Test
+    void searchByName_pagesByNameAndId() {
+        //given
+        UserSearchRequestDTO startingWithJu = UserSearchRequestDTO.builder().name("Ju").build();
+
+        //when
+        List<UserResponseDTO> firstPage = userRepository.searchByName(startingWithJu, null, null, 2);
+        UserResponseDTO last = firstPage.get(1);
+        List<UserResponseDTO> secondPage =
+                userRepository.searchByName(startingWithJu, last.getName(), last.getId().toString(), 2);
+
+        //then
+        assertEquals(List.of("Ju_an", "Juan"), names(firstPage));
+        assertEquals(List.of("Julia"), names(secondPage));
+        assertEquals(List.of("Juan"), names(userRepository.searchByName(
+                UserSearchRequestDTO.builder().name("Ju").emailDomain("nisum.cl").build(),
+                "Ju_an", firstPage.get(0).getId().toString(), 10)));
+    }
+
+    private List<String> names(UserSearchRequestDTO filters) {
+        return names(userRepository.search(filters, null, null, 10));
+    }
+
+    private static List<String> names(List<UserResponseDTO> users) {
+        return users.stream().map(UserResponseDTO::getName).collect(Collectors.toList());
+    }
+
+    private void saveUser(String name, String email, LocalDate created, boolean isActive, String... phoneCodes) {
+        UserEntity userEntity = new UserEntity();
+        userEntity.setId(UUID.randomUUID().toString());
+        userEntity.setName(name);
+        userEntity.setEmail(email);
+        userEntity.setPassword("encodedPassword");
+        userEntity.setCreated(created);
+        userEntity.setToken(UUID.randomUUID().toString());
+        userEntity.setIsActive(isActive);
+        for (int i = 0; i < phoneCodes.length; i += 2) {
+            PhoneEntity phoneEntity = new PhoneEntity();
+            phoneEntity.setNumber("32236053" + i);
+            phoneEntity.setCountryCode(phoneCodes[i]);
+            phoneEntity.setCityCode(phoneCodes[i + 1]);
+            phoneEntity.setUser(userEntity);
+            userEntity.getPhones().add(phoneEntity);
+        }
+        userRepository.save(userEntity);
+    }
+}
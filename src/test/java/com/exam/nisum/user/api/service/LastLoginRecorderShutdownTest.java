@@ -0,0 +1,102 @@
+package com.exam.nisum.user.api.service;
+
+import com.exam.nisum.user.api.UserApiApplication;
+import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.model.Phone;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.SmartLifecycle;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que el flush final de la escritura diferida se ejecuta después de detener el servidor web, así un inicio
+ * de sesión registrado por la última petición atendida también se escribe.
+ */
+public class LastLoginRecorderShutdownTest {
+
+    // DB_CLOSE_DELAY=-1 conserva la base en memoria después de cerrar la aplicación para verificar lo escrito
+    private static final String JDBC_URL = "jdbc:h2:mem:nisumexam-shutdown;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    private static final LocalDate LOGIN = LocalDate.now().plusDays(1);
+
+    @Test
+    void stop_flushesLoginRecordedAfterWebServerStopped() throws Exception {
+        //given
+        LoginAfterWebServerStop lateLogin = new LoginAfterWebServerStop();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(UserApiApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .registerSingleton("loginAfterWebServerStop", lateLogin))
+                .run("--server.port=0", "--spring.datasource.url=" + JDBC_URL,
+                        "--nisum.write-behind.flush-interval=1h");
+        UserRequestDTO request = new UserRequestDTO();
+        request.setName("Test Nisum");
+        request.setEmail("cierre@nisum.cl");
+        request.setPassword("Nisum1234");
+        request.setPhones(List.of(new Phone("3223605348", "1", "57", null)));
+        lateLogin.id = context.getBean(UserBulkService.class).importUsers(List.of(request).iterator())
+                .getResults().get(0).getId().toString();
+        lateLogin.context = context;
+
+        //when
+        context.close();
+
+        //then
+        assertTrue(lateLogin.recorded);
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, "nisumExam", "nisumExam");
+             PreparedStatement statement = connection.prepareStatement("select last_login from users where id = ?")) {
+            statement.setString(1, lateLogin.id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertTrue(resultSet.next());
+                assertEquals(LOGIN, resultSet.getObject(1, LocalDate.class));
+            }
+        }
+    }
+
+    /**
+     * Registra un inicio de sesión al detenerse, entre la fase del servidor web y la de la escritura diferida.
+     */
+    private static class LoginAfterWebServerStop implements SmartLifecycle {
+
+        private volatile ConfigurableApplicationContext context;
+
+        private volatile String id;
+
+        private volatile boolean running;
+
+        private volatile boolean recorded;
+
+        @Override
+        public void start() {
+            running = true;
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+            if (context != null) {
+                context.getBean(LastLoginRecorder.class).record(id, LOGIN);
+                recorded = true;
+            }
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public int getPhase() {
+            return Integer.MAX_VALUE - 2;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.exam.nisum.user.api.service;
+
+import com.exam.nisum.user.api.cache.UserCache;
+import com.exam.nisum.user.api.config.WriteBehindProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LastLoginRecorderTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2023, 5, 2);
+
+    @Mock
+    private JdbcTemplate mockedJdbcTemplate;
+
+    @Mock
+    private TransactionTemplate mockedTransactionTemplate;
+
+    @Mock
+    private UserCache mockedUserCache;
+
+    @Mock
+    private TaskScheduler mockedTaskScheduler;
+
+    private WriteBehindProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LastLoginRecorder lastLoginRecorder;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(mockedTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        properties = new WriteBehindProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        lastLoginRecorder = new LastLoginRecorder(mockedJdbcTemplate, mockedTransactionTemplate, mockedUserCache,
+                mockedTaskScheduler, properties, meterRegistry);
+    }
+
+    @Test
+    void flush_coalescesRepeatedLoginsIntoOneBatch() {
+        //given
+        when(mockedJdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+        lastLoginRecorder.record("a", TODAY);
+        lastLoginRecorder.record("a", TODAY.minusDays(1));
+        lastLoginRecorder.record("b", TODAY);
+        lastLoginRecorder.record("a", TODAY);
+
+        //when
+        int updated = lastLoginRecorder.flush();
+
+        //then
+        assertEquals(2, updated);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(mockedJdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        verify(mockedUserCache).evict("a");
+        verify(mockedUserCache).evict("b");
+        assertEquals(4, meterRegistry.get("nisum.write.behind.touches").counter().count());
+        assertEquals(2, meterRegistry.get("nisum.write.behind.coalesced").counter().count());
+        assertEquals(2, meterRegistry.get("nisum.write.behind.rows").counter().count());
+        assertEquals(1, meterRegistry.get("nisum.write.behind.statements").counter().count());
+        assertEquals(0, lastLoginRecorder.flush());
+    }
+
+    @Test
+    void flush_splitsIntoBatchesOfConfiguredSize() {
+        properties.setBatchSize(2);
+        when(mockedJdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1}, new int[]{1});
+        lastLoginRecorder.record("a", TODAY);
+        lastLoginRecorder.record("b", TODAY);
+        lastLoginRecorder.record("c", TODAY);
+
+        assertEquals(3, lastLoginRecorder.flush());
+
+        verify(mockedJdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void flush_withoutLogins_doesNotTouchDatabase() {
+        assertEquals(0, lastLoginRecorder.flush());
+
+        verifyNoInteractions(mockedJdbcTemplate);
+    }
+
+    @Test
+    void flush_failure_retriesOnNextFlush() {
+        //given
+        when(mockedJdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[]{1});
+        lastLoginRecorder.record("a", TODAY);
+
+        //when
+        int first = lastLoginRecorder.flush();
+        int second = lastLoginRecorder.flush();
+
+        //then
+        assertEquals(0, first);
+        assertEquals(1, second);
+        verify(mockedUserCache, times(1)).evict("a");
+    }
+
+    @Test
+    void record_maxPending_schedulesFlushOnce() {
+        properties.setMaxPending(2);
+
+        lastLoginRecorder.record("a", TODAY);
+        verify(mockedTaskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+        lastLoginRecorder.record("b", TODAY);
+        lastLoginRecorder.record("c", TODAY);
+
+        verify(mockedTaskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void stop_cancelsScheduleAndFlushesPending() {
+        //given
+        ScheduledFuture<?> scheduledFlush = mock(ScheduledFuture.class);
+        doReturn(scheduledFlush).when(mockedTaskScheduler)
+                .scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(1)));
+        when(mockedJdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        lastLoginRecorder.start();
+        assertTrue(lastLoginRecorder.isRunning());
+        lastLoginRecorder.record("a", TODAY);
+
+        //when
+        lastLoginRecorder.stop();
+
+        //then
+        verify(scheduledFlush).cancel(false);
+        verify(mockedJdbcTemplate).batchUpdate(anyString(), anyList());
+        assertFalse(lastLoginRecorder.isRunning());
+    }
+}
@@ -0,0 +1,178 @@
+package com.exam.nisum.user.api.service;
+
+import com.exam.nisum.user.api.config.EncoderConfig;
+import com.exam.nisum.user.api.config.PasswordProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PasswordHashingServiceTest {
+
+    private PasswordProperties properties;
+
+    private PasswordEncoder passwordEncoder;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PasswordHashingService passwordHashingService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PasswordProperties();
+        properties.setBcryptStrength(4);
+        properties.setThreads(2);
+        passwordEncoder = new EncoderConfig().encoder(properties);
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashingService = new PasswordHashingService(passwordEncoder, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void encode_returnsPrefixedHashAndRecordsLatency() {
+        String hash = passwordHashingService.encode("Nisum1234");
+
+        assertTrue(hash.startsWith("{bcrypt}"));
+        assertTrue(passwordEncoder.matches("Nisum1234", hash));
+        assertEquals(1, meterRegistry.get("nisum.password.hash").timer().count());
+    }
+
+    @Test
+    void encodeAll_keepsOrder() {
+        List<String> hashes = passwordHashingService.encodeAll(Arrays.asList("Nisum1234", "Otra5678"));
+
+        assertTrue(passwordEncoder.matches("Nisum1234", hashes.get(0)));
+        assertTrue(passwordEncoder.matches("Otra5678", hashes.get(1)));
+    }
+
+    @Test
+    void rehashIfNeeded_reusesCurrentHash() {
+        String hash = passwordHashingService.encode("Nisum1234");
+
+        assertEquals(hash, passwordHashingService.rehashIfNeeded("Nisum1234", hash));
+    }
+
+    @Test
+    void rehashIfNeeded_upgradesLegacyAndWeakerHashes() {
+        String legacy = new BCryptPasswordEncoder(4).encode("Nisum1234");
+        String upgradedLegacy = passwordHashingService.rehashIfNeeded("Nisum1234", legacy);
+        assertTrue(upgradedLegacy.startsWith("{bcrypt}"));
+        assertTrue(passwordEncoder.matches("Nisum1234", upgradedLegacy));
+
+        properties.setBcryptStrength(5);
+        PasswordHashingService stronger = new PasswordHashingService(
+                new EncoderConfig().encoder(properties), properties, new SimpleMeterRegistry());
+        try {
+            String weaker = passwordHashingService.encode("Nisum1234");
+            assertNotEquals(weaker, stronger.rehashIfNeeded("Nisum1234", weaker));
+        } finally {
+            stronger.shutdown();
+        }
+    }
+
+    @Test
+    void rehashIfNeeded_encodesChangedPassword() {
+        String hash = passwordHashingService.encode("Nisum1234");
+
+        String changed = passwordHashingService.rehashIfNeeded("Otra5678", hash);
+
+        assertTrue(passwordEncoder.matches("Otra5678", changed));
+    }
+
+    @Test
+    void rehashIfNeeded_upgradesArgon2WithMoreIterations() {
+        properties.setAlgorithm(PasswordProperties.Algorithm.ARGON2);
+        properties.setArgon2Memory(1024);
+        properties.setArgon2Iterations(1);
+        PasswordHashingService weaker = new PasswordHashingService(
+                new EncoderConfig().encoder(properties), properties, new SimpleMeterRegistry());
+        properties.setArgon2Iterations(2);
+        PasswordHashingService stronger = new PasswordHashingService(
+                new EncoderConfig().encoder(properties), properties, new SimpleMeterRegistry());
+        try {
+            String hash = weaker.encode("Nisum1234");
+
+            assertEquals(hash, weaker.rehashIfNeeded("Nisum1234", hash));
+            assertNotEquals(hash, stronger.rehashIfNeeded("Nisum1234", hash));
+        } finally {
+            weaker.shutdown();
+            stronger.shutdown();
+        }
+    }
+
+    @Test
+    void encodeAll_queuePartlyFilled_hashesWholeChunkWithoutRejecting() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch hashedByCaller = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = mock(PasswordEncoder.class);
+        when(blockingEncoder.encode(anyString())).thenAnswer(invocation -> {
+            String rawPassword = invocation.getArgument(0);
+            if (rawPassword.startsWith("ocupado")) {
+                release.await(5, TimeUnit.SECONDS);
+            } else if (!Thread.currentThread().getName().startsWith("password-hash-")) {
+                hashedByCaller.countDown();
+            }
+            return "{hash}" + rawPassword;
+        });
+        properties.setThreads(1);
+        properties.setQueueCapacity(4);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHashingService service = new PasswordHashingService(blockingEncoder, properties, registry);
+        ExecutorService clients = Executors.newFixedThreadPool(5);
+        try {
+            // Un hilo ocupado y 3 de los 4 lugares de la cola tomados por peticiones individuales
+            List<Future<String>> singles = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String rawPassword = "ocupado" + i;
+                singles.add(clients.submit(() -> service.encode(rawPassword)));
+            }
+            while (registry.get("nisum.password.hash.queue").gauge().value() < 3) {
+                Thread.onSpinWait();
+            }
+            List<String> chunk = IntStream.range(0, 20).mapToObj(i -> "Nisum" + i).collect(Collectors.toList());
+
+            //when
+            Future<List<String>> hashes = clients.submit(() -> service.encodeAll(chunk));
+            assertTrue(hashedByCaller.await(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            //then
+            assertEquals(chunk.stream().map(rawPassword -> "{hash}" + rawPassword).collect(Collectors.toList()),
+                    hashes.get(5, TimeUnit.SECONDS));
+            for (Future<String> single : singles) {
+                assertTrue(single.get(5, TimeUnit.SECONDS).startsWith("{hash}ocupado"));
+            }
+            assertEquals(0, registry.get("nisum.password.hash.rejected").counter().count());
+            assertTrue(registry.get("nisum.password.hash.caller.runs").counter().count() > 0);
+        } finally {
+            release.countDown();
+            clients.shutdownNow();
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.exam.nisum.user.api.service;
+
+import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.dto.response.BulkImportResponseDTO;
+import com.exam.nisum.user.api.dto.response.BulkUserResultDTO;
+import com.exam.nisum.user.api.entity.PhoneEntity;
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.repository.PhoneRepository;
+import com.exam.nisum.user.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class UserBulkServiceTest {
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PhoneRepository phoneRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void importUsers_insertsValidRowsAndReportsRejected() {
+        List<UserRequestDTO> requests = Arrays.asList(
+                request("uno@nisum.cl", "Nisum1234"),
+                request("dos@nisum.cl", "corta"),
+                request("UNO@nisum.cl", "Nisum1234"),
+                request("tres@nisum.cl", "Nisum1234"));
+
+        BulkImportResponseDTO report = userBulkService.importUsers(requests.iterator());
+
+        assertEquals(2, report.getCreated());
+        assertEquals(2, report.getRejected());
+        assertEquals(BulkUserResultDTO.Status.CREATED, report.getResults().get(0).getStatus());
+        assertEquals(BulkUserResultDTO.Status.INVALID, report.getResults().get(1).getStatus());
+        assertEquals(BulkUserResultDTO.Status.DUPLICATE, report.getResults().get(2).getStatus());
+        assertEquals(BulkUserResultDTO.Status.CREATED, report.getResults().get(3).getStatus());
+        assertEquals(3, report.getResults().get(3).getIndex());
+
+        Optional<UserEntity> saved = userRepository.findByEmailNormalized("uno@nisum.cl");
+        assertTrue(saved.isPresent());
+        assertEquals(report.getResults().get(0).getId().toString(), saved.get().getId());
+        assertEquals(2, phoneRepository.count());
+    }
+
+    @Test
+    void importUsers_rejectsEmailsAlreadyRegistered() {
+        userBulkService.importUsers(List.of(request("uno@nisum.cl", "Nisum1234")).iterator());
+
+        BulkImportResponseDTO report = userBulkService.importUsers(
+                List.of(request("uno@nisum.cl", "Nisum1234")).iterator());
+
+        assertEquals(0, report.getCreated());
+        assertEquals(BulkUserResultDTO.Status.DUPLICATE, report.getResults().get(0).getStatus());
+        assertNotNull(report.getResults().get(0).getMessage());
+    }
+
+    @Test
+    void importUsers_takesOneSequenceValuePerBlockOfPhoneIds() {
+        //given
+        List<UserRequestDTO> requests = IntStream.range(0, 120)
+                .mapToObj(i -> request("u" + i + "@bloque.cl", "Nisum1234"))
+                .collect(Collectors.toList());
+        long before = nextPhoneSequenceValue();
+
+        //when
+        userService.saveUser(request("antes@nisum.cl", "Nisum1234").toModel());
+        userBulkService.importUsers(requests.iterator());
+        userService.saveUser(request("despues@nisum.cl", "Nisum1234").toModel());
+
+        //then
+        // 120 teléfonos usan 3 bloques, más el valor de la consulta final
+        assertTrue(nextPhoneSequenceValue() - before <= 5L * PhoneEntity.ID_ALLOCATION_SIZE);
+        assertEquals(122, phoneRepository.count());
+        assertEquals(122, jdbcTemplate.queryForObject("select count(distinct id) from phone", Integer.class));
+    }
+
+    private long nextPhoneSequenceValue() {
+        return jdbcTemplate.queryForObject("select next value for phone_seq", Long.class);
+    }
+
+    private static UserRequestDTO request(String email, String password) {
+        UserRequestDTO request = new UserRequestDTO();
+        request.setName("Test Nisum");
+        request.setEmail(email);
+        request.setPassword(password);
+        List<Phone> phones = new ArrayList<>();
+        phones.add(new Phone("3223605348", "1", "57", null));
+        request.setPhones(phones);
+        return request;
+    }
+}
@@ -0,0 +1,150 @@
+package com.exam.nisum.user.api.service;
+
+import com.exam.nisum.user.api.dto.request.UserDeactivateRequestDTO;
+import com.exam.nisum.user.api.dto.request.UserRequestDTO;
+import com.exam.nisum.user.api.dto.request.UserSearchRequestDTO;
+import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:nisumexam-deactivation;DB_CLOSE_ON_EXIT=FALSE")
+public class UserDeactivationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void deleteUser_hidesUserFromListingAndToken() {
+        //given
+        List<String> ids = importUsers("uno@nisum.cl", "dos@nisum.cl");
+        String token = userRepository.findById(ids.get(0)).orElseThrow().getToken();
+        userService.getUserByToken(token);
+
+        //when
+        userService.deleteUser(ids.get(0));
+        userService.deleteUser(ids.get(0));
+
+        //then
+        assertEquals(List.of(ids.get(1)), listedIds());
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+                () -> userService.getUser(ids.get(0))).getStatus());
+        assertEquals(HttpStatus.UNAUTHORIZED, assertThrows(ResponseStatusException.class,
+                () -> userService.getUserByToken(token)).getStatus());
+
+        UserEntity deactivated = userRepository.findById(ids.get(0)).orElseThrow();
+        assertFalse(deactivated.getIsActive());
+        assertEquals(1L, deactivated.getVersion());
+        assertEquals(1, deactivatedChanges(ids.get(0)));
+        assertEquals(List.of(ids.get(0)), userService.searchUsers(
+                        UserSearchRequestDTO.builder().isActive(false).build(), null, 10).getUsers().stream()
+                .map(user -> user.getId().toString())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void deactivateUsers_byFilter_deactivatesMatchingActiveUsers() {
+        List<String> ids = importUsers("uno@baja.cl", "dos@baja.cl", "tres@nisum.cl", "cuatro@baja.cl");
+        UserDeactivateRequestDTO request = UserDeactivateRequestDTO.builder()
+                .filter(UserSearchRequestDTO.builder().emailDomain("baja.cl").build())
+                .build();
+
+        assertEquals(3, userService.deactivateUsers(request).getDeactivated());
+        assertEquals(0, userService.deactivateUsers(request).getDeactivated());
+
+        assertEquals(List.of(ids.get(2)), listedIds());
+        assertEquals(1, deactivatedChanges(ids.get(3)));
+    }
+
+    @Test
+    void deactivateUsers_byIds_ignoresMissingAndRepeatedIds() {
+        List<String> ids = importUsers("uno@nisum.cl", "dos@nisum.cl");
+        UserDeactivateRequestDTO request = UserDeactivateRequestDTO.builder()
+                .ids(List.of(ids.get(0), "missing", ids.get(0)))
+                .build();
+
+        assertEquals(1, userService.deactivateUsers(request).getDeactivated());
+
+        assertEquals(List.of(ids.get(1)), listedIds());
+    }
+
+    @Test
+    void lastLogin_keepsVersionAndSkipsDeactivatedUsers() {
+        //given
+        List<String> ids = importUsers("uno@nisum.cl", "dos@nisum.cl");
+        userService.deleteUser(ids.get(1));
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        //when
+        lastLoginRecorder.record(ids.get(0), tomorrow);
+        lastLoginRecorder.record(ids.get(1), tomorrow);
+        lastLoginRecorder.flush();
+
+        //then
+        UserEntity active = userRepository.findById(ids.get(0)).orElseThrow();
+        assertEquals(tomorrow, active.getLastLogin());
+        assertEquals(0L, active.getVersion());
+        UserEntity deactivated = userRepository.findById(ids.get(1)).orElseThrow();
+        assertEquals(LocalDate.now(), deactivated.getLastLogin());
+        assertEquals(1L, deactivated.getVersion());
+    }
+
+    private List<String> listedIds() {
+        return userService.getUsers(null, 10).getUsers().stream()
+                .map(UserResponseDTO::getId)
+                .map(Object::toString)
+                .collect(Collectors.toList());
+    }
+
+    private int deactivatedChanges(String id) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from user_outbox where user_id = ? and change_type = 'DEACTIVATED'",
+                Integer.class, id);
+    }
+
+    private List<String> importUsers(String... emails) {
+        List<UserRequestDTO> requests = List.of(emails).stream().map(email -> {
+            UserRequestDTO request = new UserRequestDTO();
+            request.setName("Test Nisum");
+            request.setEmail(email);
+            request.setPassword("Nisum1234");
+            request.setPhones(List.of(new Phone("3223605348", "1", "57", null)));
+            return request;
+        }).collect(Collectors.toList());
+        return userBulkService.importUsers(requests.iterator()).getResults().stream()
+                .map(result -> result.getId().toString())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,104 @@
+package com.exam.nisum.user.api.service;
+
+import com.exam.nisum.user.api.entity.PhoneEntity;
+import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica que la cantidad de sentencias SQL del listado no crezca con la cantidad de usuarios.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:nisumexam-querycount;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+public class UserServiceQueryCountTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getUsers_statementCountDoesNotGrowWithUsers() {
+        saveUsers(5);
+        long fewUsers = countStatements(() -> userService.getUsers(null, UserService.MAX_PAGE_SIZE));
+
+        saveUsers(45);
+        long manyUsers = countStatements(() -> userService.getUsers(null, UserService.MAX_PAGE_SIZE));
+
+        assertEquals(2, fewUsers);
+        assertEquals(fewUsers, manyUsers);
+    }
+
+    @Test
+    void streamUsers_statementCountDoesNotGrowWithUsers() {
+        saveUsers(5);
+        long fewUsers = countStatements(() -> userService.streamUsers(user -> { }));
+
+        saveUsers(45);
+        long manyUsers = countStatements(() -> userService.streamUsers(user -> { }));
+
+        assertEquals(2, fewUsers);
+        assertEquals(fewUsers, manyUsers);
+    }
+
+    private long countStatements(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void saveUsers(int count) {
+        List<UserEntity> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UserEntity userEntity = new UserEntity();
+            userEntity.setId(UUID.randomUUID().toString());
+            userEntity.setName("Test " + i);
+            userEntity.setEmail(UUID.randomUUID() + "@nisum.cl");
+            userEntity.setPassword("encodedPassword");
+            userEntity.setCreated(LocalDate.now());
+            userEntity.setToken(UUID.randomUUID().toString());
+            userEntity.setIsActive(Boolean.TRUE);
+            for (int j = 0; j < 2; j++) {
+                PhoneEntity phoneEntity = new PhoneEntity();
+                phoneEntity.setNumber("32236053" + j);
+                phoneEntity.setCityCode("1");
+                phoneEntity.setCountryCode("57");
+                phoneEntity.setUser(userEntity);
+                userEntity.getPhones().add(phoneEntity);
+            }
+            users.add(userEntity);
+        }
+        userRepository.saveAll(users);
+    }
+}
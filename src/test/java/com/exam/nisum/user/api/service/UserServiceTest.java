@@ -1,25 +1,53 @@
 package com.exam.nisum.user.api.service;
 
+import com.exam.nisum.user.api.cache.TokenIndex;
+import com.exam.nisum.user.api.cache.UserCache;
+import com.exam.nisum.user.api.dto.request.UserDeactivateRequestDTO;
+import com.exam.nisum.user.api.dto.request.UserSearchRequestDTO;
+import com.exam.nisum.user.api.dto.response.PhoneResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserChangeDTO;
+import com.exam.nisum.user.api.dto.response.UserChangePageResponseDTO;
+import com.exam.nisum.user.api.dto.response.UserPageResponseDTO;
 import com.exam.nisum.user.api.dto.response.UserResponseDTO;
+import com.exam.nisum.user.api.entity.PhoneEntity;
 import com.exam.nisum.user.api.entity.UserEntity;
+import com.exam.nisum.user.api.metrics.UserMetrics;
 import com.exam.nisum.user.api.model.Phone;
 import com.exam.nisum.user.api.model.User;
+import com.exam.nisum.user.api.outbox.UserChangeType;
+import com.exam.nisum.user.api.outbox.UserOutbox;
 import com.exam.nisum.user.api.repository.PhoneRepository;
 import com.exam.nisum.user.api.repository.UserRepository;
+import com.exam.nisum.user.api.validation.UserValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -34,7 +62,30 @@ public class UserServiceTest {
     private PhoneRepository mockedPhoneRepository;
 
     @Mock
-    private PasswordEncoder mockedPasswordEncoder;
+    private PasswordHashingService mockedPasswordHashingService;
+
+    @Mock
+    private TransactionTemplate mockedTransactionTemplate;
+
+    @Mock
+    private UserValidator mockedUserValidator;
+
+    @Mock
+    private UserCache mockedUserCache;
+
+    @Mock
+    private TokenIndex mockedTokenIndex;
+
+    @Mock
+    private LastLoginRecorder mockedLastLoginRecorder;
+
+    @Mock
+    private UserOutbox mockedUserOutbox;
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private UserMetrics userMetrics = new UserMetrics(meterRegistry);
 
     @Mock
     private User mockedUser;
@@ -57,31 +108,212 @@ public class UserServiceTest {
         mockedUser.setPassword("123Acb144*");
         mockedUser.setPhones(new ArrayList<>());
         mockedUser.getPhones().add(mockedPhone);
+        mockedUser.setIsActive(true);
 
         mockedUserEntity = new UserEntity();
         mockedUserEntity.setId("bb5d5031-4d64-4ff7-8164-1654002f7611");
         mockedUserEntity.setName("Test User Nisum");
         mockedUserEntity.setEmail("test@nisum.cl");
+        mockedUserEntity.setCreated(LocalDate.of(2023, 5, 1));
     }
 
     @Test
-    void getUsers_returnsAllUsers() {
+    void getUsers_returnsFirstPage() {
         //given
-        List<UserEntity> userList = Collections.singletonList(mockedUserEntity);
-        when(mockedUserRepository.findAll()).thenReturn(userList);
+        UserResponseDTO userResponse = userResponse(mockedUserEntity);
+        when(mockedUserRepository.findFirstPage(any(Pageable.class))).thenReturn(List.of(userResponse));
+        when(mockedPhoneRepository.findResponsesByUserIdIn(Set.of(mockedUserEntity.getId())))
+                .thenReturn(List.of(new PhoneResponseDTO("322360530", "1", "57", mockedUserEntity.getId())));
 
         //when
-        List<UserResponseDTO> users = userService.getUsers();
+        UserPageResponseDTO page = userService.getUsers(null, 10);
+
+        //then
+        assertEquals(page.getUsers().size(), 1);
+        assertEquals(1, page.getUsers().get(0).getPhones().size());
+        assertNull(page.getUsers().get(0).getPassword());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getUsers_returnsCursorWhenMoreUsers() {
+        //given
+        UserEntity secondUserEntity = new UserEntity();
+        secondUserEntity.setId("cc5d5031-4d64-4ff7-8164-1654002f7612");
+        secondUserEntity.setCreated(LocalDate.of(2023, 5, 2));
+        when(mockedUserRepository.findFirstPage(any(Pageable.class)))
+                .thenReturn(List.of(userResponse(mockedUserEntity), userResponse(secondUserEntity)));
+
+        //when
+        UserPageResponseDTO page = userService.getUsers(null, 1);
+
+        //then
+        assertEquals(page.getUsers().size(), 1);
+        UserCursor cursor = UserCursor.decode(page.getNextCursor());
+        assertEquals(mockedUserEntity.getCreated(), cursor.getCreated());
+        assertEquals(mockedUserEntity.getId(), cursor.getId());
+        verify(mockedPhoneRepository).findResponsesByUserIdIn(Set.of(mockedUserEntity.getId()));
+    }
+
+    @Test
+    void getUsers_withCursor_queriesAfterKey() {
+        //given
+        String cursor = new UserCursor(mockedUserEntity.getCreated(), mockedUserEntity.getId()).encode();
+        when(mockedUserRepository.findPageAfter(eq(mockedUserEntity.getCreated()), eq(mockedUserEntity.getId()),
+                any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        //when
+        UserPageResponseDTO page = userService.getUsers(cursor, 10);
+
+        //then
+        assertEquals(page.getUsers().size(), 0);
+        assertNull(page.getNextCursor());
+        verifyNoInteractions(mockedPhoneRepository);
+    }
+
+    @Test
+    void getUsers_invalidCursor_throwsBadRequest() {
+        assertThrows(ResponseStatusException.class, () -> userService.getUsers("%%%", 10));
+    }
+
+    @Test
+    void searchUsers_returnsCursorWhenMoreUsers() {
+        //given
+        UserEntity secondUserEntity = new UserEntity();
+        secondUserEntity.setId("cc5d5031-4d64-4ff7-8164-1654002f7612");
+        secondUserEntity.setCreated(LocalDate.of(2023, 5, 2));
+        UserSearchRequestDTO filters = UserSearchRequestDTO.builder().emailDomain("nisum.cl").isActive(true).build();
+        when(mockedUserRepository.search(filters, null, null, 2))
+                .thenReturn(List.of(userResponse(mockedUserEntity), userResponse(secondUserEntity)));
+
+        //when
+        UserPageResponseDTO page = userService.searchUsers(filters, null, 1);
+
+        //then
+        assertEquals(1, page.getUsers().size());
+        UserCursor cursor = UserCursor.decode(page.getNextCursor());
+        assertEquals(mockedUserEntity.getId(), cursor.getId());
+
+        userService.searchUsers(filters, page.getNextCursor(), 1);
+        verify(mockedUserRepository).search(filters, cursor.getCreated(), cursor.getId(), 2);
+    }
+
+    @Test
+    void searchUsers_namePrefix_pagesByNameCursor() {
+        //given
+        UserEntity secondUserEntity = new UserEntity();
+        secondUserEntity.setId("cc5d5031-4d64-4ff7-8164-1654002f7612");
+        secondUserEntity.setName("Test User Nisum 2");
+        UserSearchRequestDTO filters = UserSearchRequestDTO.builder().name("Test").build();
+        when(mockedUserRepository.searchByName(filters, null, null, 2))
+                .thenReturn(List.of(userResponse(mockedUserEntity), userResponse(secondUserEntity)));
+
+        //when
+        UserPageResponseDTO page = userService.searchUsers(filters, null, 1);
+
+        //then
+        UserCursor cursor = UserCursor.decode(page.getNextCursor());
+        assertTrue(cursor.isByName());
+        assertEquals(mockedUserEntity.getName(), cursor.getName());
+        userService.searchUsers(filters, page.getNextCursor(), 1);
+        verify(mockedUserRepository).searchByName(filters, mockedUserEntity.getName(), mockedUserEntity.getId(), 2);
+        // El cursor por nombre no sirve para una búsqueda ordenada por (created, id), ni al revés
+        assertThrows(ResponseStatusException.class, () -> userService.searchUsers(
+                UserSearchRequestDTO.builder().emailDomain("nisum.cl").build(), page.getNextCursor(), 1));
+        String createdCursor = new UserCursor(LocalDate.now(), mockedUserEntity.getId()).encode();
+        assertThrows(ResponseStatusException.class, () -> userService.searchUsers(filters, createdCursor, 1));
+        verify(mockedUserRepository, never()).search(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void searchUsers_cityWithoutCountry_throwsBadRequest() {
+        UserSearchRequestDTO filters = UserSearchRequestDTO.builder().cityCode("1").build();
+
+        assertThrows(ResponseStatusException.class, () -> userService.searchUsers(filters, null, 10));
+
+        verifyNoInteractions(mockedUserRepository);
+    }
+
+    @Test
+    void searchUsers_invalidDateRange_throwsBadRequest() {
+        UserSearchRequestDTO filters = UserSearchRequestDTO.builder()
+                .createdFrom(LocalDate.of(2023, 5, 2))
+                .createdTo(LocalDate.of(2023, 5, 1))
+                .build();
+
+        ResponseStatusException exception =
+                assertThrows(ResponseStatusException.class, () -> userService.searchUsers(filters, null, 10));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(mockedUserRepository);
+    }
+
+    @Test
+    void getChanges_returnsCursorOfLastChange() {
+        //given
+        when(mockedUserOutbox.findPublishedAfter(4L, 2)).thenReturn(List.of(change(5), change(6)));
+
+        //when
+        UserChangePageResponseDTO page = userService.getChanges("4", 2);
+
+        //then
+        assertEquals(2, page.getChanges().size());
+        assertEquals("6", page.getNextCursor());
+        verify(mockedUserOutbox, never()).firstPosition();
+    }
+
+    @Test
+    void getChanges_noNewChanges_keepsCursor() {
+        when(mockedUserOutbox.findPublishedAfter(6L, 10)).thenReturn(List.of());
+        when(mockedUserOutbox.firstPosition()).thenReturn(Optional.of(1L));
+
+        UserChangePageResponseDTO page = userService.getChanges("6", 10);
+
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals("6", page.getNextCursor());
+    }
+
+    @Test
+    void getChanges_purgedCursor_throwsGone() {
+        when(mockedUserOutbox.findPublishedAfter(4L, 10)).thenReturn(List.of(change(9)));
+        when(mockedUserOutbox.firstPosition()).thenReturn(Optional.of(9L));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.getChanges("4", 10));
+
+        assertEquals(HttpStatus.GONE, exception.getStatus());
+    }
+
+    @Test
+    void getChanges_invalidCursor_throwsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.getChanges("-1", 10));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(mockedUserOutbox);
+    }
+
+    @Test
+    void streamUsers_loadsPhonesPerChunk() {
+        //given
+        when(mockedUserRepository.streamAll()).thenReturn(Stream.of(userResponse(mockedUserEntity)));
+        List<UserResponseDTO> users = new ArrayList<>();
+
+        //when
+        userService.streamUsers(users::add);
 
         //then
         assertEquals(users.size(), 1);
+        verify(mockedPhoneRepository, times(1)).findResponsesByUserIdIn(Set.of(mockedUserEntity.getId()));
     }
 
     @Test
     void saveUser_returnUserResponseDTO() {
         // Mockear dependencias externas
-        when(mockedPasswordEncoder.encode(anyString())).thenReturn("encodedPassword");
-        when(mockedUserRepository.save(any(UserEntity.class))).thenAnswer(invocation -> {
+        when(mockedPasswordHashingService.encode(anyString())).thenReturn("encodedPassword");
+        when(mockedTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mockedUserRepository.saveAndFlush(any(UserEntity.class))).thenAnswer(invocation -> {
             UserEntity saveUser = invocation.getArgument(0);
             saveUser.setId("bb5d5031-4d64-4ff7-8164-1654002f7611");
             return saveUser;
@@ -97,6 +329,380 @@ public class UserServiceTest {
         assertEquals(result.getName(), mockedUser.getName());
         assertEquals(result.getEmail(), mockedUser.getEmail());
         assertEquals(result.getPhones().size(), mockedUser.getPhones().size());
-        verify(mockedUserRepository, times(1)).save(any(UserEntity.class));
+        assertEquals("encodedPassword", result.getPassword());
+        verify(mockedUserRepository, times(1)).saveAndFlush(any(UserEntity.class));
+        verify(mockedTokenIndex).put(result.getToken(), mockedUser.getId());
+        verify(mockedUserOutbox).record(eq(UserChangeType.CREATED), eq(result.getId().toString()), any());
+    }
+
+    @Test
+    void saveUser_recordsEachStage() {
+        //given
+        when(mockedPasswordHashingService.encode(anyString())).thenReturn("encodedPassword");
+        when(mockedTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mockedUserRepository.saveAndFlush(any(UserEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        userService.saveUser(mockedUser);
+
+        //then
+        for (UserMetrics.Stage stage : UserMetrics.Stage.values()) {
+            long expected = stage == UserMetrics.Stage.MAPPING ? 2 : 1;
+            assertEquals(expected, userMetrics.timer(UserMetrics.Operation.CREATE, stage).count(), stage.getTag());
+        }
+        assertEquals(0, userMetrics.timer(UserMetrics.Operation.UPDATE, UserMetrics.Stage.SAVE).count());
+    }
+
+    @Test
+    void saveUser_knownEmail_countsDuplicateFromCache() {
+        //given
+        when(mockedUserCache.isRegistered(mockedUser.getEmail())).thenReturn(true);
+
+        //when
+        assertThrows(ResponseStatusException.class, () -> userService.saveUser(mockedUser));
+
+        //then
+        assertEquals(1, meterRegistry.get(UserMetrics.DUPLICATE_EMAIL_COUNTER).tag("source", "cache").counter().count());
+        verify(mockedPasswordHashingService, never()).encode(anyString());
+    }
+
+    @Test
+    void getUserByToken_recordsLoginOncePerDay() {
+        //given
+        User storedUser = User.builder()
+                .id(mockedUser.getId())
+                .isActive(true)
+                .email(mockedUser.getEmail())
+                .created(LocalDate.now().minusDays(3))
+                .lastLogin(LocalDate.now().minusDays(1))
+                .phones(new ArrayList<>())
+                .build();
+        when(mockedTokenIndex.findUserId("token")).thenReturn(Optional.of(mockedUser.getId()));
+        when(mockedUserCache.findById(mockedUser.getId())).thenReturn(Optional.of(storedUser));
+
+        //when
+        UserResponseDTO result = userService.getUserByToken("token");
+
+        //then
+        assertEquals(mockedUser.getEmail(), result.getEmail());
+        verify(mockedLastLoginRecorder).record(mockedUser.getId(), LocalDate.now());
+        verify(mockedUserRepository, never()).saveAndFlush(any(UserEntity.class));
+    }
+
+    @Test
+    void getUserByToken_loggedInToday_doesNotRecordLogin() {
+        User storedUser = User.builder()
+                .id(mockedUser.getId())
+                .isActive(true)
+                .lastLogin(LocalDate.now())
+                .phones(new ArrayList<>())
+                .build();
+        when(mockedTokenIndex.findUserId("token")).thenReturn(Optional.of(mockedUser.getId()));
+        when(mockedUserCache.findById(mockedUser.getId())).thenReturn(Optional.of(storedUser));
+
+        userService.getUserByToken("token");
+
+        verifyNoInteractions(mockedLastLoginRecorder);
+    }
+
+    @Test
+    void getUserByToken_unknownToken_throwsUnauthorized() {
+        when(mockedTokenIndex.findUserId("unknown")).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.getUserByToken("unknown"));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatus());
+    }
+
+    @Test
+    void updateUser_reusesHashFromHashingService() {
+        // Mockear dependencias externas
+        User storedUser = User.builder()
+                .id(mockedUser.getId())
+                .isActive(true)
+                .email(mockedUser.getEmail())
+                .password("storedHash")
+                .token("token")
+                .version(0L)
+                .build();
+        mockedUserEntity.setPassword("storedHash");
+        mockedUserEntity.setToken("token");
+        mockedUserEntity.setVersion(0L);
+        when(mockedUserCache.findByEmail(mockedUser.getEmail())).thenReturn(Optional.of(storedUser));
+        when(mockedPasswordHashingService.rehashIfNeeded(mockedUser.getPassword(), "storedHash"))
+                .thenReturn("storedHash");
+        when(mockedTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mockedUserRepository.findWithPhonesById(mockedUser.getId())).thenReturn(Optional.of(mockedUserEntity));
+        when(mockedUserRepository.saveAndFlush(any(UserEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Ejecutar método a probar
+        UserResponseDTO result = userService.updateUser(mockedUser);
+
+        // Verificar resultado
+        assertEquals("storedHash", result.getPassword());
+        assertEquals("token", result.getToken());
+        assertEquals(1, result.getPhones().size());
+        verify(mockedPasswordHashingService, never()).encode(anyString());
+        verify(mockedUserCache).evict(mockedUser.getId(), mockedUser.getEmail(), mockedUser.getEmail());
+    }
+
+    @Test
+    void updateUser_concurrentModification_throwsConflict() {
+        User storedUser = User.builder()
+                .id(mockedUser.getId())
+                .isActive(true)
+                .email(mockedUser.getEmail())
+                .password("storedHash")
+                .version(3L)
+                .build();
+        mockedUserEntity.setVersion(3L);
+        when(mockedUserCache.findByEmail(mockedUser.getEmail())).thenReturn(Optional.of(storedUser));
+        when(mockedPasswordHashingService.rehashIfNeeded(mockedUser.getPassword(), "storedHash"))
+                .thenReturn("storedHash");
+        when(mockedTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mockedUserRepository.findWithPhonesById(mockedUser.getId())).thenReturn(Optional.of(mockedUserEntity));
+        when(mockedUserRepository.saveAndFlush(any(UserEntity.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(UserEntity.class, mockedUser.getId()));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.updateUser(mockedUser));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(mockedUserCache).evict(mockedUser.getId(), mockedUser.getEmail(), mockedUser.getEmail());
+    }
+
+    @Test
+    void patchUser_onlyName_keepsPhonesAndPassword() {
+        Phone phone = Phone.builder().number("1234567").citycode("1").countrycode("57").build();
+        User storedUser = User.builder()
+                .id(mockedUser.getId())
+                .isActive(true)
+                .name("Old Name")
+                .email(mockedUser.getEmail())
+                .password("storedHash")
+                .phones(List.of(phone))
+                .version(1L)
+                .build();
+        PhoneEntity phoneEntity = new PhoneEntity(7L, "1234567", "1", "57", mockedUserEntity, null);
+        mockedUserEntity.getPhones().add(phoneEntity);
+        mockedUserEntity.setName("Old Name");
+        mockedUserEntity.setPassword("storedHash");
+        mockedUserEntity.setVersion(1L);
+        when(mockedUserCache.findById(mockedUser.getId())).thenReturn(Optional.of(storedUser));
+        when(mockedUserValidator.validate(any(User.class))).thenReturn(new ArrayList<>());
+        when(mockedTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mockedUserRepository.findWithPhonesById(mockedUser.getId())).thenReturn(Optional.of(mockedUserEntity));
+        when(mockedUserRepository.saveAndFlush(any(UserEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UserResponseDTO result = userService.patchUser(mockedUser.getId(), 1L, User.builder().name("New Name").build());
+
+        assertEquals("New Name", result.getName());
+        assertEquals("storedHash", result.getPassword());
+        assertEquals("57", result.getPhones().get(0).getCountrycode());
+        assertEquals(List.of(phoneEntity), mockedUserEntity.getPhones());
+        assertNotNull(mockedUserEntity.getModified());
+        verify(mockedPasswordHashingService, never()).rehashIfNeeded(anyString(), anyString());
+        verify(mockedUserOutbox).record(UserChangeType.UPDATED, mockedUser.getId(), 1L);
+    }
+
+    @Test
+    void patchUser_ifMatchDoesNotMatch_throwsPreconditionFailed() {
+        when(mockedUserCache.findById(mockedUser.getId()))
+                .thenReturn(Optional.of(User.builder().id(mockedUser.getId()).isActive(true).version(2L).build()));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.patchUser(mockedUser.getId(), 1L, User.builder().name("New Name").build()));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatus());
+        verify(mockedTransactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void patchUser_staleCachedVersion_throwsConflict() {
+        when(mockedUserCache.findById(mockedUser.getId()))
+                .thenReturn(Optional.of(User.builder().id(mockedUser.getId()).isActive(true).version(1L).build()));
+        when(mockedUserValidator.validate(any(User.class))).thenReturn(new ArrayList<>());
+        when(mockedTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        mockedUserEntity.setVersion(2L);
+        when(mockedUserRepository.findWithPhonesById(mockedUser.getId())).thenReturn(Optional.of(mockedUserEntity));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.patchUser(mockedUser.getId(), null, User.builder().name("New Name").build()));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(mockedUserRepository, never()).saveAndFlush(any(UserEntity.class));
+    }
+
+    @Test
+    void applyPhones_keepsUnchangedPhones() {
+        PhoneEntity kept = new PhoneEntity(1L, "1111111", "1", "57", mockedUserEntity, null);
+        PhoneEntity removed = new PhoneEntity(2L, "2222222", "1", "57", mockedUserEntity, null);
+        mockedUserEntity.getPhones().addAll(List.of(kept, removed));
+
+        boolean modified = UserService.applyPhones(mockedUserEntity, List.of(
+                Phone.builder().number("1111111").citycode("1").countrycode("57").build(),
+                Phone.builder().number("3333333").citycode("2").countrycode("56").build()));
+
+        assertEquals(true, modified);
+        assertEquals(2, mockedUserEntity.getPhones().size());
+        assertEquals(kept, mockedUserEntity.getPhones().get(0));
+        assertNull(mockedUserEntity.getPhones().get(1).getId());
+        assertEquals("3333333", mockedUserEntity.getPhones().get(1).getNumber());
+    }
+
+    @Test
+    void applyPhones_samePhones_notModified() {
+        mockedUserEntity.getPhones().add(new PhoneEntity(1L, "1111111", "1", "57", mockedUserEntity, null));
+
+        boolean modified = UserService.applyPhones(mockedUserEntity, List.of(
+                Phone.builder().number("1111111").citycode("1").countrycode("57").build()));
+
+        assertEquals(false, modified);
+        assertEquals(1, mockedUserEntity.getPhones().size());
+    }
+
+    @Test
+    void saveUser_emailKnownInCache_throwsConflictWithoutHashing() {
+        when(mockedUserCache.isRegistered(mockedUser.getEmail())).thenReturn(true);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.saveUser(mockedUser));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(mockedPasswordHashingService, never()).encode(anyString());
+        verify(mockedUserRepository, never()).saveAndFlush(any(UserEntity.class));
+    }
+
+    @Test
+    void saveUser_uniqueEmailViolation_throwsConflict() {
+        when(mockedPasswordHashingService.encode(anyString())).thenReturn("encodedPassword");
+        when(mockedTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mockedUserRepository.saveAndFlush(any(UserEntity.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new RuntimeException("Unique index or primary key violation: "
+                + "\"PUBLIC.UX_USERS_EMAIL_NORMALIZED_INDEX_4 ON PUBLIC.USERS(EMAIL_NORMALIZED)\"")));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.saveUser(mockedUser));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(mockedUserCache).evict(null, mockedUser.getEmail());
+    }
+
+    @Test
+    void getUser_returnsCachedUser() {
+        when(mockedUserCache.findById(mockedUser.getId())).thenReturn(Optional.of(mockedUser));
+
+        UserResponseDTO result = userService.getUser(mockedUser.getId());
+
+        assertEquals(mockedUser.getEmail(), result.getEmail());
+    }
+
+    @Test
+    void getUser_notFound_throwsNotFound() {
+        when(mockedUserCache.findById("missing")).thenReturn(Optional.empty());
+
+        assertThrows(ResponseStatusException.class, () -> userService.getUser("missing"));
+    }
+
+    @Test
+    void getUser_deactivated_throwsNotFound() {
+        mockedUser.setIsActive(false);
+        when(mockedUserCache.findById(mockedUser.getId())).thenReturn(Optional.of(mockedUser));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.getUser(mockedUser.getId()));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    void deleteUser_deactivatesAndRemovesToken() {
+        //given
+        mockedUserEntity.setToken("3b241101-e2bb-4255-8caf-4136c566a962");
+        mockedUserEntity.setIsActive(true);
+        when(mockedUserRepository.findActiveByIdIn(List.of(mockedUserEntity.getId())))
+                .thenReturn(List.of(userResponse(mockedUserEntity)));
+        when(mockedTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mockedUserRepository.deactivateByIdIn(eq(List.of(mockedUserEntity.getId())), any(LocalDate.class)))
+                .thenReturn(1);
+
+        //when
+        userService.deleteUser(mockedUserEntity.getId());
+
+        //then
+        verify(mockedUserOutbox).recordCurrentVersions(UserChangeType.DEACTIVATED, List.of(mockedUserEntity.getId()));
+        verify(mockedUserCache).evict(mockedUserEntity.getId(), mockedUserEntity.getEmail());
+        verify(mockedTokenIndex).remove(mockedUserEntity.getToken());
+    }
+
+    @Test
+    void deleteUser_notFound_throwsNotFound() {
+        when(mockedUserRepository.findActiveByIdIn(List.of("missing"))).thenReturn(List.of());
+        when(mockedUserRepository.existsById("missing")).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.deleteUser("missing"));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        verify(mockedUserRepository, never()).deactivateByIdIn(any(), any());
+    }
+
+    @Test
+    void deactivateUsers_idsAndFilter_throwsBadRequest() {
+        UserDeactivateRequestDTO request = UserDeactivateRequestDTO.builder()
+                .ids(List.of(mockedUser.getId()))
+                .filter(UserSearchRequestDTO.builder().emailDomain("nisum.cl").build())
+                .build();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.deactivateUsers(request));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void deactivateUsers_filterWithoutCriteria_throwsBadRequest() {
+        UserDeactivateRequestDTO request = UserDeactivateRequestDTO.builder()
+                .filter(UserSearchRequestDTO.builder().isActive(true).build())
+                .build();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.deactivateUsers(request));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify(mockedUserRepository, never()).search(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getUserVersion_notFound_throwsNotFound() {
+        when(mockedUserRepository.findVersionById("missing")).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.getUserVersion("missing"));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    private static UserResponseDTO userResponse(UserEntity userEntity) {
+        return new UserResponseDTO(userEntity.getId(), userEntity.getName(), userEntity.getEmail(),
+                userEntity.getCreated(), userEntity.getModified(), userEntity.getLastLogin(), userEntity.getToken(),
+                userEntity.getIsActive(), userEntity.getVersion());
+    }
+
+    private static UserChangeDTO change(long position) {
+        return UserChangeDTO.builder()
+                .position(position)
+                .type(UserChangeType.UPDATED)
+                .userId("bb5d5031-4d64-4ff7-8164-1654002f7611")
+                .version(position)
+                .build();
     }
 }
@@ -0,0 +1,80 @@
+package com.exam.nisum.user.api.validation;
+
+import com.exam.nisum.user.api.model.Phone;
+import com.exam.nisum.user.api.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserValidatorTest {
+
+    // Expresiones regulares usadas antes de los validadores escritos a mano
+    private static final Pattern EMAIL_REGEX = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+    private static final Pattern PWD_REGEX = Pattern.compile("^(?=.*\\d)(?=.*[a-z])(?=.*[A-Z]).{8,16}$");
+
+    private final UserValidator userValidator = new UserValidator(Arrays.asList(
+            new RequiredFieldsRule(), new EmailFormatRule(), new PasswordFormatRule(), new PhoneFormatRule()));
+
+    @ParameterizedTest
+    @ValueSource(strings = {"test@nisum.cl", "a@b.co", "a.b_c%d+e-f@sub.dominio.com", "a@b.c", "a@.cl", "@nisum.cl",
+            "test@nisum", "test@nisum.c1", "test@@nisum.cl", "te st@nisum.cl", "test@nis_um.cl", "test@nisum.cl.",
+            "test@-.cl", "test@nisum..cl", "ñandu@nisum.cl", "test@nisum.CL", "a@1.cl"})
+    void emailRule_matchesRegex(String email) {
+        assertEquals(EMAIL_REGEX.matcher(email).matches(), EmailFormatRule.isValid(email), email);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"123Acb1234*", "Nisum123", "nisum123", "NISUM123", "Nisumabc", "Ni1", "Nisum1234567890123",
+            "Nisum12345678901", "Nisum 123", "Nisum\n123", "Nisum123 ", "Ñisum123a", "Nisum123😀",
+            "Ni1😀😀😀😀😀😀😀😀"
+                    + "😀😀😀😀😀"})
+    void passwordRule_matchesRegex(String password) {
+        assertEquals(PWD_REGEX.matcher(password).matches(), PasswordFormatRule.isValid(password), password);
+    }
+
+    @Test
+    void validate_collectsAllViolations() {
+        User user = new User();
+        user.setEmail("correo-invalido");
+        user.setPassword("corta");
+        user.setPhones(new ArrayList<>(List.of(new Phone("12a", "1", "57", null))));
+
+        List<Violation> violations = userValidator.validate(user);
+
+        assertEquals(Arrays.asList("name", "email", "password", "phones[0].number"),
+                violations.stream().map(Violation::getField).collect(Collectors.toList()));
+    }
+
+    @Test
+    void validateOrThrow_validUser() {
+        User user = new User();
+        user.setName("Test Nisum");
+        user.setEmail("test@nisum.cl");
+        user.setPassword("Nisum1234");
+        user.setPhones(new ArrayList<>(List.of(new Phone("3223605348", "1", "57", null))));
+
+        assertTrue(userValidator.validate(user).isEmpty());
+        userValidator.validateOrThrow(user);
+    }
+
+    @Test
+    void validateOrThrow_invalidUser() {
+        User user = new User();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userValidator.validateOrThrow(user));
+
+        assertTrue(exception.getReason().contains("El campo email es obligatorio"));
+    }
+}